@@ -0,0 +1,52 @@
+package com.oracle.osb.benchmark;
+
+import java.io.File;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Accepts the regular JMH command line options, and by default writes the results
+ * as JSON to {@link #DEFAULT_RESULT_FILE} and enables the {@link GCProfiler} (allocation rate) and the
+ * {@link PeakHeapProfiler}, so the results can be compared between builds.
+ */
+public final class BenchmarkRunner {
+
+    //General settings
+    private static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+    /**
+     * Constructor.
+     */
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args JMH command line options.
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+
+        if (!commandLineOptions.getResult().hasValue()) {
+            new File(DEFAULT_RESULT_FILE).getParentFile().mkdirs();
+            options.result(DEFAULT_RESULT_FILE);
+        }
+
+        options.addProfiler(GCProfiler.class);
+        options.addProfiler(PeakHeapProfiler.class);
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,111 @@
+package com.oracle.osb.benchmark;
+
+import com.oracle.osb.archiver.Compression;
+import com.oracle.osb.archiver.SbarArchiver;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the {@link SbarArchiver} compression settings: build time and archive size for stored entries and
+ * several deflate levels. The archive size is reported as the <i>archiveBytes</i> secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompressionBenchmark {
+
+    //General settings
+    private static final String FILENAME_EXPORT_INFO = "ExportInfo";
+    private static final String SBAR_FILENAME = "compression.sbar";
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Compression method, followed by the deflate level for deflated archives.
+     */
+    @Param({ "STORED", "DEFLATED:1", "DEFLATED:6", "DEFLATED:9" })
+    public String compression;
+
+    private File exportInfoFile;
+    private File sbarFile;
+
+    /**
+     * Counter reporting the size of the created archive.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ArchiveSize {
+
+        public long archiveBytes;
+    }
+
+    /**
+     * Write the <i>ExportInfo</i> file of the project.
+     *
+     * @param state Project state.
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setUp(ProjectState state) throws IOException {
+        SyntheticProject project = state.getProject();
+        exportInfoFile = new File(state.getWorkDir(), FILENAME_EXPORT_INFO);
+        sbarFile = new File(state.getWorkDir(), SBAR_FILENAME);
+        project.writeExportInfo(exportInfoFile, 0, project.getResources().size());
+    }
+
+    /**
+     * Create the archive.
+     *
+     * @param state Project state.
+     * @param size Archive size counter.
+     * @return The archive file.
+     * @throws IOException
+     */
+    @Benchmark
+    public File archive(ProjectState state, ArchiveSize size) throws IOException {
+        String[] settings = compression.split(SEPARATOR);
+
+        SbarArchiver archiver = new SbarArchiver();
+        archiver.enableLogging(new ConsoleLogger(Logger.LEVEL_WARN, SbarArchiver.class.getName()));
+        archiver.setCompression(Compression.valueOf(settings[0]));
+
+        if (settings.length > 1) {
+            archiver.setCompressionLevel(Integer.parseInt(settings[1]));
+        }
+
+        archiver.setForced(true);
+        archiver.setDestFile(sbarFile);
+
+        for (SyntheticProject.Resource resource : state.getProject().getResources()) {
+            archiver.addFile(resource.getFile(), resource.getEntryName());
+        }
+
+        archiver.addFile(exportInfoFile, FILENAME_EXPORT_INFO);
+        archiver.createArchive();
+
+        size.archiveBytes = sbarFile.length();
+        return sbarFile;
+    }
+}
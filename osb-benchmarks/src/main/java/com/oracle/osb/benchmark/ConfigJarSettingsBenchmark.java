@@ -0,0 +1,77 @@
+package com.oracle.osb.benchmark;
+
+import com.oracle.osb.configjar.ConfigJarSettings;
+import com.oracle.osb.configjar.ExportLevel;
+
+import java.io.File;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.project.MavenProject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of {@link ConfigJarSettings#create}: writing the Configjar settings file of a resource level export that
+ * includes every resource of the project, as done for a deploy file that lists all resources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConfigJarSettingsBenchmark {
+
+    //General settings
+    private static final String POM_FILENAME = "pom.xml";
+    private static final String SBAR_FILENAME = "sbconfig.sbar";
+    private static final String[] EXCLUDES = new String[0];
+
+    private MavenProject mavenProject;
+    private String[] includes;
+
+    /**
+     * Create the Maven project and the includes of all resources.
+     *
+     * @param state Project state.
+     */
+    @Setup(Level.Trial)
+    public void setUp(ProjectState state) {
+        File projectDir = state.getProject().getProjectDir();
+        mavenProject = new MavenProject();
+        mavenProject.setFile(new File(projectDir, POM_FILENAME));
+
+        List<SyntheticProject.Resource> resources = state.getProject().getResources();
+        includes = new String[resources.size()];
+
+        for (int i = 0; i < includes.length; i++) {
+            includes[i] = "/" + resources.get(i).getPath();
+        }
+    }
+
+    /**
+     * Create the settings file.
+     *
+     * @param state Project state.
+     * @return The settings file.
+     * @throws Exception
+     */
+    @Benchmark
+    public File create(ProjectState state) throws Exception {
+        return new ConfigJarSettings().create(mavenProject, new File(state.getWorkDir(), SBAR_FILENAME),
+                                              state.getWorkDir(), false, ExportLevel.RESOURCE, includes, EXCLUDES,
+                                              state.getProject().getProjectDir().getAbsolutePath());
+    }
+}
@@ -0,0 +1,160 @@
+package com.oracle.osb.benchmark;
+
+import com.bea.wli.config.Ref;
+import com.bea.wli.config.resource.Diagnostics;
+import com.bea.wli.sb.management.configuration.ALSBConfigurationMBean;
+
+import com.oracle.osb.deploy.ConflictCheck;
+import com.oracle.osb.deploy.ConflictChecker;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the {@link ConflictCheck} modes of the {@link ConflictChecker} against a mock
+ * {@link ALSBConfigurationMBean} of a domain with {@link #domainResources} resources, of which
+ * {@link #importedResources} are imported to the session. Like the remote MBean, the mock creates a new diagnostics
+ * map for every call, with new {@link Ref} instances for the resources of the domain, so the benchmark measures the
+ * cost of materializing the diagnostics on the client; the network transfer of a real domain adds to the difference.
+ * None of the resources has a conflict, so every mode checks all diagnostics it asks for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConflictCheckBenchmark {
+
+    //General settings
+    private static final String TYPE_ID = "ProxyService";
+    private static final String PROJECT_PREFIX = "Project";
+    private static final String FOLDER = "proxy";
+    private static final String RESOURCE_PREFIX = "service-";
+    private static final int RESOURCES_PER_PROJECT = 200;
+
+    @Param({ "20000" })
+    private int domainResources;
+
+    @Param({ "100", "2000" })
+    private int importedResources;
+
+    private final List<Ref> importedRefs = new ArrayList<Ref>();
+    private final Log log = new SystemStreamLog();
+    private ALSBConfigurationMBean configMBean;
+
+    /**
+     * Create the mock MBean and the refs of the imported resources.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        importedRefs.clear();
+
+        for (int i = 0; i < importedResources; i++) {
+            importedRefs.add(createRef(i));
+        }
+
+        configMBean =
+            (ALSBConfigurationMBean) Proxy.newProxyInstance(ALSBConfigurationMBean.class.getClassLoader(),
+                                                            new Class<?>[] { ALSBConfigurationMBean.class },
+                                                            new MockConfigMBean());
+    }
+
+    /**
+     * Check the diagnostics of all resources of the domain.
+     *
+     * @return TRUE if there are conflicts.
+     * @throws Exception
+     */
+    @Benchmark
+    public boolean full() throws Exception {
+        return new ConflictChecker(configMBean, log).hasConflicts(ConflictCheck.FULL, importedRefs);
+    }
+
+    /**
+     * Check the diagnostics of the imported resources.
+     *
+     * @return TRUE if there are conflicts.
+     * @throws Exception
+     */
+    @Benchmark
+    public boolean scoped() throws Exception {
+        return new ConflictChecker(configMBean, log).hasConflicts(ConflictCheck.SCOPED, importedRefs);
+    }
+
+    /**
+     * Check the diagnostics of all resources of the domain and group the conflicts by project.
+     *
+     * @return TRUE if there are conflicts.
+     * @throws Exception
+     */
+    @Benchmark
+    public boolean report() throws Exception {
+        return new ConflictChecker(configMBean, log).hasConflicts(ConflictCheck.REPORT, importedRefs);
+    }
+
+    /**
+     * Create the ref of a resource of the domain.
+     *
+     * @param index Index of the resource.
+     * @return {@link Ref} instance.
+     */
+    private static Ref createRef(int index) {
+        return new Ref(TYPE_ID, PROJECT_PREFIX + (index / RESOURCES_PER_PROJECT), FOLDER, RESOURCE_PREFIX + index);
+    }
+
+    /**
+     * Invocation handler of the mock {@link ALSBConfigurationMBean}, only <i>getDiagnostics</i> is supported. All
+     * resources are returned without diagnostics, which the {@link ConflictChecker} treats as valid.
+     */
+    private class MockConfigMBean implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (!"getDiagnostics".equals(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+
+            @SuppressWarnings("unchecked")
+            Collection<Ref> refs = (Collection<Ref>) args[0];
+            int size = refs != null ? refs.size() : domainResources;
+            Map<Ref, Diagnostics> result = new HashMap<Ref, Diagnostics>(size * 2);
+
+            if (refs != null) {
+                for (Ref ref : refs) {
+                    result.put(ref, null);
+                }
+            } else {
+                for (int i = 0; i < domainResources; i++) {
+                    result.put(createRef(i), null);
+                }
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.oracle.osb.benchmark;
+
+import com.oracle.osb.archiver.SbarArchiver;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the <i>ExportInfo</i> merge of {@link SbarArchiver}. The resources of a project are spread over
+ * <i>ExportInfo</i> files of {@link #ITEMS_PER_EXPORT_INFO} items each, as when several archives are combined into one,
+ * and only these files are archived, so the time is spent on merging the <i>ExportInfo</i> content.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportInfoMergeBenchmark {
+
+    //General settings
+    private static final int ITEMS_PER_EXPORT_INFO = 100;
+    private static final String FILENAME_EXPORT_INFO = "ExportInfo";
+    private static final String EXPORT_INFO_DIR = "exportinfo";
+    private static final String SBAR_FILENAME = "exportinfo.sbar";
+
+    private final List<File> exportInfoFiles = new ArrayList<File>();
+    private File sbarFile;
+
+    /**
+     * Write the <i>ExportInfo</i> files of the project.
+     *
+     * @param state Project state.
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setUp(ProjectState state) throws IOException {
+        SyntheticProject project = state.getProject();
+        int size = project.getResources().size();
+        exportInfoFiles.clear();
+        sbarFile = new File(state.getWorkDir(), SBAR_FILENAME);
+
+        for (int from = 0; from < size; from += ITEMS_PER_EXPORT_INFO) {
+            File exportInfoFile = new File(state.getWorkDir(), EXPORT_INFO_DIR + "/" + from + "/" + FILENAME_EXPORT_INFO);
+            project.writeExportInfo(exportInfoFile, from, Math.min(size, from + ITEMS_PER_EXPORT_INFO));
+            exportInfoFiles.add(exportInfoFile);
+        }
+    }
+
+    /**
+     * Create an archive containing only the merged <i>ExportInfo</i> file.
+     *
+     * @return The archive file.
+     * @throws IOException
+     */
+    @Benchmark
+    public File merge() throws IOException {
+        SbarArchiver archiver = new SbarArchiver();
+        archiver.enableLogging(new ConsoleLogger(Logger.LEVEL_WARN, SbarArchiver.class.getName()));
+        archiver.setForced(true);
+        archiver.setDestFile(sbarFile);
+
+        for (File exportInfoFile : exportInfoFiles) {
+            archiver.addFile(exportInfoFile, FILENAME_EXPORT_INFO);
+        }
+
+        archiver.createArchive();
+
+        return sbarFile;
+    }
+}
@@ -0,0 +1,64 @@
+package com.oracle.osb.benchmark;
+
+import com.oracle.osb.configjar.ConfigJarSettings;
+import com.oracle.osb.fileset.FilesetCache;
+import com.oracle.osb.fileset.FilesetResolver;
+
+import java.io.IOException;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the fileset resolution of the package goal: listing all files of a project with the default project
+ * excludes, as done for the build state. The <i>scan</i> benchmark walks the project directory, the <i>resolve</i>
+ * benchmark filters the scan that is cached by a {@link FilesetCache}, like the cache of a Maven session.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FilesetResolverBenchmark {
+
+    //General settings
+    private static final String[] INCLUDES = new String[0];
+    private static final String[] EXCLUDES = new ConfigJarSettings().getExcludes(false, new String[0]);
+
+    private final FilesetCache filesetCache = new FilesetCache();
+
+    /**
+     * Scan the project directory, without the session cache.
+     *
+     * @param state Project state.
+     * @return Relative paths of the scanned files.
+     * @throws IOException
+     */
+    @Benchmark
+    public List<String> scan(ProjectState state) throws IOException {
+        return new FilesetResolver(state.getProject().getProjectDir(), INCLUDES, EXCLUDES).scan();
+    }
+
+    /**
+     * Resolve the fileset of the project from the cache.
+     *
+     * @param state Project state.
+     * @return Relative paths of the included files.
+     * @throws IOException
+     */
+    @Benchmark
+    public List<String> resolve(ProjectState state) throws IOException {
+        return new FilesetResolver(state.getProject().getProjectDir(), INCLUDES, EXCLUDES, filesetCache).resolve();
+    }
+}
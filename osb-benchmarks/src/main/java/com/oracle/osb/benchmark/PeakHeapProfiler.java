@@ -0,0 +1,56 @@
+package com.oracle.osb.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * JMH profiler that reports the peak heap usage of every iteration. The peak usage of the heap memory pools is reset
+ * before the iteration and summed after the iteration. The pools do not reach their peak at the same moment, so the
+ * result is an upper bound of the actual peak heap usage.
+ */
+public class PeakHeapProfiler implements InternalProfiler {
+
+    //General settings
+    private static final String LABEL = "peak.heap";
+    private static final String UNIT = "bytes";
+
+    @Override
+    public String getDescription() {
+        return "Peak heap usage per iteration";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+                                                       IterationParams iterationParams, IterationResult result) {
+        long peakHeapUsage = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peakHeapUsage += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        return Collections.singletonList(new ScalarResult(LABEL, peakHeapUsage, UNIT, AggregationPolicy.MAX));
+    }
+}
@@ -0,0 +1,72 @@
+package com.oracle.osb.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark state holding a {@link SyntheticProject} with {@link #resources} resources in a temporary directory. The
+ * project is generated once per trial and deleted afterwards.
+ */
+@State(Scope.Benchmark)
+public class ProjectState {
+
+    //General settings
+    private static final String PROJECT_NAME = "BenchmarkProject";
+    private static final String TEMP_DIR_PREFIX = "osb-benchmark";
+
+    @Param({ "100", "1000", "10000", "50000" })
+    public int resources;
+
+    private File workDir;
+    private SyntheticProject project;
+
+    /**
+     * Generate the project.
+     *
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = File.createTempFile(TEMP_DIR_PREFIX, "");
+        workDir.delete();
+        workDir.mkdirs();
+        project = SyntheticProject.generate(workDir, PROJECT_NAME, resources);
+    }
+
+    /**
+     * Delete the project.
+     *
+     * @throws IOException
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir);
+    }
+
+    /**
+     * Get the working directory, which contains the project directory and can be used for output files.
+     *
+     * @return Working directory.
+     */
+    public File getWorkDir() {
+        return workDir;
+    }
+
+    /**
+     * Get the generated project.
+     *
+     * @return {@link SyntheticProject} instance.
+     */
+    public SyntheticProject getProject() {
+        return project;
+    }
+}
@@ -0,0 +1,86 @@
+package com.oracle.osb.benchmark;
+
+import com.oracle.osb.archiver.SbarArchiver;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of {@link SbarArchiver}: creating an <i>sbar</i> archive of all resources of a project together with an
+ * <i>ExportInfo</i> file that lists every resource.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SbarArchiverBenchmark {
+
+    //General settings
+    private static final String FILENAME_EXPORT_INFO = "ExportInfo";
+    private static final String SBAR_FILENAME = "sbconfig.sbar";
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    private File exportInfoFile;
+    private File sbarFile;
+
+    /**
+     * Write the <i>ExportInfo</i> file of the project.
+     *
+     * @param state Project state.
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setUp(ProjectState state) throws IOException {
+        SyntheticProject project = state.getProject();
+        exportInfoFile = new File(state.getWorkDir(), FILENAME_EXPORT_INFO);
+        sbarFile = new File(state.getWorkDir(), SBAR_FILENAME);
+        project.writeExportInfo(exportInfoFile, 0, project.getResources().size());
+    }
+
+    /**
+     * Create the archive.
+     *
+     * @param state Project state.
+     * @return The archive file.
+     * @throws IOException
+     */
+    @Benchmark
+    public File archive(ProjectState state) throws IOException {
+        SbarArchiver archiver = new SbarArchiver();
+        archiver.enableLogging(new ConsoleLogger(Logger.LEVEL_WARN, SbarArchiver.class.getName()));
+        archiver.setThreads(threads);
+        archiver.setForced(true);
+        archiver.setDestFile(sbarFile);
+
+        for (SyntheticProject.Resource resource : state.getProject().getResources()) {
+            archiver.addFile(resource.getFile(), resource.getEntryName());
+        }
+
+        archiver.addFile(exportInfoFile, FILENAME_EXPORT_INFO);
+        archiver.createArchive();
+
+        return sbarFile;
+    }
+}
@@ -0,0 +1,216 @@
+package com.oracle.osb.benchmark;
+
+import com.oracle.osb.archiver.ExportInfoReader;
+import com.oracle.osb.archiver.SbarArchiver;
+import com.oracle.osb.archiver.SbarDiff;
+import com.oracle.osb.archiver.SbarReader;
+import com.oracle.osb.archiver.SbarUnArchiver;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.io.FileUtils;
+
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of reading <i>sbar</i> archives: listing an archive with the {@link SbarReader} (central directory and
+ * <i>ExportInfo</i> file only), comparing two archives with the {@link SbarDiff}, and, as reference, unpacking an
+ * archive with the {@link SbarUnArchiver}. The second archive of the comparison has the same resources and an
+ * <i>ExportInfo</i> file that lists half of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SbarReaderBenchmark {
+
+    //General settings
+    private static final String FILENAME_EXPORT_INFO = "ExportInfo";
+    private static final String BASE_SBAR_FILENAME = "base.sbar";
+    private static final String TARGET_SBAR_FILENAME = "target.sbar";
+    private static final String UNPACK_DIR = "unpack";
+    private static final int UNPACK_THREADS = 4;
+    private static final String UNPACK_RESOURCE_TYPE = "XMLSchema";
+
+    private File baseFile;
+    private File targetFile;
+    private File unpackDir;
+
+    /**
+     * Create the archives of the project.
+     *
+     * @param state Project state.
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setUp(ProjectState state) throws IOException {
+        SyntheticProject project = state.getProject();
+        int resourceCount = project.getResources().size();
+        baseFile = new File(state.getWorkDir(), BASE_SBAR_FILENAME);
+        targetFile = new File(state.getWorkDir(), TARGET_SBAR_FILENAME);
+        unpackDir = new File(state.getWorkDir(), UNPACK_DIR);
+
+        createArchive(state, baseFile, resourceCount);
+        createArchive(state, targetFile, resourceCount / 2);
+    }
+
+    /**
+     * List the base archive and its exported items.
+     *
+     * @return Type ids by archive entry name.
+     * @throws IOException
+     * @throws XMLStreamException
+     */
+    @Benchmark
+    public Map<String, String> inspect() throws IOException, XMLStreamException {
+        SbarReader reader = new SbarReader(baseFile);
+
+        try {
+            byte[] exportInfo = reader.read(reader.getEntry(FILENAME_EXPORT_INFO));
+            return new ExportInfoReader().readExportedItems(new ByteArrayInputStream(exportInfo));
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Compare the base archive with the target archive.
+     *
+     * @return The comparison.
+     * @throws IOException
+     * @throws XMLStreamException
+     */
+    @Benchmark
+    public SbarDiff diff() throws IOException, XMLStreamException {
+        SbarReader base = new SbarReader(baseFile);
+        SbarReader target = new SbarReader(targetFile);
+
+        try {
+            SbarDiff diff = new SbarDiff(base, target);
+            diff.compare();
+            return diff;
+        } finally {
+            base.close();
+            target.close();
+        }
+    }
+
+    /**
+     * Unpack the base archive.
+     *
+     * @return The unpack directory.
+     * @throws IOException
+     */
+    @Benchmark
+    public File unpack() throws IOException {
+        return unpack(createUnArchiver());
+    }
+
+    /**
+     * Unpack the base archive with {@link #UNPACK_THREADS} threads.
+     *
+     * @return The unpack directory.
+     * @throws IOException
+     */
+    @Benchmark
+    public File unpackParallel() throws IOException {
+        SbarUnArchiver unArchiver = createUnArchiver();
+        unArchiver.setThreads(UNPACK_THREADS);
+
+        return unpack(unArchiver);
+    }
+
+    /**
+     * Unpack the resources of type {@link #UNPACK_RESOURCE_TYPE} of the base archive with {@link #UNPACK_THREADS}
+     * threads.
+     *
+     * @return The unpack directory.
+     * @throws IOException
+     */
+    @Benchmark
+    public File unpackSelected() throws IOException {
+        SbarUnArchiver unArchiver = createUnArchiver();
+        unArchiver.setThreads(UNPACK_THREADS);
+        unArchiver.setResourceTypes(Collections.singleton(UNPACK_RESOURCE_TYPE));
+
+        return unpack(unArchiver);
+    }
+
+    /**
+     * Create an unarchiver of the base archive.
+     *
+     * @return The unarchiver.
+     */
+    private SbarUnArchiver createUnArchiver() {
+        SbarUnArchiver unArchiver = new SbarUnArchiver(baseFile);
+        unArchiver.enableLogging(new ConsoleLogger(Logger.LEVEL_WARN, SbarUnArchiver.class.getName()));
+
+        return unArchiver;
+    }
+
+    /**
+     * Unpack an archive into an empty unpack directory.
+     *
+     * @param unArchiver Unarchiver of the archive.
+     * @return The unpack directory.
+     * @throws IOException
+     */
+    private File unpack(SbarUnArchiver unArchiver) throws IOException {
+        FileUtils.deleteDirectory(unpackDir);
+        unpackDir.mkdirs();
+
+        unArchiver.setDestDirectory(unpackDir);
+        unArchiver.extract();
+
+        return unpackDir;
+    }
+
+    /**
+     * Create an archive of all resources of the project.
+     *
+     * @param state Project state.
+     * @param sbarFile Archive file.
+     * @param exportedCount Number of resources listed in the <i>ExportInfo</i> file.
+     * @throws IOException
+     */
+    private static void createArchive(ProjectState state, File sbarFile, int exportedCount) throws IOException {
+        SyntheticProject project = state.getProject();
+        File exportInfoFile = new File(state.getWorkDir(), FILENAME_EXPORT_INFO);
+        project.writeExportInfo(exportInfoFile, 0, exportedCount);
+
+        SbarArchiver archiver = new SbarArchiver();
+        archiver.enableLogging(new ConsoleLogger(Logger.LEVEL_WARN, SbarArchiver.class.getName()));
+        archiver.setForced(true);
+        archiver.setDestFile(sbarFile);
+
+        for (SyntheticProject.Resource resource : project.getResources()) {
+            archiver.addFile(resource.getFile(), resource.getEntryName());
+        }
+
+        archiver.addFile(exportInfoFile, FILENAME_EXPORT_INFO);
+        archiver.createArchive();
+    }
+}
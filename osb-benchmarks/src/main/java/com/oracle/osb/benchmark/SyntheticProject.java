@@ -0,0 +1,240 @@
+package com.oracle.osb.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Generator of synthetic OSB projects for the benchmarks. A project contains the given number of resources with a
+ * realistic mix of types and sizes: schemas, WSDL files, proxy services, pipelines and business services. The content
+ * is generated from a fixed seed, so every run produces the same project and the compressed size is comparable with
+ * real resources. The project also contains the files that are excluded from the archive, like the JDeveloper project
+ * file and the <i>.data</i> folder.
+ */
+public class SyntheticProject {
+
+    //ExportInfo file content
+    private static final String EXPORT_INFO_HEADER =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<xml-fragment name=\"sbconfig.sbar\" version=\"v2\" " +
+        "xmlns:imp=\"http://www.bea.com/wli/config/importexport\">\n" +
+        "  <imp:properties>\n" +
+        "    <imp:property name=\"username\" value=\"weblogic\"/>\n" +
+        "    <imp:property name=\"description\" value=\"\"/>\n" +
+        "    <imp:property name=\"exporttime\" value=\"Mon Jan 01 00:00:00 UTC 2024\"/>\n" +
+        "    <imp:property name=\"productname\" value=\"Oracle Service Bus\"/>\n" +
+        "    <imp:property name=\"productversion\" value=\"12.2.1.4.0\"/>\n" +
+        "    <imp:property name=\"projectLevelExport\" value=\"false\"/>\n" +
+        "  </imp:properties>\n";
+    private static final String EXPORT_INFO_FOOTER = "</xml-fragment>\n";
+
+    //General settings
+    private static final long SEED = 12345L;
+    private static final int FILES_PER_FOLDER = 500;
+    private static final String ENCODING = "UTF-8";
+
+    //Resource types: folder, file extension, type id, approximate size in bytes and share of the project in percent
+    private static final String[][] RESOURCE_TYPES = new String[][] {
+        { "schemas", "xsd", "XMLSchema", "6000", "40" },
+        { "wsdl", "wsdl", "WSDL", "10000", "20" },
+        { "proxy", "proxy", "ProxyService", "4000", "15" },
+        { "pipeline", "pipeline", "Pipeline", "8000", "15" },
+        { "business", "bix", "BusinessService", "4000", "10" }
+    };
+
+    private final File projectDir;
+    private final List<Resource> resources = new ArrayList<Resource>();
+
+    /**
+     * Constructor.
+     *
+     * @param projectDir Project directory, the name of the directory is used as project name.
+     */
+    private SyntheticProject(File projectDir) {
+        this.projectDir = projectDir;
+    }
+
+    /**
+     * Generate a synthetic project.
+     *
+     * @param parentDir Directory in which the project directory is created.
+     * @param name Project name.
+     * @param resourceCount Number of resources.
+     * @return {@link SyntheticProject} instance.
+     * @throws IOException
+     */
+    public static SyntheticProject generate(File parentDir, String name, int resourceCount) throws IOException {
+        SyntheticProject project = new SyntheticProject(new File(parentDir, name));
+        Random random = new Random(SEED);
+        int index = 0;
+        int remaining = resourceCount;
+
+        for (int t = RESOURCE_TYPES.length - 1; t >= 0; t--) {
+            String[] type = RESOURCE_TYPES[t];
+            int count = t == 0 ? remaining : resourceCount * Integer.parseInt(type[4]) / 100;
+            remaining -= count;
+
+            for (int i = 0; i < count; i++, index++) {
+                String path =
+                    type[0] + "/f" + (i / FILES_PER_FOLDER) + "/" + type[0] + "-" + index + "." + type[1];
+                File file = new File(project.projectDir, path);
+                FileUtils.writeStringToFile(file, generateContent(random, type[2], Integer.parseInt(type[3])),
+                                            ENCODING);
+                project.resources.add(new Resource(file, name, path, type[2]));
+            }
+        }
+
+        FileUtils.writeStringToFile(new File(project.projectDir, name + ".jpr"), "<project/>", ENCODING);
+        FileUtils.writeStringToFile(new File(project.projectDir, "pom.xml"), "<project/>", ENCODING);
+        FileUtils.writeStringToFile(new File(project.projectDir, ".data/servicebus.sboverview"), "<overview/>",
+                                    ENCODING);
+
+        return project;
+    }
+
+    /**
+     * Get the project directory.
+     *
+     * @return Project directory.
+     */
+    public File getProjectDir() {
+        return projectDir;
+    }
+
+    /**
+     * Get the resources of the project.
+     *
+     * @return Resources.
+     */
+    public List<Resource> getResources() {
+        return resources;
+    }
+
+    /**
+     * Write an <i>ExportInfo</i> file with an <i>exportedItemInfo</i> element for a range of the resources.
+     *
+     * @param file <i>ExportInfo</i> file.
+     * @param from Index of the first resource, inclusive.
+     * @param to Index of the last resource, exclusive.
+     * @throws IOException
+     */
+    public void writeExportInfo(File file, int from, int to) throws IOException {
+        StringBuilder content = new StringBuilder(EXPORT_INFO_HEADER);
+
+        for (Resource resource : resources.subList(from, to)) {
+            content.append("  <imp:exportedItemInfo instanceId=\"").append(resource.getInstanceId());
+            content.append("\" typeId=\"").append(resource.getTypeId()).append("\">\n");
+            content.append("    <imp:properties>\n");
+            content.append("      <imp:property name=\"dataclass\" value=\"com.bea.wli.sb.resources.config\"/>\n");
+            content.append("      <imp:property name=\"isencrypted\" value=\"false\"/>\n");
+            content.append("      <imp:property name=\"jarentryname\" value=\"").append(resource.getEntryName());
+            content.append("\"/>\n");
+            content.append("    </imp:properties>\n");
+            content.append("  </imp:exportedItemInfo>\n");
+        }
+
+        content.append(EXPORT_INFO_FOOTER);
+        FileUtils.writeStringToFile(file, content.toString(), ENCODING);
+    }
+
+    /**
+     * Generate XML content of approximately the given size. The content consists of elements with generated names and
+     * values, so it compresses like a real resource.
+     *
+     * @param random Random generator.
+     * @param typeId Type id, used as root element.
+     * @param size Approximate size in bytes.
+     * @return Content.
+     */
+    private static String generateContent(Random random, String typeId, int size) {
+        StringBuilder content = new StringBuilder(size + 128);
+        content.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        content.append("<").append(typeId).append(" xmlns=\"http://www.example.com/").append(typeId).append("\">\n");
+
+        while (content.length() < size) {
+            String name = "element" + random.nextInt(200);
+            content.append("  <").append(name).append(" id=\"").append(Long.toHexString(random.nextLong()));
+            content.append("\" type=\"xs:string\">").append(Integer.toString(random.nextInt(100000), 36));
+            content.append("</").append(name).append(">\n");
+        }
+
+        content.append("</").append(typeId).append(">\n");
+        return content.toString();
+    }
+
+    /**
+     * Resource of a synthetic project.
+     */
+    public static class Resource {
+
+        private final File file;
+        private final String projectName;
+        private final String path;
+        private final String typeId;
+
+        /**
+         * Constructor.
+         *
+         * @param file Resource file.
+         * @param projectName Project name.
+         * @param path Path relative to the project directory.
+         * @param typeId Resource type id.
+         */
+        private Resource(File file, String projectName, String path, String typeId) {
+            this.file = file;
+            this.projectName = projectName;
+            this.path = path;
+            this.typeId = typeId;
+        }
+
+        /**
+         * Get the resource file.
+         *
+         * @return Resource file.
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Get the path relative to the project directory.
+         *
+         * @return Relative path.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Get the resource type id.
+         *
+         * @return Type id.
+         */
+        public String getTypeId() {
+            return typeId;
+        }
+
+        /**
+         * Get the instance id, the project name and path without extension.
+         *
+         * @return Instance id.
+         */
+        public String getInstanceId() {
+            return projectName + "/" + path.substring(0, path.lastIndexOf('.'));
+        }
+
+        /**
+         * Get the name of the archive entry of the resource.
+         *
+         * @return Archive entry name.
+         */
+        public String getEntryName() {
+            return getInstanceId() + "." + typeId;
+        }
+    }
+}
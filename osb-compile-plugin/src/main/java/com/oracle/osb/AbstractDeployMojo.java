@@ -0,0 +1,225 @@
+package com.oracle.osb;
+
+import com.oracle.osb.deploy.ConflictCheck;
+import com.oracle.osb.deploy.DeploymentSession;
+import com.oracle.osb.deploy.ImportPlanOptions;
+import com.oracle.osb.deploy.MBeanHelperCache;
+import com.oracle.osb.metrics.BuildMetrics;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.List;
+
+import oracle.sb.maven.plugin.deploy.MBeanHelper;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Base class of the mojos that deploy <i>sbar</i> archives to an OSB server. This class holds the import plan and
+ * session settings, and implements the deployment of one or more archives in a single {@link DeploymentSession}.
+ */
+public abstract class AbstractDeployMojo extends AbstractMojo {
+
+    //General settings
+    protected static final String SESSION_NAME_PREFIX = "ServiceBusPlugin";
+    protected static final String SBAR_FILENAME = "sbconfig.sbar";
+
+    @Parameter(defaultValue = "${project}")
+    protected MavenProject project;
+
+    @Parameter(defaultValue = "${session}", readonly = true)
+    protected MavenSession session;
+
+    @Parameter(property = "deployment.preserve.credentials", defaultValue = "true")
+    private boolean deploymentPreserveCredentals;
+
+    @Parameter(property = "deployment.preserve.envValues", defaultValue = "true")
+    private boolean deploymentPreserveEnvValues;
+
+    @Parameter(property = "deployment.preserve.operationalValues", defaultValue = "true")
+    private boolean deploymentPreserveOperationalValues;
+
+    @Parameter(property = "deployment.preserve.securityAndPolicyConfig", defaultValue = "true")
+    private boolean deploymentPreserveSecurityAndPolicyConfig;
+
+    @Parameter(property = "deployment.preserve.accessControlPolicies", defaultValue = "true")
+    private boolean deploymentPreserveAccessControlPolicies;
+
+    @Parameter(property = "deployment.customization.file", required = false)
+    protected File deploymentCustomizationFile;
+
+    @Parameter(property = "deployment.session.activate", defaultValue = "true")
+    protected boolean deploymentSessionActivate;
+
+    @Parameter(property = "deployment.session.discardOnError", defaultValue = "true")
+    protected boolean deploymentSessionDiscardOnError;
+
+    @Parameter(property = "deployment.conflictCheck", defaultValue = "FULL")
+    protected ConflictCheck deploymentConflictCheck;
+
+    @Parameter(property = "metrics.report", defaultValue = "true")
+    protected boolean metricsReport;
+
+    /**
+     * Get the options for the import plan, based on the {@link deploymentPreserveAccessControlPolicies},
+     * {@link deploymentPreserveCredentals}, {@link deploymentPreserveEnvValues},
+     * {@link deploymentPreserveOperationalValues} and {@link deploymentPreserveSecurityAndPolicyConfig} settings.
+     *
+     * @return {@link ImportPlanOptions} instance.
+     */
+    protected ImportPlanOptions getImportPlanOptions() {
+        return new ImportPlanOptions(deploymentPreserveAccessControlPolicies, deploymentPreserveCredentals,
+                                     deploymentPreserveEnvValues, deploymentPreserveOperationalValues,
+                                     deploymentPreserveSecurityAndPolicyConfig);
+    }
+
+    /**
+     * Create a new session name for the provided artifact id.
+     *
+     * @param artifactId Artifact id.
+     * @return Session name.
+     */
+    protected String createSessionName(String artifactId) {
+        return SESSION_NAME_PREFIX + "_" + artifactId + "_" + System.currentTimeMillis();
+    }
+
+    /**
+     * Get the <i>sbar</i> archive of a Maven project.
+     *
+     * @param mavenProject Maven project.
+     * @return {@link File} instance of the <i>sbar</i> archive.
+     */
+    protected File getArtifactFile(MavenProject mavenProject) {
+        return new File(mavenProject.getBuild().getDirectory(), SBAR_FILENAME);
+    }
+
+    /**
+     * Write a metrics report to the build directory, if {@link metricsReport} is true. A failure to write the report is
+     * logged, but does not fail the deployment.
+     *
+     * @param metrics {@link BuildMetrics} of the deployment.
+     * @param buildDir Build directory.
+     */
+    protected void writeMetrics(BuildMetrics metrics, File buildDir) {
+        if (!metricsReport) {
+            return;
+        }
+
+        try {
+            metrics.write(buildDir);
+        } catch (IOException ex) {
+            getLog().warn("IOException occurred while writing metrics report: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Get the shared {@link MBeanHelper} instance for the provided server and credentials from the
+     * {@link MBeanHelperCache} of the Maven session, so one connection is opened per server in a Maven session.
+     *
+     * @param serverUrl Weblogic server URL.
+     * @param serverUsername Weblogic username.
+     * @param serverPassword Weblogic password.
+     * @return {@link MBeanHelper} instance.
+     */
+    protected MBeanHelper getMBeanHelper(String serverUrl, String serverUsername, String serverPassword) {
+        MBeanHelperCache cache = MBeanHelperCache.getInstance(session);
+        MBeanHelper result = cache.get(serverUrl, serverUsername, serverPassword);
+        getLog().info("Connection cache hits [" + cache.getHitCount() + "], misses [" + cache.getMissCount() + "]");
+
+        return result;
+    }
+
+    /**
+     * Remove a shared {@link MBeanHelper} instance from the {@link MBeanHelperCache} after an action on the server
+     * failed, so the next deployment opens a new connection instead of reusing a connection that may be broken.
+     *
+     * @param mBeanHelper {@link MBeanHelper} instance, can be null.
+     */
+    protected void invalidateMBeanHelper(MBeanHelper mBeanHelper) {
+        MBeanHelperCache.getInstance(session).invalidate(mBeanHelper);
+    }
+
+    /**
+     * Deploy artifacts in a single session. If the deployment fails, the {@link MBeanHelper} instance is removed from
+     * the {@link MBeanHelperCache}, see {@link #deploySession(MBeanHelper, String, List)}.
+     *
+     * @param mBeanHelper {@link MBeanHelper} instance to execute actions on OSB server.
+     * @param sessionName Session name.
+     * @param artifacts Artifact files that need to be deployed.
+     * @throws MojoExecutionException
+     */
+    protected void deploy(MBeanHelper mBeanHelper, String sessionName,
+                          List<File> artifacts) throws MojoExecutionException {
+        try {
+            deploySession(mBeanHelper, sessionName, artifacts);
+        } catch (MojoExecutionException ex) {
+            invalidateMBeanHelper(mBeanHelper);
+            throw ex;
+        } catch (RuntimeException ex) {
+            invalidateMBeanHelper(mBeanHelper);
+            throw ex;
+        }
+    }
+
+    /**
+     * Deploy artifacts in a single session. All artifacts are imported to a new session, after that the
+     * {@link deploymentCustomizationFile} is applied. If {@link deploymentSessionActivate} is true, the session is
+     * checked for conflicts once, as configured by {@link deploymentConflictCheck}, and activated once. If the import
+     * of any artifact fails, the remaining artifacts are still imported so all failures are reported.
+     *
+     * @param mBeanHelper {@link MBeanHelper} instance to execute actions on OSB server.
+     * @param sessionName Session name.
+     * @param artifacts Artifact files that need to be deployed.
+     * @throws MojoExecutionException
+     */
+    private void deploySession(MBeanHelper mBeanHelper, String sessionName,
+                               List<File> artifacts) throws MojoExecutionException {
+        DeploymentSession session = new DeploymentSession(mBeanHelper, sessionName, getLog());
+        session.create();
+
+        MojoExecutionException importException = null;
+        int failedImports = 0;
+
+        for (File artifact : artifacts) {
+            try {
+                session.importArtifact(artifact, getImportPlanOptions());
+            } catch (MojoExecutionException ex) {
+                getLog().error(ex.getMessage());
+                importException = ex;
+                failedImports++;
+            }
+        }
+
+        if (importException != null) {
+            if (deploymentSessionDiscardOnError) {
+                session.discard();
+            }
+
+            if (failedImports == 1) {
+                throw importException;
+            }
+
+            throw new MojoExecutionException("Import to session [" + sessionName + "] failed for [" + failedImports +
+                                             "] of [" + artifacts.size() + "] artifacts", importException);
+        }
+
+        session.applyCustomizationFile(deploymentCustomizationFile);
+
+        if (deploymentSessionActivate) {
+            if (!session.hasConflicts(deploymentConflictCheck)) {
+                session.activate();
+            } else {
+                if (deploymentSessionDiscardOnError) {
+                    session.discard();
+                }
+
+                throw new MojoExecutionException("Session could not be activated due to existing conflicts");
+            }
+        }
+    }
+}
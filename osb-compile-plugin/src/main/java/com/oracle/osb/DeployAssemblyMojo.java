@@ -1,50 +1,55 @@
 package com.oracle.osb;
 
-import com.bea.wli.config.Ref;
 import com.bea.wli.config.customization.Customization;
 import com.bea.wli.config.importexport.ImportResult;
-import com.bea.wli.config.resource.Diagnostics;
-import com.bea.wli.sb.management.configuration.ALSBConfigurationMBean;
 import com.bea.wli.sb.management.importexport.ALSBImportPlan;
-import com.bea.wli.sb.management.importexport.ALSBJarInfo;
+import com.oracle.osb.build.ContentHash;
+import com.oracle.osb.deploy.DeltaArchive;
+import com.oracle.osb.deploy.DeployPipeline;
+import com.oracle.osb.deploy.DeploymentSession;
+import com.oracle.osb.metrics.BuildMetrics;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 import oracle.sb.maven.plugin.deploy.MBeanHelper;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
-import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Execute;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.apache.maven.project.MavenProject;
-import org.apache.xmlbeans.XmlException;
 
 /**
  * Implementation of {@link AbstractMojo} for deploying OSB assembly project to server. The server credentials should be
  * provided via the {@link serverUrl}, {@link serverUsername} and {@link serverPassword} parameters. The file that will
  * deployed to the OSB server, is the Maven project/build/finalName file, located in the {@link archiveOutputDir}
  * directory.
+ * <p>
+ * The deployment is run as a {@link DeployPipeline}: connecting to the server and creating the session and reading the
+ * customization file run concurrently, and every following step starts as soon as the steps it depends on are
+ * completed. The archive is read by the upload step, so it is only on the heap while it is uploaded. The duration of
+ * every step is logged and, if {@link metricsReport} is true, written to a {@link BuildMetrics} report in the build
+ * directory together with the uploaded bytes, the number of imported resources and the number of scanned diagnostics.
+ * <p>
+ * If {@link deploymentDelta} is true, only the resources that changed since the last deployment to the same server are
+ * deployed, see {@link DeltaArchive}. The entries of the delta archive are compressed by {@link sbarThreads} threads.
  */
 @Mojo(name = "deploy-assembly", defaultPhase = LifecyclePhase.PRE_INTEGRATION_TEST )
 @Execute(goal = "deploy-assembly", phase = LifecyclePhase.PRE_INTEGRATION_TEST)
-public class DeployAssemblyMojo extends AbstractMojo {
+public class DeployAssemblyMojo extends AbstractDeployMojo {
 
     //General settings
-    private static final String SESSION_NAME_PREFIX = "ServiceBusPlugin";
-    private static final String SESSION_ACTIVATION_DESCRIPTION = "Published from ServiceBusPlugin.";
-
-    @Parameter(defaultValue = "${project}")
-    private MavenProject project;
+    private static final String DELTA_SBAR_FILENAME = "sbconfig-delta.sbar";
+    private static final String DELTA_WORK_DIR = "delta";
+    private static final String MANIFEST_FILENAME_PREFIX = "deploy-manifest-";
+    private static final String MANIFEST_FILENAME_SUFFIX = ".properties";
+    private static final int MANIFEST_SERVER_KEY_LENGTH = 12;
 
     @Parameter(property = "server.url", required = true)
     private String serverUrl;
@@ -55,34 +60,11 @@ public class DeployAssemblyMojo extends AbstractMojo {
     @Parameter(property = "server.password", required = true)
     private String serverPassword;
 
-    @Parameter(property = "deployment.preserve.credentials", defaultValue = "true")
-    private boolean deploymentPreserveCredentals;
-
-    @Parameter(property = "deployment.preserve.envValues", defaultValue = "true")
-    private boolean deploymentPreserveEnvValues;
-
-    @Parameter(property = "deployment.preserve.operationalValues", defaultValue = "true")
-    private boolean deploymentPreserveOperationalValues;
-
-    @Parameter(property = "deployment.preserve.securityAndPolicyConfig", defaultValue = "true")
-    private boolean deploymentPreserveSecurityAndPolicyConfig;
-
-    @Parameter(property = "deployment.preserve.accessControlPolicies", defaultValue = "true")
-    private boolean deploymentPreserveAccessControlPolicies;
-
-    @Parameter(property = "deployment.customization.file", required = false)
-    private File deploymentCustomizationFile;
+    @Parameter(property = "deployment.delta", defaultValue = "false")
+    private boolean deploymentDelta;
 
-    @Parameter(property = "deployment.session.activate", defaultValue = "true")
-    private boolean deploymentSessionActivate;
-
-    @Parameter(property = "deployment.session.discardOnError", defaultValue = "true")
-    private boolean deploymentSessionDiscardOnError;
-
-    /**
-     * Session name.
-     */
-    private String sessionName;
+    @Parameter(property = "sbar.threads", defaultValue = "1")
+    private int sbarThreads;
 
     /**
      * {@link MBeanHelper} instance to execute actions on OSB server.
@@ -91,194 +73,233 @@ public class DeployAssemblyMojo extends AbstractMojo {
 
     @Override
     public void execute() throws MojoExecutionException {
-        File artifactFile = new File(project.getBuild().getDirectory(), "sbconfig.sbar");
+        File artifactFile = getArtifactFile(project);
         getLog().info("Deploying assembly [" + artifactFile.getAbsolutePath() + "]");
+        BuildMetrics metrics = new BuildMetrics("deploy-assembly", project.getArtifactId());
 
-        createSession();
-        importArtifact(artifactFile);
-        applyCustomizationFile();
-
-        if (deploymentSessionActivate) {
-            if (!hasConflicts()) {
-                activateSession();
+        try {
+            if (deploymentDelta) {
+                deployDelta(artifactFile, metrics);
             } else {
-                if (deploymentSessionDiscardOnError) {
-                    discardSession();
-                }
-
-                throw new MojoExecutionException("Session could not be activated due to existing conflicts");
+                deployPipelined(artifactFile, metrics);
             }
-        }
-    }
 
-    /**
-     * Get instance of {@link MBeanHelper} by logging in to Weblogic server {@link serverUrl}, using the
-     * {@link serverUsername} and {@link serverPassword} credentials.
-     *
-     * @return {@link MBeanHelper} instance.
-     */
-    private MBeanHelper getMBeanHelper() {
-        if (mBeanHelper == null) {
-            mBeanHelper = new MBeanHelper(serverUrl, serverUsername, serverPassword, false);
+            metrics.setSuccess(true);
+        } finally {
+            writeMetrics(metrics, artifactFile.getParentFile());
         }
-
-        return mBeanHelper;
     }
 
     /**
-     * Constructs the {@link ALSBImportPlan} that should be used when deploying an archive file. The import plan is
-     * based on the default import plan in combination with the {@link deploymentPreserveAccessControlPolicies},
-     * {@link deploymentPreserveCredentals}, {@link deploymentPreserveEnvValues},
-     * {@link deploymentPreserveOperationalValues} and {@link deploymentPreserveSecurityAndPolicyConfig} settings.
+     * Deploy the artifact in a new session, with the steps of the deployment as stages of a {@link DeployPipeline}.
+     * If any stage fails and {@link deploymentSessionDiscardOnError} is true, the session is discarded. The connection
+     * of a failed deployment is not reused by the next deployment.
      *
-     * @return Instance of {@link ALSBImportPlan}
+     * @param artifactFile Artifact file.
+     * @param metrics {@link BuildMetrics} of the deployment.
      * @throws MojoExecutionException
      */
-    private ALSBImportPlan getImportPlan() throws MojoExecutionException {
-        try {
-            ALSBConfigurationMBean configMBean = getMBeanHelper().getConfigMBean(sessionName);
-            ALSBJarInfo jarInfo = configMBean.getImportJarInfo();
-            ALSBImportPlan importPlan = jarInfo.getDefaultImportPlan();
-
-            importPlan.setPreserveExistingAccessControlPolicies(deploymentPreserveAccessControlPolicies);
-            importPlan.setPreserveExistingCredentials(deploymentPreserveCredentals);
-            importPlan.setPreserveExistingEnvValues(deploymentPreserveEnvValues);
-            importPlan.setPreserveExistingOperationalValues(deploymentPreserveOperationalValues);
-            importPlan.setPreserveExistingSecurityAndPolicyConfig(deploymentPreserveSecurityAndPolicyConfig);
-
-            return importPlan;
-        } catch (Exception ex) {
-            throw new MojoExecutionException("Failed to retreive default import plan");
-        }
-    }
+    private void deployPipelined(final File artifactFile, BuildMetrics metrics) throws MojoExecutionException {
+        final String sessionName = createSessionName(project.getArtifactId());
+        DeployPipeline pipeline = new DeployPipeline(sessionName, getLog());
+
+        final DeployPipeline.Stage<DeploymentSession> create =
+            pipeline.add(new DeployPipeline.Stage<DeploymentSession>("create session") {
+                @Override
+                protected DeploymentSession execute() throws MojoExecutionException {
+                    DeploymentSession session;
+
+                    try {
+                        session = new DeploymentSession(getMBeanHelper(), sessionName, getLog());
+                    } catch (RuntimeException ex) {
+                        throw new MojoExecutionException("Unable to connect to server [" + serverUrl + "]", ex);
+                    }
+
+                    session.create();
+                    return session;
+                }
+            });
+        final DeployPipeline.Stage<List<Customization>> customizations =
+            pipeline.add(new DeployPipeline.Stage<List<Customization>>("read customization file") {
+                @Override
+                protected List<Customization> execute() throws MojoExecutionException {
+                    if (deploymentCustomizationFile == null) {
+                        return null;
+                    }
+
+                    return DeploymentSession.readCustomizationFile(deploymentCustomizationFile);
+                }
+            });
+        final DeployPipeline.Stage<Void> upload = pipeline.add(new DeployPipeline.Stage<Void>("upload", create) {
+            @Override
+            protected Void execute() throws MojoExecutionException {
+                getLog().info("Importing artifact [" + artifactFile.getAbsolutePath() + "] to session [" +
+                              sessionName + "]");
+                create.get().upload(artifactFile);
+                return null;
+            }
+        });
+        final DeployPipeline.Stage<ALSBImportPlan> importPlan =
+            pipeline.add(new DeployPipeline.Stage<ALSBImportPlan>("import plan", upload) {
+                @Override
+                protected ALSBImportPlan execute() throws MojoExecutionException {
+                    return create.get().getImportPlan(getImportPlanOptions());
+                }
+            });
+        final DeployPipeline.Stage<ImportResult> imported =
+            pipeline.add(new DeployPipeline.Stage<ImportResult>("import", importPlan) {
+                @Override
+                protected ImportResult execute() throws MojoExecutionException {
+                    return create.get().importUploaded(artifactFile, importPlan.get());
+                }
+            });
+        final DeployPipeline.Stage<Void> customize =
+            pipeline.add(new DeployPipeline.Stage<Void>("customize", imported, customizations) {
+                @Override
+                protected Void execute() throws MojoExecutionException {
+                    if (customizations.get() != null) {
+                        create.get().applyCustomizations(deploymentCustomizationFile, customizations.get());
+                    }
+
+                    return null;
+                }
+            });
 
-    /**
-     * Create session which can be used to import the artifact.
-     *
-     * @throws MojoExecutionException
-     */
-    private void createSession() throws MojoExecutionException {
-        sessionName = SESSION_NAME_PREFIX + "_" + project.getArtifactId() + "_" + System.currentTimeMillis();
-        getLog().info("Creating session [" + sessionName + "]");
+        if (deploymentSessionActivate) {
+            pipeline.add(new DeployPipeline.Stage<Void>("activate", customize) {
+                @Override
+                protected Void execute() throws MojoExecutionException {
+                    if (create.get().hasConflicts(deploymentConflictCheck)) {
+                        throw new MojoExecutionException("Session could not be activated due to existing conflicts");
+                    }
+
+                    create.get().activate();
+                    return null;
+                }
+            });
+        }
 
         try {
-            getMBeanHelper().getSessionMBean().createSession(sessionName);
-        } catch (Exception ex) {
-            throw new MojoExecutionException("Unable to create session [" + sessionName + "]", ex);
+            pipeline.run();
+        } catch (MojoExecutionException ex) {
+            try {
+                if (deploymentSessionDiscardOnError && create.getStatus() == DeployPipeline.Status.COMPLETED) {
+                    create.get().discard();
+                }
+            } finally {
+                invalidateMBeanHelper(mBeanHelper);
+            }
+
+            throw ex;
+        } finally {
+            addMetrics(metrics, pipeline, upload.getStatus() == DeployPipeline.Status.COMPLETED ? artifactFile : null,
+                       imported.get(), create.get());
         }
     }
 
     /**
-     * Import artifact to session.
+     * Add the stage durations and counters of a pipelined deployment to the metrics.
      *
-     * @param artifact Artifact file that needs to be imported as {@link File} instance.
-     * @throws MojoExecutionException
+     * @param metrics {@link BuildMetrics} of the deployment.
+     * @param pipeline Deployment pipeline.
+     * @param uploadedFile Uploaded artifact file, null if it was not uploaded.
+     * @param importResult Result of the import, null if the artifact was not imported.
+     * @param session Deployment session, null if it was not created.
      */
-    private void importArtifact(File artifact) throws MojoExecutionException {
-        getLog().info("Importing artifact [" + artifact.getAbsolutePath() + "] to session [" + sessionName + "]");
-
-        try {
-            ALSBConfigurationMBean configMBean = getMBeanHelper().getConfigMBean(sessionName);
-            configMBean.uploadJarFile(FileUtils.readFileToByteArray(artifact));
-            ImportResult result = configMBean.importUploaded(getImportPlan());
-
-            if (!result.getFailed().isEmpty()) {
-                throw new MojoFailureException("Import of artifact to session failed");
+    private void addMetrics(BuildMetrics metrics, DeployPipeline pipeline, File uploadedFile,
+                            ImportResult importResult, DeploymentSession session) {
+        for (DeployPipeline.Stage<?> stage : pipeline.getStages()) {
+            if (stage.getStatus() != DeployPipeline.Status.SKIPPED) {
+                metrics.addDuration(stage.getName(), stage.getDuration());
             }
-        } catch (IOException ex) {
-            throw new MojoExecutionException("Unable to read artifact [" + artifact.getAbsolutePath() + "]", ex);
-        } catch (Exception ex) {
-            throw new MojoExecutionException("Unable to import artifact [" + artifact.getAbsolutePath() +
-                                             "] to session [" + sessionName + "]", ex);
         }
-    }
 
+        metrics.addDuration("total", pipeline.getDuration());
 
-    /**
-     * Apply {@link deploymentCustomizationFile} as customization file to session {@link sessionName} if
-     * {@link deploymentCustomizationFile} is not null.
-     *
-     * @throws MojoExecutionException
-     */
-    private void applyCustomizationFile() throws MojoExecutionException {
-        if (deploymentCustomizationFile != null) {
-            getLog().info("Applying customization file [" + deploymentCustomizationFile.getAbsolutePath() + "]");
-            FileInputStream inputStream = null;
+        if (uploadedFile != null) {
+            metrics.addCount("uploadedBytes", uploadedFile.length());
+        }
 
-            try {
-                ALSBConfigurationMBean configMBean = getMBeanHelper().getConfigMBean(sessionName);
-                inputStream = new FileInputStream(deploymentCustomizationFile);
-                List<Customization> customizations = Customization.fromXML(inputStream, null);
-                configMBean.customize(customizations);
-            } catch (XmlException ex) {
-                throw new MojoExecutionException("Unable to parse XML from customization file [" +
-                                                 deploymentCustomizationFile.getAbsolutePath() + "]", ex);
-            } catch (IOException ex) {
-                throw new MojoExecutionException("Unable to read customization file [" +
-                                                 deploymentCustomizationFile.getAbsolutePath() + "]", ex);
-            } catch (Exception ex) {
-                throw new MojoExecutionException("Unable to apply customization file [" +
-                                                 deploymentCustomizationFile.getAbsolutePath() + "] to session [" +
-                                                 sessionName + "]", ex);
-            } finally {
-                IOUtils.closeQuietly(inputStream);
-            }
+        if (importResult != null && importResult.getImported() != null) {
+            metrics.addCount("importedResources", importResult.getImported().size());
+        }
+
+        if (session != null) {
+            metrics.addCount("diagnostics", session.getDiagnosticsCount());
         }
     }
 
     /**
-     * Check if there are conflicts in the existing session.
+     * Deploy only the resources of the artifact that changed since the last deployment to {@link serverUrl}. The
+     * manifest of the deployed resources is updated after the session is activated.
      *
-     * @return FALSE if there are no conflicts in the existing session, TRUE otherwise.
+     * @param artifactFile Artifact file.
+     * @param metrics {@link BuildMetrics} of the deployment.
      * @throws MojoExecutionException
      */
-    private boolean hasConflicts() throws MojoExecutionException {
-        getLog().info("Checking for conflicts in session [" + sessionName + "]");
+    private void deployDelta(File artifactFile, BuildMetrics metrics) throws MojoExecutionException {
+        File buildDir = artifactFile.getParentFile();
 
         try {
-            ALSBConfigurationMBean configMBean = getMBeanHelper().getConfigMBean(sessionName);
-            Map<Ref, Diagnostics> diagnosticMap = configMBean.getDiagnostics(null);
+            long start = System.currentTimeMillis();
+            DeltaArchive deltaArchive =
+                new DeltaArchive(artifactFile, new File(buildDir, getManifestFilename()),
+                                 new File(buildDir, DELTA_WORK_DIR), getLog());
+            deltaArchive.setThreads(sbarThreads);
+            File deltaFile = deltaArchive.build(new File(buildDir, DELTA_SBAR_FILENAME));
+            metrics.addDuration("delta", System.currentTimeMillis() - start);
+            metrics.addCount("changedResources", deltaArchive.getChangedEntries().size());
+            metrics.addCount("removedResources", deltaArchive.getRemovedEntries().size());
+
+            for (String removedEntry : deltaArchive.getRemovedEntries()) {
+                getLog().warn("Resource [" + removedEntry + "] is no longer part of the artifact, but is not removed " +
+                              "from the server by a delta deployment");
+            }
 
-            for (Diagnostics diags : diagnosticMap.values()) {
-                if (!diags.getSeverity().isValidSeverity()) {
-                    return true;
-                }
+            if (deltaFile == null) {
+                getLog().info("No changed resources since last deployment to [" + serverUrl + "]");
+                return;
             }
-        } catch (Exception ex) {
-            throw new MojoExecutionException("An unexpected exception occurred while checking session [" + sessionName +
-                                             "] for conflicts", ex);
-        }
 
-        return false;
+            getLog().info("Deploying [" + deltaArchive.getChangedEntries().size() + "] changed resources");
+            start = System.currentTimeMillis();
+            deploy(getMBeanHelper(), createSessionName(project.getArtifactId()), Collections.singletonList(deltaFile));
+            metrics.addDuration("deploy", System.currentTimeMillis() - start);
+            metrics.addCount("uploadedBytes", deltaFile.length());
+
+            if (deploymentSessionActivate) {
+                deltaArchive.commit();
+            }
+        } catch (IOException ex) {
+            throw new MojoExecutionException("IOException occurred while creating delta of artifact [" +
+                                             artifactFile.getAbsolutePath() + "]", ex);
+        }
     }
 
     /**
-     * Activate session.
+     * Get the filename of the deployment manifest of {@link serverUrl}. Every server has its own manifest.
      *
-     * @throws MojoExecutionException
+     * @return Filename of the deployment manifest.
+     * @throws IOException
      */
-    private void activateSession() throws MojoExecutionException {
-        getLog().info("Activating session [" + sessionName + "]");
-
-        try {
-            getMBeanHelper().getSessionMBean().activateSession(sessionName, SESSION_ACTIVATION_DESCRIPTION);
-        } catch (Exception ex) {
-            throw new MojoExecutionException("Unable to activate session [" + sessionName + "]", ex);
-        }
+    private String getManifestFilename() throws IOException {
+        String serverKey = ContentHash.of(new ByteArrayInputStream(serverUrl.getBytes("UTF-8")));
+        return MANIFEST_FILENAME_PREFIX + serverKey.substring(0, MANIFEST_SERVER_KEY_LENGTH) +
+               MANIFEST_FILENAME_SUFFIX;
     }
 
     /**
-     * Discard session.
+     * Get instance of {@link MBeanHelper} by logging in to Weblogic server {@link serverUrl}, using the
+     * {@link serverUsername} and {@link serverPassword} credentials. The connection is shared with the other modules
+     * that deploy to the same server.
      *
-     * @throws MojoExecutionException
+     * @return {@link MBeanHelper} instance.
      */
-    private void discardSession() throws MojoExecutionException {
-        getLog().info("Discarding session [" + sessionName + "]");
-
-        try {
-            getMBeanHelper().getSessionMBean().discardSession(sessionName);
-        } catch (Exception ex) {
-            throw new MojoExecutionException("Unable to discard session [" + sessionName + "]", ex);
+    private MBeanHelper getMBeanHelper() {
+        if (mBeanHelper == null) {
+            mBeanHelper = getMBeanHelper(serverUrl, serverUsername, serverPassword);
         }
+
+        return mBeanHelper;
     }
 }
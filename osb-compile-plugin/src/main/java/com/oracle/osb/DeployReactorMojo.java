@@ -0,0 +1,79 @@
+package com.oracle.osb;
+
+import java.io.File;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Implementation of {@link AbstractMojo} for deploying all OSB projects of the reactor to server in a single session.
+ * The <i>sbar</i> archives of all projects with <i>sbar</i> packaging are imported to one session, the customization
+ * file is applied once, the session is checked for conflicts once and activated once. The archives should be created
+ * before this goal is executed, for example: <i>mvn package osb-compile:deploy-reactor</i>.
+ */
+@Mojo(name = "deploy-reactor", aggregator = true)
+public class DeployReactorMojo extends AbstractDeployMojo {
+
+    //General settings
+    private static final String SBAR_PACKAGING = "sbar";
+
+    @Parameter(defaultValue = "${reactorProjects}", readonly = true, required = true)
+    private List<MavenProject> reactorProjects;
+
+    @Parameter(property = "server.url", required = true)
+    private String serverUrl;
+
+    @Parameter(property = "server.username", required = true)
+    private String serverUsername;
+
+    @Parameter(property = "server.password", required = true)
+    private String serverPassword;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        List<File> artifacts = getReactorArtifacts();
+
+        if (artifacts.isEmpty()) {
+            getLog().info("No sbar artifacts found in reactor, nothing to deploy");
+            return;
+        }
+
+        for (File artifact : artifacts) {
+            getLog().info("Deploying assembly [" + artifact.getAbsolutePath() + "]");
+        }
+
+        deploy(getMBeanHelper(serverUrl, serverUsername, serverPassword), createSessionName(project.getArtifactId()),
+               artifacts);
+    }
+
+    /**
+     * Get the <i>sbar</i> archives of all projects in the reactor with <i>sbar</i> packaging, in reactor order.
+     *
+     * @return Archive files.
+     * @throws MojoExecutionException If the archive of any project does not exist.
+     */
+    private List<File> getReactorArtifacts() throws MojoExecutionException {
+        List<File> result = new ArrayList<File>();
+
+        for (MavenProject reactorProject : reactorProjects) {
+            if (SBAR_PACKAGING.equals(reactorProject.getPackaging())) {
+                File artifact = getArtifactFile(reactorProject);
+
+                if (!artifact.isFile()) {
+                    throw new MojoExecutionException("Artifact [" + artifact.getAbsolutePath() + "] of project [" +
+                                                     reactorProject.getArtifactId() + "] does not exist");
+                }
+
+                result.add(artifact);
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,226 @@
+package com.oracle.osb;
+
+import com.oracle.osb.deploy.ArchiveUpload;
+import com.oracle.osb.deploy.DeploymentSession;
+import com.oracle.osb.deploy.ImportPlanOptions;
+import com.oracle.osb.deploy.TargetDeployment;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import oracle.sb.maven.plugin.deploy.MBeanHelper;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Implementation of {@link AbstractMojo} for deploying an OSB assembly project to several servers concurrently, for
+ * example to the domains of several regions or to a blue/green pair. The servers are configured as a list of
+ * {@link DeploymentTarget} instances in {@link deploymentTargets}, every target with its own credentials and optional
+ * customization file. The archive is read once and imported to a session on every target, using at most
+ * {@link deploymentMaxConcurrentTargets} concurrent deployments.
+ * <p>
+ * If {@link deploymentAllOrNothing} is true, the sessions are only activated when all targets are prepared without
+ * errors or conflicts; if any target fails, the sessions on all targets are discarded. Activation itself cannot be
+ * rolled back, so a target that fails to activate is reported but does not undo the activation on the other targets.
+ * The connection of a target that failed is not reused by the next deployment to that target.
+ */
+@Mojo(name = "deploy-targets", defaultPhase = LifecyclePhase.PRE_INTEGRATION_TEST)
+public class DeployTargetsMojo extends AbstractDeployMojo {
+
+    @Parameter(required = true)
+    private List<DeploymentTarget> deploymentTargets;
+
+    @Parameter(property = "deployment.maxConcurrentTargets", defaultValue = "4")
+    private int deploymentMaxConcurrentTargets;
+
+    @Parameter(property = "deployment.allOrNothing", defaultValue = "true")
+    private boolean deploymentAllOrNothing;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        final File artifactFile = getArtifactFile(project);
+        getLog().info("Deploying assembly [" + artifactFile.getAbsolutePath() + "] to [" + deploymentTargets.size() +
+                      "] targets");
+
+        final byte[] content;
+
+        try {
+            content = new ArchiveUpload(artifactFile).read();
+        } catch (IOException ex) {
+            throw new MojoExecutionException("IOException occurred while reading artifact [" +
+                                             artifactFile.getAbsolutePath() + "]", ex);
+        }
+
+        final ImportPlanOptions options = getImportPlanOptions();
+        List<TargetDeployment> deployments = new ArrayList<TargetDeployment>();
+        List<Runnable> prepareTasks = new ArrayList<Runnable>();
+        final Map<TargetDeployment, MBeanHelper> mBeanHelpers = new ConcurrentHashMap<TargetDeployment, MBeanHelper>();
+
+        for (final DeploymentTarget target : deploymentTargets) {
+            final TargetDeployment deployment = new TargetDeployment(target.getName(), getLog());
+            deployments.add(deployment);
+            prepareTasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    DeploymentSession session;
+
+                    try {
+                        MBeanHelper mBeanHelper =
+                            getMBeanHelper(target.getUrl(), target.getUsername(), target.getPassword());
+                        mBeanHelpers.put(deployment, mBeanHelper);
+                        session =
+                            new DeploymentSession(mBeanHelper, createSessionName(project.getArtifactId()), getLog());
+                    } catch (RuntimeException ex) {
+                        deployment.fail("Unable to connect to server [" + target.getUrl() + "]: " + ex.getMessage());
+                        return;
+                    }
+
+                    File customizationFile =
+                        target.getCustomizationFile() != null ? target.getCustomizationFile() :
+                        deploymentCustomizationFile;
+                    deployment.prepare(session, artifactFile, content, options, customizationFile,
+                                       deploymentConflictCheck);
+                }
+            });
+        }
+
+        ExecutorService executor =
+            Executors.newFixedThreadPool(Math.max(1, Math.min(deploymentMaxConcurrentTargets,
+                                                              deploymentTargets.size())));
+
+        try {
+            runAll(executor, prepareTasks);
+
+            boolean prepareFailed = hasStatus(deployments, TargetDeployment.Status.FAILED);
+            List<Runnable> finishTasks = new ArrayList<Runnable>();
+
+            for (final TargetDeployment deployment : deployments) {
+                if (deployment.getStatus() == TargetDeployment.Status.FAILED) {
+                    if (deploymentSessionDiscardOnError) {
+                        finishTasks.add(discardTask(deployment));
+                    }
+                } else if (prepareFailed && deploymentAllOrNothing) {
+                    finishTasks.add(discardTask(deployment));
+                } else if (deploymentSessionActivate) {
+                    finishTasks.add(new Runnable() {
+                        @Override
+                        public void run() {
+                            deployment.activate();
+                        }
+                    });
+                }
+            }
+
+            runAll(executor, finishTasks);
+        } finally {
+            executor.shutdown();
+
+            for (TargetDeployment deployment : deployments) {
+                if (deployment.getStatus() == TargetDeployment.Status.FAILED) {
+                    invalidateMBeanHelper(mBeanHelpers.get(deployment));
+                }
+            }
+        }
+
+        logResults(deployments);
+
+        if (hasStatus(deployments, TargetDeployment.Status.FAILED) ||
+            hasStatus(deployments, TargetDeployment.Status.DISCARDED)) {
+            throw new MojoExecutionException("Deployment of artifact [" + artifactFile.getAbsolutePath() +
+                                             "] failed for one or more of [" + deployments.size() + "] targets");
+        }
+    }
+
+    /**
+     * Run tasks on the executor and wait until all tasks are completed.
+     *
+     * @param executor Executor.
+     * @param tasks Tasks that need to be run.
+     * @throws MojoExecutionException If the current thread is interrupted or a task throws an unexpected exception.
+     */
+    private void runAll(ExecutorService executor, List<Runnable> tasks) throws MojoExecutionException {
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+
+        for (Runnable task : tasks) {
+            futures.add(executor.submit(task));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while waiting for deployments to complete", ex);
+            } catch (ExecutionException ex) {
+                throw new MojoExecutionException("An unexpected exception occurred during deployment",
+                                                 ex.getCause());
+            }
+        }
+    }
+
+    /**
+     * Create a task that discards the session of a deployment.
+     *
+     * @param deployment Deployment.
+     * @return Discard task.
+     */
+    private Runnable discardTask(final TargetDeployment deployment) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                deployment.discard();
+            }
+        };
+    }
+
+    /**
+     * Check if any deployment has the provided status.
+     *
+     * @param deployments Deployments.
+     * @param status Status.
+     * @return TRUE if any deployment has the provided status, FALSE otherwise.
+     */
+    private boolean hasStatus(List<TargetDeployment> deployments, TargetDeployment.Status status) {
+        for (TargetDeployment deployment : deployments) {
+            if (deployment.getStatus() == status) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Log the result of every deployment.
+     *
+     * @param deployments Deployments.
+     */
+    private void logResults(List<TargetDeployment> deployments) {
+        getLog().info("Deployment results:");
+
+        for (TargetDeployment deployment : deployments) {
+            String result =
+                "  [" + deployment.getTargetName() + "] " + deployment.getStatus() + " in [" +
+                deployment.getDuration() + "] ms";
+
+            if (deployment.getStatus() == TargetDeployment.Status.FAILED) {
+                getLog().error(result + ": " + deployment.getMessage());
+            } else {
+                getLog().info(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.oracle.osb;
+
+import java.io.File;
+
+/**
+ * OSB server to which the {@link DeployTargetsMojo} deploys. Every target has its own credentials and optionally its
+ * own customization file. Instances are created by Maven from the <i>deploymentTargets</i> configuration.
+ */
+public class DeploymentTarget {
+
+    private String name;
+    private String url;
+    private String username;
+    private String password;
+    private File customizationFile;
+
+    /**
+     * Get the target name, used in the log and the results. Defaults to the server URL.
+     *
+     * @return Target name.
+     */
+    public String getName() {
+        return name != null ? name : url;
+    }
+
+    /**
+     * Get the Weblogic server URL.
+     *
+     * @return Server URL.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Get the Weblogic username.
+     *
+     * @return Username.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Get the Weblogic password.
+     *
+     * @return Password.
+     */
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * Get the customization file of the target.
+     *
+     * @return Customization file, can be null.
+     */
+    public File getCustomizationFile() {
+        return customizationFile;
+    }
+}
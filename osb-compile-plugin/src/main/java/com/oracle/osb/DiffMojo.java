@@ -0,0 +1,149 @@
+package com.oracle.osb;
+
+import com.oracle.osb.archiver.SbarDiff;
+import com.oracle.osb.archiver.SbarReader;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Implementation of {@link AbstractMojo} for comparing two <i>sbar</i> archives without unpacking them, for example
+ * two releases of a project. The archives are compared with the {@link SbarDiff}: entries are compared by the CRC and
+ * size of the central directory, so no resource content is read. The added, removed and modified entries and the
+ * changed export properties are logged and, if {@link diffOutput} is set, written to a report file with one line per
+ * entry, starting with <i>A</i>, <i>D</i> or <i>M</i>.
+ * <p>
+ * The {@link diffBase} archive is compared with the {@link diffTarget} archive, by default the archive of the project.
+ * The goal can be used without project, for example:
+ * <i>mvn com.oracle.osb:osb-compile-plugin:1.0:diff -Ddiff.base=release-1.sbar -Ddiff.target=release-2.sbar</i>.
+ */
+@Mojo(name = "diff", requiresProject = false, threadSafe = true)
+public class DiffMojo extends AbstractMojo {
+
+    //General settings
+    private static final String SBAR_FILENAME = "sbconfig.sbar";
+    private static final String ENCODING = "UTF-8";
+
+    @Parameter(defaultValue = "${project}", readonly = true)
+    private MavenProject project;
+
+    @Parameter(property = "diff.base", required = true)
+    private File diffBase;
+
+    @Parameter(property = "diff.target", required = false)
+    private File diffTarget;
+
+    @Parameter(property = "diff.output", required = false)
+    private File diffOutput;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        File target = diffTarget != null ? diffTarget : new File(project.getBuild().getDirectory(), SBAR_FILENAME);
+        checkArchive(diffBase);
+        checkArchive(target);
+
+        long start = System.currentTimeMillis();
+        SbarReader baseReader = null;
+        SbarReader targetReader = null;
+
+        try {
+            baseReader = new SbarReader(diffBase);
+            targetReader = new SbarReader(target);
+            SbarDiff diff = new SbarDiff(baseReader, targetReader);
+            diff.compare();
+            long duration = System.currentTimeMillis() - start;
+
+            log(diff);
+            getLog().info("Compared [" + diffBase.getAbsolutePath() + "] with [" + target.getAbsolutePath() +
+                          "] in [" + duration + "] ms");
+
+            if (diffOutput != null) {
+                writeReport(diff);
+            }
+        } catch (IOException ex) {
+            throw new MojoExecutionException("IOException occurred while comparing archives", ex);
+        } catch (XMLStreamException ex) {
+            throw new MojoExecutionException("XMLStreamException occurred while comparing ExportInfo files", ex);
+        } finally {
+            IOUtils.closeQuietly(baseReader);
+            IOUtils.closeQuietly(targetReader);
+        }
+    }
+
+    /**
+     * Check that an archive exists.
+     *
+     * @param archive Archive file.
+     * @throws MojoExecutionException If the archive does not exist.
+     */
+    private void checkArchive(File archive) throws MojoExecutionException {
+        if (!archive.isFile()) {
+            throw new MojoExecutionException("Archive [" + archive.getAbsolutePath() + "] does not exist");
+        }
+    }
+
+    /**
+     * Log the differences.
+     *
+     * @param diff Compared archives.
+     */
+    private void log(SbarDiff diff) {
+        for (String name : diff.getAdded()) {
+            getLog().info("Added    [" + name + "]");
+        }
+
+        for (String name : diff.getRemoved()) {
+            getLog().info("Removed  [" + name + "]");
+        }
+
+        for (String name : diff.getModified()) {
+            getLog().info("Modified [" + name + "]");
+        }
+
+        for (String propertyChange : diff.getPropertyChanges()) {
+            getLog().info("Export property " + propertyChange);
+        }
+
+        getLog().info("[" + diff.getAdded().size() + "] added, [" + diff.getRemoved().size() + "] removed, [" +
+                      diff.getModified().size() + "] modified and [" + diff.getUnchangedCount() +
+                      "] unchanged entries");
+    }
+
+    /**
+     * Write the differences to the {@link diffOutput} file.
+     *
+     * @param diff Compared archives.
+     * @throws IOException
+     */
+    private void writeReport(SbarDiff diff) throws IOException {
+        List<String> lines = new ArrayList<String>();
+
+        for (String name : diff.getAdded()) {
+            lines.add("A\t" + name);
+        }
+
+        for (String name : diff.getRemoved()) {
+            lines.add("D\t" + name);
+        }
+
+        for (String name : diff.getModified()) {
+            lines.add("M\t" + name);
+        }
+
+        FileUtils.writeLines(diffOutput, ENCODING, lines, "\n");
+        getLog().info("Differences written to [" + diffOutput.getAbsolutePath() + "]");
+    }
+}
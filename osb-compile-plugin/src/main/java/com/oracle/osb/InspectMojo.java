@@ -0,0 +1,155 @@
+package com.oracle.osb;
+
+import com.oracle.osb.archiver.ExportInfoReader;
+import com.oracle.osb.archiver.SbarReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Implementation of {@link AbstractMojo} for listing the content of an <i>sbar</i> archive without unpacking it. Only
+ * the central directory and the <i>ExportInfo</i> file are read, with the {@link SbarReader}, so large archives are
+ * listed in milliseconds. The export properties, every entry with its method, sizes and CRC, and the number of
+ * resources per type are logged, together with the entries that are missing from the <i>ExportInfo</i> file and the
+ * exported items without entry.
+ * <p>
+ * The archive is the {@link inspectFile}, by default the archive of the project. The goal can be used without project,
+ * for example: <i>mvn com.oracle.osb:osb-compile-plugin:1.0:inspect -Dinspect.file=release.sbar</i>.
+ */
+@Mojo(name = "inspect", requiresProject = false, threadSafe = true)
+public class InspectMojo extends AbstractMojo {
+
+    //General settings
+    private static final String SBAR_FILENAME = "sbconfig.sbar";
+    private static final String FILENAME_EXPORT_INFO = "ExportInfo";
+
+    @Parameter(defaultValue = "${project}", readonly = true)
+    private MavenProject project;
+
+    @Parameter(property = "inspect.file", required = false)
+    private File inspectFile;
+
+    @Parameter(property = "inspect.summary", defaultValue = "false")
+    private boolean inspectSummary;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        File archive = inspectFile != null ? inspectFile : new File(project.getBuild().getDirectory(), SBAR_FILENAME);
+
+        if (!archive.isFile()) {
+            throw new MojoExecutionException("Archive [" + archive.getAbsolutePath() + "] does not exist");
+        }
+
+        long start = System.currentTimeMillis();
+        SbarReader reader = null;
+
+        try {
+            reader = new SbarReader(archive);
+            SbarReader.Entry exportInfoEntry = reader.getEntry(FILENAME_EXPORT_INFO);
+            Map<String, String> properties = null;
+            Map<String, String> exportedItems = null;
+
+            if (exportInfoEntry != null) {
+                byte[] exportInfo = reader.read(exportInfoEntry);
+                ExportInfoReader exportInfoReader = new ExportInfoReader();
+                properties = exportInfoReader.readProperties(new ByteArrayInputStream(exportInfo));
+                exportedItems = exportInfoReader.readExportedItems(new ByteArrayInputStream(exportInfo));
+            }
+
+            long duration = System.currentTimeMillis() - start;
+            log(reader, properties, exportedItems);
+            getLog().info("Read [" + archive.getAbsolutePath() + "] in [" + duration + "] ms");
+        } catch (IOException ex) {
+            throw new MojoExecutionException("IOException occurred while reading archive [" +
+                                             archive.getAbsolutePath() + "]", ex);
+        } catch (XMLStreamException ex) {
+            throw new MojoExecutionException("XMLStreamException occurred while reading ExportInfo file of archive [" +
+                                             archive.getAbsolutePath() + "]", ex);
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Log the content of the archive.
+     *
+     * @param reader Archive.
+     * @param properties Export properties, null if the archive has no <i>ExportInfo</i> file.
+     * @param exportedItems Type ids of the exported items by archive entry name, null if the archive has no
+     * <i>ExportInfo</i> file.
+     */
+    private void log(SbarReader reader, Map<String, String> properties, Map<String, String> exportedItems) {
+        if (properties == null) {
+            getLog().warn("Archive has no ExportInfo file");
+        } else {
+            for (Map.Entry<String, String> property : new TreeMap<String, String>(properties).entrySet()) {
+                getLog().info("Export property " + property.getKey() + " [" + property.getValue() + "]");
+            }
+        }
+
+        Map<String, Integer> typeCounts = new TreeMap<String, Integer>();
+        long size = 0L;
+        long compressedSize = 0L;
+        int resourceCount = 0;
+
+        for (SbarReader.Entry entry : reader.getEntries()) {
+            size += entry.getSize();
+            compressedSize += entry.getCompressedSize();
+
+            if (!inspectSummary) {
+                getLog().info(String.format("%-8s %10d %10d %08x  %s",
+                                            entry.getMethod() == ZipEntry.STORED ? "STORED" : "DEFLATED",
+                                            entry.getSize(), entry.getCompressedSize(), entry.getCrc(),
+                                            entry.getName()));
+            }
+
+            if (entry.isDirectory() || FILENAME_EXPORT_INFO.equals(entry.getName())) {
+                continue;
+            }
+
+            resourceCount++;
+
+            if (exportedItems == null) {
+                continue;
+            }
+
+            String typeId = exportedItems.get(entry.getName());
+
+            if (typeId == null) {
+                getLog().warn("Entry [" + entry.getName() + "] is not listed in the ExportInfo file");
+            } else {
+                Integer count = typeCounts.get(typeId);
+                typeCounts.put(typeId, count != null ? count + 1 : 1);
+            }
+        }
+
+        if (exportedItems != null) {
+            for (String jarEntryName : exportedItems.keySet()) {
+                if (reader.getEntry(jarEntryName) == null) {
+                    getLog().warn("Exported item [" + jarEntryName + "] has no entry in the archive");
+                }
+            }
+        }
+
+        for (Map.Entry<String, Integer> typeCount : typeCounts.entrySet()) {
+            getLog().info("Resources of type " + typeCount.getKey() + " [" + typeCount.getValue() + "]");
+        }
+
+        getLog().info("Archive has [" + reader.getEntries().size() + "] entries, [" + resourceCount +
+                      "] resources, [" + size + "] bytes uncompressed, [" + compressedSize + "] bytes compressed");
+    }
+}
@@ -1,25 +1,37 @@
 package com.oracle.osb;
 
+import com.oracle.osb.archiver.Compression;
+import com.oracle.osb.build.BuildScheduler;
+import com.oracle.osb.build.BuildState;
+import com.oracle.osb.build.ResourceIndex;
+import com.oracle.osb.configjar.ConfigJarEngine;
+import com.oracle.osb.configjar.ConfigJarEngineFactory;
+import com.oracle.osb.configjar.ConfigJarExecEngine;
 import com.oracle.osb.configjar.ConfigJarSettings;
 import com.oracle.osb.configjar.ExportLevel;
+import com.oracle.osb.configjar.ExportRequest;
+import com.oracle.osb.configjar.NativeConfigJarEngine;
+import com.oracle.osb.dependency.ReferenceIndex;
+import com.oracle.osb.fileset.DeployFile;
+import com.oracle.osb.fileset.DeployFileCache;
+import com.oracle.osb.fileset.FilesetCache;
+import com.oracle.osb.fileset.FilesetResolver;
+import com.oracle.osb.metrics.BuildMetrics;
 
 import java.io.File;
 import java.io.IOException;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.zip.Deflater;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-
-import oracle.sb.maven.plugin.configjar.ConfigJarExec;
+import javax.xml.stream.XMLStreamException;
 
 import org.apache.commons.lang.ArrayUtils;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -30,17 +42,34 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.xmlbeans.XmlException;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
-import org.xml.sax.SAXException;
-
 /**
  * Implementation of {@link AbstractMojo}for packaging OSB projects to <i>sbar</i> archive. The 
  * {@link ConfigJarSettings} class will be used for generating the Configjar
- * settings file. This is a custom implementation. The default Oracle {@link ConfigJarExec}class will be used to execute
- * the Configjar tool.
+ * settings file. This is a custom implementation. The {@link ConfigJarEngine} configured by {@link configJarEngine}
+ * will be used to execute the export. By default the {@link ConfigJarExecEngine} is used, which executes the Configjar
+ * tool with the default Oracle ConfigJarExec class. The engine is created for every export by the
+ * {@link ConfigJarEngineFactory}; the Configjar tool is started for every module.
+ * <p>
+ * In a parallel build the exports of all modules are scheduled by the {@link BuildScheduler}: at most
+ * <i>configjar.maxConcurrentExports</i> exports run concurrently (0, the default, for the number of available
+ * processors), within the <i>configjar.memoryBudget</i> of which every export reserves <i>configjar.exportMemory</i>.
+ * The scheduler is the only limit on concurrent exports. Modules that share a build directory are packaged one after
+ * the other.
+ * <p>
+ * Configjar is skipped when the <i>sbar</i> archive exists and the {@link BuildState} of the last successful build
+ * (resolved fileset, Configjar settings file, export level, system setting and, for the native engine, compression)
+ * is unchanged.
+ * <p>
+ * The {@link sbarCompression} method, {@link sbarCompressionLevel} and the {@link sbarThreads} that compress the
+ * entries are applied by engines that write the archive themselves, like the native engine; the Configjar tool always
+ * uses its own compression. The native engine is experimental and only used when it is configured explicitly.
+ * <p>
+ * If {@link includeDependencies} is true, a resource level export of a subset of the project also contains all
+ * resources the subset depends on. The dependency closure is computed with the {@link ReferenceIndex} of the project,
+ * which is stored next to the archive and updated incrementally.
+ * <p>
+ * If {@link metricsReport} is true, the duration of the phases of the build and the size of the fileset and archive
+ * are written to a {@link BuildMetrics} report in the build directory.
  */
 @Mojo(name = "package", defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
 @Execute(goal = "package", phase = LifecyclePhase.PACKAGE)
@@ -48,17 +77,39 @@ public class PackageMojo extends AbstractMojo {
 
     //General settings
     private static final String SBAR_FILENAME = "sbconfig.sbar";
-
-    //Resources file XPath expressions
-    private static final String XPATH_INCLUDES = "/resources/includes/include";
-    private static final String XPATH_EXCLUDES = "/resources/excludes/exclude";
+    private static final String BUILD_STATE_FILENAME = "sbconfig.state";
+    private static final String REFERENCE_INDEX_FILENAME = "sbconfig.refs";
 
     @Parameter(defaultValue = "${project}")
     private MavenProject project;
 
-    @Parameter(property = "oracle.home", required = true)
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
+    @Parameter(property = "oracle.home", required = false)
     private File oracleHome;
 
+    @Parameter(property = "configjar.engine", defaultValue = ConfigJarExecEngine.NAME)
+    private String configJarEngine;
+
+    @Parameter(property = "configjar.maxConcurrentExports", defaultValue = "0")
+    private int configJarMaxConcurrentExports;
+
+    @Parameter(property = "configjar.memoryBudget", defaultValue = "0")
+    private int configJarMemoryBudget;
+
+    @Parameter(property = "configjar.exportMemory", defaultValue = "512")
+    private int configJarExportMemory;
+
+    @Parameter(property = "sbar.compression", defaultValue = "DEFLATED")
+    private Compression sbarCompression;
+
+    @Parameter(property = "sbar.compressionLevel", defaultValue = "-1")
+    private int sbarCompressionLevel;
+
+    @Parameter(property = "sbar.threads", defaultValue = "1")
+    private int sbarThreads;
+
     @Parameter(required = true)
     private String projectDir;
 
@@ -77,23 +128,80 @@ public class PackageMojo extends AbstractMojo {
     @Parameter(property = "deploy.file", required = false)
     private File resources;
 
+    @Parameter(property = "configjar.includeDependencies", defaultValue = "false")
+    private boolean includeDependencies;
+
+    @Parameter(property = "metrics.report", defaultValue = "true")
+    private boolean metricsReport;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
+        if (sbarCompressionLevel != Deflater.DEFAULT_COMPRESSION &&
+            (sbarCompressionLevel < Deflater.BEST_SPEED || sbarCompressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new MojoExecutionException("Invalid sbar.compressionLevel [" + sbarCompressionLevel +
+                                             "], use 1 (fastest) to 9 (smallest) or -1 for the default level");
+        }
+
         File outputDir = new File(this.project.getBuild().getDirectory());
 
         if (!outputDir.isAbsolute()) {
             outputDir = new File(this.project.getBasedir(), this.project.getBuild().getDirectory());
         }
 
-        File artifactfile = new File(outputDir, SBAR_FILENAME);
+        BuildMetrics metrics = new BuildMetrics("package", this.project.getArtifactId());
+        BuildScheduler scheduler =
+            BuildScheduler.getInstance(session, configJarMaxConcurrentExports, configJarMemoryBudget);
+
+        try {
+            if (scheduler.lock(outputDir)) {
+                getLog().info("Waited for build directory [" + outputDir.getAbsolutePath() +
+                              "] used by another module");
+            }
+        } catch (IOException ex) {
+            throw new MojoExecutionException("IOException occurred while locking build directory", ex);
+        }
+
+        try {
+            execute(outputDir, metrics, scheduler);
+            metrics.setSuccess(true);
+        } finally {
+            unlock(scheduler, outputDir);
+
+            if (metricsReport) {
+                writeMetrics(metrics, outputDir);
+            }
+        }
+    }
 
-        if(artifactfile.exists()){
-            return;
+    /**
+     * Package the OSB project, unless the archive is up to date.
+     *
+     * @param outputDir Build directory.
+     * @param metrics {@link BuildMetrics} of the build.
+     * @param scheduler {@link BuildScheduler} of the Maven session.
+     * @throws MojoExecutionException
+     * @throws MojoFailureException
+     */
+    private void execute(File outputDir, final BuildMetrics metrics,
+                         BuildScheduler scheduler) throws MojoExecutionException, MojoFailureException {
+        long start = System.currentTimeMillis();
+        File artifactfile = new File(outputDir, SBAR_FILENAME);
+        File buildStateFile = new File(outputDir, BUILD_STATE_FILENAME);
+        DeployFile deployFile = getDeployFile();
+        String[] archiveIncludes = getIncludes(deployFile);
+        String[] archiveExcludes = getExcludes(deployFile);
+        ConfigJarSettings configJarSettings = new ConfigJarSettings();
+        File settingsFile;
+
+        if (includeDependencies && !system && exportLevel == ExportLevel.RESOURCE && archiveIncludes.length > 0) {
+            archiveIncludes =
+                getDependencyClosure(new File(outputDir, REFERENCE_INDEX_FILENAME), archiveIncludes,
+                                     configJarSettings.getExcludes(system, archiveExcludes));
         }
 
         try {
-            new ConfigJarSettings().create(this.project, artifactfile, outputDir, system, exportLevel, getIncludes(),
-                                           getExcludes(), this.projectDir);
+            settingsFile = configJarSettings.create(this.project, artifactfile, outputDir, system, exportLevel,
+                                                    archiveIncludes, archiveExcludes, this.projectDir);
         } catch (IOException ex) {
             throw new MojoExecutionException("IOException occurred while creating configjar settings file", ex);
         } catch (XmlException ex) {
@@ -103,9 +211,64 @@ public class PackageMojo extends AbstractMojo {
                                              ex);
         }
 
+        BuildState buildState;
+
+        try {
+            File sourceDir = new File(this.projectDir);
+            ResourceIndex resourceIndex =
+                refreshResourceIndex(ResourceIndex.getIndexFile(outputDir), sourceDir,
+                                     configJarSettings.getExcludes(system, null));
+            List<String> files =
+                new FilesetResolver(sourceDir, archiveIncludes, configJarSettings.getExcludes(system, archiveExcludes),
+                                    FilesetCache.getInstance(session)).resolve();
+            buildState =
+                BuildState.create(resourceIndex, files, settingsFile, exportLevel, system, getArchiveSettings());
+            metrics.addCount("resources", files.size());
+            metrics.addCount("changedResources", resourceIndex.getChangedPaths().size());
+            metrics.addCount("removedResources", resourceIndex.getRemovedPaths().size());
+
+            if (artifactfile.exists() && buildState.isUnchanged(BuildState.load(buildStateFile))) {
+                getLog().info("Archive [" + artifactfile.getAbsolutePath() + "] is up to date");
+                this.project.getArtifact().setFile(artifactfile);
+                metrics.addDuration("resolve", System.currentTimeMillis() - start);
+                metrics.addCount("upToDate", 1);
+                metrics.addCount("archiveBytes", artifactfile.length());
+                return;
+            }
+
+            buildStateFile.delete();
+            artifactfile.delete();
+        } catch (IOException ex) {
+            throw new MojoExecutionException("IOException occurred while reading build state", ex);
+        }
+
+        metrics.addDuration("resolve", System.currentTimeMillis() - start);
+        metrics.addCount("upToDate", 0);
+
+        if (NativeConfigJarEngine.NAME.equals(configJarEngine)) {
+            getLog().warn(NativeConfigJarEngine.EXPERIMENTAL_WARNING);
+        }
+
         try {
-            if (new ConfigJarExec().execute(this.oracleHome, outputDir)) {
+            final ExportRequest exportRequest =
+                new ExportRequest(this.oracleHome, outputDir, settingsFile, artifactfile, sbarCompression,
+                                  sbarCompressionLevel, sbarThreads, metrics);
+            final ConfigJarEngine engine =
+                ConfigJarEngineFactory.create(configJarEngine, FilesetCache.getInstance(session), getLog());
+            final long exportStart = System.currentTimeMillis();
+            boolean exported = scheduler.run(configJarExportMemory, new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    metrics.addDuration("exportQueue", System.currentTimeMillis() - exportStart);
+                    return engine.export(exportRequest);
+                }
+            });
+            metrics.addDuration("export", System.currentTimeMillis() - exportStart);
+
+            if (exported) {
                 this.project.getArtifact().setFile(artifactfile);
+                buildState.save(buildStateFile);
+                metrics.addCount("archiveBytes", artifactfile.length());
             } else {
                 throw new MojoFailureException("Failed to create sbar archive.");
             }
@@ -115,53 +278,149 @@ public class PackageMojo extends AbstractMojo {
     }
 
     /**
-     * Get resource entries from {@link resources} file using XPath expression.
+     * Get the archive settings of the {@link BuildState}. Only engines that write the archive themselves apply the
+     * {@link sbarCompression} method and {@link sbarCompressionLevel}, so for other engines these settings do not
+     * change the archive and do not force a new build.
      *
-     * @param xpath XPath expression.
-     * @return Resource entries from {@link resources} file.
+     * @return Archive settings (example: DEFLATED:6), null if the engine does not apply them.
+     */
+    private String getArchiveSettings() {
+        if (NativeConfigJarEngine.NAME.equals(configJarEngine)) {
+            return sbarCompression + ":" + sbarCompressionLevel;
+        }
+
+        return null;
+    }
+
+    /**
+     * Unlock the build directory in the {@link BuildScheduler}.
+     *
+     * @param scheduler {@link BuildScheduler} of the Maven session.
+     * @param outputDir Build directory.
      * @throws MojoExecutionException
      */
-    private String[] getResourceEntriesFromFile(String xpath) throws MojoExecutionException {
-        List<String> resourceEntries = new ArrayList<String>();
-
-        if (resources != null) {
-            try {
-                DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-                DocumentBuilder builder = builderFactory.newDocumentBuilder();
-                Document document = builder.parse(resources);
-
-                XPath xpathBuilder = XPathFactory.newInstance().newXPath();
-                NodeList nodeList = (NodeList) xpathBuilder.compile(xpath).evaluate(document, XPathConstants.NODESET);
-
-                for (int i = 0; nodeList != null && i < nodeList.getLength(); i++) {
-                    Node node = nodeList.item(i);
-                    if (node.getNodeType() == Node.ELEMENT_NODE) {
-                        resourceEntries.add(node.getFirstChild().getNodeValue());
-                    }
-                }
-            } catch (ParserConfigurationException ex) {
-                throw new MojoExecutionException("Failed to parse resources file.", ex);
-            } catch (IOException ex) {
-                throw new MojoExecutionException("Failed to parse resources file.", ex);
-            } catch (SAXException ex) {
-                throw new MojoExecutionException("Failed to parse resources file.", ex);
-            } catch (XPathExpressionException ex) {
-                throw new MojoExecutionException("Failed to parse resources file.", ex);
+    private void unlock(BuildScheduler scheduler, File outputDir) throws MojoExecutionException {
+        try {
+            scheduler.unlock(outputDir);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("IOException occurred while unlocking build directory", ex);
+        }
+    }
+
+    /**
+     * Write the metrics report to the build directory. A failure to write the report is logged, but does not fail the
+     * build.
+     *
+     * @param metrics {@link BuildMetrics} of the build.
+     * @param outputDir Build directory.
+     */
+    private void writeMetrics(BuildMetrics metrics, File outputDir) {
+        try {
+            metrics.write(outputDir);
+        } catch (IOException ex) {
+            getLog().warn("IOException occurred while writing metrics report: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Load and refresh the {@link ResourceIndex} of the project. All files of the project except the default excludes
+     * are indexed, so the index is shared by subset and full builds. The index is only stored when it changed.
+     *
+     * @param indexFile Resource index file.
+     * @param sourceDir OSB project directory.
+     * @param defaultExcludes Default exclude patterns of the project.
+     * @return Refreshed {@link ResourceIndex} instance.
+     * @throws IOException
+     */
+    private ResourceIndex refreshResourceIndex(File indexFile, File sourceDir,
+                                               String[] defaultExcludes) throws IOException {
+        ResourceIndex resourceIndex = ResourceIndex.load(indexFile, sourceDir);
+
+        FilesetResolver resolver =
+            new FilesetResolver(sourceDir, null, defaultExcludes, FilesetCache.getInstance(session));
+
+        if (resourceIndex.refresh(resolver.resolve())) {
+            getLog().debug("[" + resourceIndex.getChangedPaths().size() + "] resources changed and [" +
+                           resourceIndex.getRemovedPaths().size() + "] resources removed since the last build");
+        }
+
+        if (resourceIndex.isModified()) {
+            resourceIndex.save(indexFile);
+        }
+
+        return resourceIndex;
+    }
+
+    /**
+     * Get the dependency closure of the included resources: the included resources and all resources of the project
+     * they depend on. The {@link ReferenceIndex} of the project is updated before the closure is computed.
+     *
+     * @param indexFile Reference index file.
+     * @param archiveIncludes Include patterns of the archive.
+     * @param archiveExcludes Exclude patterns of the archive, including the default excludes.
+     * @return Include patterns of the resources in the closure, starting with the project name.
+     * @throws MojoExecutionException
+     */
+    private String[] getDependencyClosure(File indexFile, String[] archiveIncludes,
+                                          String[] archiveExcludes) throws MojoExecutionException {
+        File sourceDir = new File(this.projectDir);
+
+        try {
+            FilesetCache filesetCache = FilesetCache.getInstance(session);
+            ReferenceIndex index = ReferenceIndex.load(indexFile, sourceDir);
+
+            if (index.update(new FilesetResolver(sourceDir, null, archiveExcludes, filesetCache).resolve())) {
+                index.save(indexFile);
             }
+
+            List<String> seeds =
+                new FilesetResolver(sourceDir, archiveIncludes, archiveExcludes, filesetCache).resolve();
+            Set<String> closure = index.getClosure(seeds);
+            getLog().info("Including [" + (closure.size() - seeds.size()) + "] dependencies of [" + seeds.size() +
+                          "] resources");
+
+            List<String> result = new ArrayList<String>(closure.size());
+
+            for (String path : closure) {
+                result.add(sourceDir.getName() + "/" + path);
+            }
+
+            return result.toArray(new String[result.size()]);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("IOException occurred while resolving resource dependencies", ex);
+        }
+    }
+
+    /**
+     * Read the {@link resources} file, if configured. The file is read once per Maven session by the
+     * {@link DeployFileCache}, both the includes and the excludes in a single pass.
+     *
+     * @return {@link DeployFile} instance, or null if no {@link resources} file is configured.
+     * @throws MojoExecutionException
+     */
+    private DeployFile getDeployFile() throws MojoExecutionException {
+        if (resources == null) {
+            return null;
         }
 
-        return resourceEntries.toArray(new String[resourceEntries.size()]);
+        try {
+            return DeployFileCache.getInstance(session).get(resources);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Failed to parse resources file.", ex);
+        } catch (XMLStreamException ex) {
+            throw new MojoExecutionException("Failed to parse resources file.", ex);
+        }
     }
 
     /**
      * Get all files to include in the archive. If both the {@link includes} parameter and the {@link resources}
      * parameter is used in the pom.xml file, both lists will be included in the archive.
      *
+     * @param deployFile Content of the {@link resources} file, can be null.
      * @return All files to include in the archive.
-     * @throws MojoExecutionException
      */
-    private String[] getIncludes() throws MojoExecutionException {
-        String[] includesFromResources = getResourceEntriesFromFile(XPATH_INCLUDES);
+    private String[] getIncludes(DeployFile deployFile) {
+        String[] includesFromResources = deployFile != null ? deployFile.getIncludes() : new String[0];
         return (String[]) ArrayUtils.addAll(includesFromResources, includes);
     }
 
@@ -169,11 +428,11 @@ public class PackageMojo extends AbstractMojo {
      * Get all files to exclude the archive. If both the {@link excludes} parameter and the {@link resources}
      * parameter is used in the pom.xml file, both lists will be excluded from the archive.
      *
+     * @param deployFile Content of the {@link resources} file, can be null.
      * @return All files to exclude from the archive.
-     * @throws MojoExecutionException
      */
-    private String[] getExcludes() throws MojoExecutionException {
-        String[] excludesFromResources = getResourceEntriesFromFile(XPATH_EXCLUDES);
+    private String[] getExcludes(DeployFile deployFile) {
+        String[] excludesFromResources = deployFile != null ? deployFile.getExcludes() : new String[0];
         return (String[]) ArrayUtils.addAll(excludesFromResources, excludes);
     }
 }
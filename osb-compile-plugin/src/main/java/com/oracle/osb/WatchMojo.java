@@ -0,0 +1,335 @@
+package com.oracle.osb;
+
+import com.oracle.osb.archiver.Compression;
+import com.oracle.osb.build.ResourceIndex;
+import com.oracle.osb.configjar.ConfigJarEngine;
+import com.oracle.osb.configjar.ConfigJarEngineFactory;
+import com.oracle.osb.configjar.ConfigJarExecEngine;
+import com.oracle.osb.configjar.ConfigJarSettings;
+import com.oracle.osb.configjar.ExportLevel;
+import com.oracle.osb.configjar.ExportRequest;
+import com.oracle.osb.configjar.NativeConfigJarEngine;
+import com.oracle.osb.fileset.FilesetCache;
+import com.oracle.osb.fileset.FilesetResolver;
+import com.oracle.osb.fileset.ProjectWatcher;
+import com.oracle.osb.metrics.BuildMetrics;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import oracle.sb.maven.plugin.deploy.MBeanHelper;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.xmlbeans.XmlException;
+
+/**
+ * Implementation of {@link AbstractMojo} that watches the OSB project directory and deploys every change to a
+ * development server, until Maven is stopped. The goal is launched once, so Maven is started and the connection to the
+ * server is opened once for all changes.
+ * <p>
+ * The changes are collected in batches by the {@link ProjectWatcher}: a batch is deployed when no file changed for
+ * {@link watchQuietPeriod} milliseconds, or at the latest {@link watchMaxDelay} milliseconds after its first change.
+ * A {@link ResourceIndex} of the watch goal decides which resources really changed, so files that are saved without
+ * modifications are not deployed. This index is separate from the index of the package goal and is only saved after
+ * a successful deployment, so it always describes the resources that are deployed to the server. Only the changed
+ * resources are exported, with the {@link configJarEngine} (the Configjar tool by default) to an uncompressed
+ * <i>sbar</i> archive, and deployed in a new session with the {@link deploymentCustomizationFile} and the
+ * {@link deploymentConflictCheck} of the deploy goals.
+ * <p>
+ * If the server is not reachable or the deployment of a batch fails, the error is logged, the connection to the server
+ * is dropped and the resources of the batch are deployed again with the next batch over a new connection. Resources
+ * that are removed from the project are not removed from the server. Only resource level exports of OSB projects are
+ * supported; system projects are deployed with the deploy-assembly goal.
+ */
+@Mojo(name = "watch", requiresDirectInvocation = true)
+public class WatchMojo extends AbstractDeployMojo {
+
+    //General settings
+    private static final String WATCH_WORK_DIR = "watch";
+    private static final String WATCH_SBAR_FILENAME = "sbconfig-watch.sbar";
+    private static final String WATCH_INDEX_FILENAME = "sbconfig-watch.index";
+    private static final String SEPARATOR = "/";
+
+    @Parameter(property = "oracle.home", required = false)
+    private File oracleHome;
+
+    @Parameter(property = "configjar.engine", defaultValue = ConfigJarExecEngine.NAME)
+    private String configJarEngine;
+
+    @Parameter(required = true)
+    private String projectDir;
+
+    @Parameter(defaultValue = "false")
+    private boolean system;
+
+    @Parameter
+    private String[] excludes;
+
+    @Parameter
+    private String[] includes;
+
+    @Parameter(property = "server.url", required = true)
+    private String serverUrl;
+
+    @Parameter(property = "server.username", required = true)
+    private String serverUsername;
+
+    @Parameter(property = "server.password", required = true)
+    private String serverPassword;
+
+    @Parameter(property = "watch.quietPeriod", defaultValue = "500")
+    private long watchQuietPeriod;
+
+    @Parameter(property = "watch.maxDelay", defaultValue = "5000")
+    private long watchMaxDelay;
+
+    /**
+     * Resources of batches that were not deployed because the deployment failed.
+     */
+    private final Set<String> pendingResources = new TreeSet<String>();
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (system) {
+            throw new MojoExecutionException("The watch goal does not support system projects");
+        }
+
+        File sourceDir = new File(projectDir);
+        File buildDir = getArtifactFile(project).getParentFile();
+        String[] defaultExcludes = new ConfigJarSettings().getExcludes(false, null);
+        ProjectWatcher watcher = null;
+
+        if (NativeConfigJarEngine.NAME.equals(configJarEngine)) {
+            getLog().warn(NativeConfigJarEngine.EXPERIMENTAL_WARNING);
+        }
+
+        try {
+            refreshResourceIndex(buildDir, sourceDir, defaultExcludes).save(getIndexFile(buildDir));
+            watcher = new ProjectWatcher(sourceDir, defaultExcludes);
+            MBeanHelper mBeanHelper = connect();
+            getLog().info("Watching [" + watcher.getDirectoryCount() + "] directories of [" +
+                          sourceDir.getAbsolutePath() + "], deploying changes to [" + serverUrl + "]");
+
+            while (true) {
+                Set<String> changedFiles = watcher.take(watchQuietPeriod, watchMaxDelay);
+                getLog().debug("[" + changedFiles.size() + "] files changed" +
+                               (watcher.isOverflow() ? ", some changes were lost" : ""));
+
+                try {
+                    if (mBeanHelper == null) {
+                        mBeanHelper = getMBeanHelper(serverUrl, serverUsername, serverPassword);
+                    }
+
+                    deployBatch(mBeanHelper, buildDir, sourceDir, defaultExcludes);
+                } catch (MojoExecutionException ex) {
+                    mBeanHelper = null;
+                    getLog().error(ex.getMessage(), ex.getCause());
+                    logFailedBatch();
+                } catch (RuntimeException ex) {
+                    mBeanHelper = null;
+                    getLog().error("Unable to deploy to server [" + serverUrl + "]", ex);
+                    logFailedBatch();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            getLog().info("Stopped watching [" + sourceDir.getAbsolutePath() + "]");
+        } catch (IOException ex) {
+            throw new MojoExecutionException("IOException occurred while watching project directory", ex);
+        } finally {
+            IOUtils.closeQuietly(watcher);
+        }
+    }
+
+    /**
+     * Connect to the server before the first change. If the server is not reachable, the project is still watched and
+     * the connection is opened again with the first change.
+     *
+     * @return {@link MBeanHelper} instance, null if the server is not reachable.
+     */
+    private MBeanHelper connect() {
+        try {
+            return getMBeanHelper(serverUrl, serverUsername, serverPassword);
+        } catch (RuntimeException ex) {
+            getLog().warn("Unable to connect to server [" + serverUrl + "], connecting again with the next change", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Log that the deployment of a batch failed and its resources are still pending.
+     */
+    private void logFailedBatch() {
+        getLog().error("Deployment of [" + pendingResources.size() +
+                       "] resources failed, they are deployed again with the next change");
+    }
+
+    /**
+     * Deploy the resources that changed since the last batch, together with the resources of failed batches. The
+     * {@link ResourceIndex} of the watch goal is saved when all changed resources are deployed.
+     *
+     * @param mBeanHelper {@link MBeanHelper} instance to execute actions on OSB server.
+     * @param buildDir Build directory.
+     * @param sourceDir OSB project directory.
+     * @param defaultExcludes Default exclude patterns of the project.
+     * @throws MojoExecutionException
+     */
+    private void deployBatch(MBeanHelper mBeanHelper, File buildDir, File sourceDir,
+                             String[] defaultExcludes) throws MojoExecutionException {
+        long start = System.currentTimeMillis();
+        BuildMetrics metrics = new BuildMetrics("watch", project.getArtifactId());
+
+        try {
+            ResourceIndex resourceIndex = refreshResourceIndex(buildDir, sourceDir, defaultExcludes);
+            FilesetResolver resolver =
+                new FilesetResolver(sourceDir, includes, new ConfigJarSettings().getExcludes(false, excludes));
+
+            for (String path : resourceIndex.getChangedPaths()) {
+                if (resolver.isIncluded(path)) {
+                    pendingResources.add(path);
+                }
+            }
+
+            for (String path : resourceIndex.getRemovedPaths()) {
+                pendingResources.remove(path);
+                getLog().warn("Resource [" + path + "] is removed from the project, but is not removed from the " +
+                              "server by the watch goal");
+            }
+
+            metrics.addCount("changedResources", pendingResources.size());
+            metrics.addCount("removedResources", resourceIndex.getRemovedPaths().size());
+
+            if (pendingResources.isEmpty()) {
+                getLog().info("No changed resources");
+                saveResourceIndex(resourceIndex, buildDir);
+                return;
+            }
+
+            File sbarFile = new File(buildDir, WATCH_SBAR_FILENAME);
+            export(new ArrayList<String>(pendingResources), new File(buildDir, WATCH_WORK_DIR), sbarFile, sourceDir,
+                   metrics);
+            metrics.addDuration("package", System.currentTimeMillis() - start);
+            metrics.addCount("archiveBytes", sbarFile.length());
+
+            long deployStart = System.currentTimeMillis();
+            getLog().info("Deploying [" + pendingResources.size() + "] changed resources: " + pendingResources);
+            deploy(mBeanHelper, createSessionName(project.getArtifactId()), Collections.singletonList(sbarFile));
+            metrics.addDuration("deploy", System.currentTimeMillis() - deployStart);
+            metrics.addDuration("total", System.currentTimeMillis() - start);
+            metrics.setSuccess(true);
+
+            getLog().info("Deployed [" + pendingResources.size() + "] resources in [" +
+                          (System.currentTimeMillis() - start) + "] ms");
+            pendingResources.clear();
+            saveResourceIndex(resourceIndex, buildDir);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("IOException occurred while packaging changed resources", ex);
+        } finally {
+            writeMetrics(metrics, buildDir);
+        }
+    }
+
+    /**
+     * Export the changed resources to an uncompressed resource level <i>sbar</i> archive.
+     *
+     * @param resources Paths of the changed resources, relative to the project directory.
+     * @param workDir Working directory for the Configjar settings file.
+     * @param sbarFile Location of the <i>sbar</i> archive.
+     * @param sourceDir OSB project directory.
+     * @param metrics {@link BuildMetrics} of the batch.
+     * @throws MojoExecutionException
+     */
+    private void export(List<String> resources, File workDir, File sbarFile, File sourceDir,
+                        BuildMetrics metrics) throws MojoExecutionException {
+        List<String> archiveIncludes = new ArrayList<String>(resources.size());
+
+        for (String resource : resources) {
+            archiveIncludes.add(sourceDir.getName() + SEPARATOR + resource);
+        }
+
+        try {
+            workDir.mkdirs();
+            sbarFile.delete();
+            File settingsFile =
+                new ConfigJarSettings().create(project, sbarFile, workDir, false, ExportLevel.RESOURCE,
+                                               archiveIncludes.toArray(new String[archiveIncludes.size()]), excludes,
+                                               projectDir);
+            ExportRequest exportRequest =
+                new ExportRequest(oracleHome, workDir, settingsFile, sbarFile, Compression.STORED, -1, metrics);
+
+            ConfigJarEngine engine =
+                ConfigJarEngineFactory.create(configJarEngine, FilesetCache.getInstance(session), getLog());
+
+            if (!engine.export(exportRequest) || !sbarFile.isFile()) {
+                throw new MojoExecutionException("Failed to create sbar archive of the changed resources");
+            }
+        } catch (MojoExecutionException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            throw new MojoExecutionException("IOException occurred while creating configjar settings file", ex);
+        } catch (XmlException ex) {
+            throw new MojoExecutionException("XmlException occurred while creating configjar settings file", ex);
+        } catch (ParserConfigurationException ex) {
+            throw new MojoExecutionException("ParserConfigurationException occurred while creating configjar " +
+                                             "settings file", ex);
+        } catch (Exception ex) {
+            throw new MojoExecutionException("Exception occurred while executing configjar.", ex);
+        }
+    }
+
+    /**
+     * Refresh the {@link ResourceIndex} of the watch goal against the project, without saving it. The cached scan of
+     * the project directory is invalidated first, so new and removed files are found.
+     *
+     * @param buildDir Build directory.
+     * @param sourceDir OSB project directory.
+     * @param defaultExcludes Default exclude patterns of the project.
+     * @return Refreshed {@link ResourceIndex} instance.
+     * @throws IOException
+     */
+    private ResourceIndex refreshResourceIndex(File buildDir, File sourceDir,
+                                               String[] defaultExcludes) throws IOException {
+        ResourceIndex resourceIndex = ResourceIndex.load(getIndexFile(buildDir), sourceDir);
+        FilesetCache filesetCache = FilesetCache.getInstance(session);
+        filesetCache.invalidate(sourceDir);
+        resourceIndex.refresh(new FilesetResolver(sourceDir, null, defaultExcludes, filesetCache).resolve());
+
+        return resourceIndex;
+    }
+
+    /**
+     * Save the {@link ResourceIndex} of the watch goal if it changed.
+     *
+     * @param resourceIndex {@link ResourceIndex} instance.
+     * @param buildDir Build directory.
+     * @throws IOException
+     */
+    private void saveResourceIndex(ResourceIndex resourceIndex, File buildDir) throws IOException {
+        if (resourceIndex.isModified()) {
+            resourceIndex.save(getIndexFile(buildDir));
+        }
+    }
+
+    /**
+     * Get the location of the {@link ResourceIndex} of the watch goal, which is separate from the index of the package
+     * goal.
+     *
+     * @param buildDir Build directory.
+     * @return Index file.
+     */
+    private File getIndexFile(File buildDir) {
+        return new File(buildDir, WATCH_INDEX_FILENAME);
+    }
+}
@@ -0,0 +1,13 @@
+package com.oracle.osb.archiver;
+
+/**
+ * Enumeration of compression methods that can be used for the entries of an <i>sbar</i> archive:
+ * <ul>
+ *  <li>DEFLATED: entries are deflated with the configured compression level (default)</li>
+ *  <li>STORED: entries are stored without compression, which is fastest when the archive is uploaded over a fast
+ *  network</li>
+ * </ul>.
+ */
+public enum Compression {
+    DEFLATED, STORED
+}
@@ -0,0 +1,203 @@
+package com.oracle.osb.archiver;
+
+import java.io.InputStream;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+/**
+ * Reader of <i>ExportInfo</i> files. Looking up a StAX factory scans the classpath for implementations, which is
+ * expensive when hundreds of <i>ExportInfo</i> files are merged, so a reader creates its {@link XMLInputFactory} once
+ * and reuses it for every file it reads. StAX does not guarantee that a factory is safe for use by multiple threads,
+ * so a reader must not be shared between threads: create a reader for every merge or comparison and use it from one
+ * thread only. The attribute names that are looked up are created once.
+ */
+public final class ExportInfoReader {
+
+    //ExportInfo file elements
+    private static final String ELEMENT_PROPERTIES = "properties";
+    private static final String ELEMENT_PROPERTY = "property";
+    private static final String ELEMENT_EXPORTED_ITEM_INFO = "exportedItemInfo";
+
+    //ExportInfo file element attributes
+    private static final String ATTRIBUTE_NAME = "name";
+    private static final String ATTRIBUTE_VALUE = "value";
+    private static final String ATTRIBUTE_JAR_ENTRY_NAME = "jarentryname";
+    private static final String ATTRIBUTE_TYPE_ID = "typeId";
+    private static final QName QNAME_NAME = new QName(ATTRIBUTE_NAME);
+    private static final QName QNAME_VALUE = new QName(ATTRIBUTE_VALUE);
+
+    private final XMLInputFactory inputFactory;
+
+    /**
+     * Constructor.
+     */
+    public ExportInfoReader() {
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    }
+
+    /**
+     * Read all properties from the <i>properties</i> element of an <i>ExportInfo</i> file in a single pass. The file
+     * is read up to the end of the <i>properties</i> element, the <i>exportedItemInfo</i> elements are not read.
+     *
+     * @param inputStream Content of the <i>ExportInfo</i> file.
+     * @return Property values by property name.
+     * @throws XMLStreamException
+     */
+    public Map<String, String> readProperties(InputStream inputStream) throws XMLStreamException {
+        Map<String, String> result = new HashMap<String, String>();
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+
+        try {
+            int depth = 0;
+            boolean inProperties = false;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    String localName = reader.getLocalName();
+
+                    if (depth == 2 && ELEMENT_PROPERTIES.equals(localName)) {
+                        inProperties = true;
+                    } else if (depth == 3 && inProperties && ELEMENT_PROPERTY.equals(localName)) {
+                        result.put(reader.getAttributeValue(null, ATTRIBUTE_NAME),
+                                   reader.getAttributeValue(null, ATTRIBUTE_VALUE));
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == 2 && inProperties) {
+                        break;
+                    }
+
+                    depth--;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return result;
+    }
+
+    /**
+     * Read the archive entry name and type of all <i>exportedItemInfo</i> elements of an <i>ExportInfo</i> file.
+     *
+     * @param inputStream Content of the <i>ExportInfo</i> file.
+     * @return Type ids by archive entry name (<i>jarentryname</i> property), in the order of the file.
+     * @throws XMLStreamException
+     */
+    public Map<String, String> readExportedItems(InputStream inputStream) throws XMLStreamException {
+        Map<String, String> result = new LinkedHashMap<String, String>();
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+
+        try {
+            String typeId = null;
+
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    String localName = reader.getLocalName();
+
+                    if (ELEMENT_EXPORTED_ITEM_INFO.equals(localName)) {
+                        typeId = reader.getAttributeValue(null, ATTRIBUTE_TYPE_ID);
+                    } else if (typeId != null && ELEMENT_PROPERTY.equals(localName) &&
+                               ATTRIBUTE_JAR_ENTRY_NAME.equals(reader.getAttributeValue(null, ATTRIBUTE_NAME))) {
+                        result.put(reader.getAttributeValue(null, ATTRIBUTE_VALUE), typeId);
+                        typeId = null;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return result;
+    }
+
+    /**
+     * Copy all <i>exportedItemInfo</i> elements from an <i>ExportInfo</i> file to a writer. If a filter is provided,
+     * the events of a single item are buffered until the end of the item, and the item is only copied if its
+     * <i>jarentryname</i> property is in the filter.
+     *
+     * @param inputStream Content of the <i>ExportInfo</i> file.
+     * @param writer {@link XMLEventWriter} to copy the items to.
+     * @param filter Archive entry names of the items to copy, null to copy all items.
+     * @throws XMLStreamException
+     */
+    public void copyExportedItems(InputStream inputStream, XMLEventWriter writer,
+                                  Set<String> filter) throws XMLStreamException {
+        XMLEventReader reader = inputFactory.createXMLEventReader(inputStream);
+
+        try {
+            List<XMLEvent> itemEvents = new ArrayList<XMLEvent>();
+            String jarEntryName = null;
+            int itemDepth = 0;
+
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+
+                if (event.isStartElement()) {
+                    StartElement element = event.asStartElement();
+
+                    if (itemDepth > 0 || ELEMENT_EXPORTED_ITEM_INFO.equals(element.getName().getLocalPart())) {
+                        itemDepth++;
+
+                        if (filter != null && ELEMENT_PROPERTY.equals(element.getName().getLocalPart()) &&
+                            ATTRIBUTE_JAR_ENTRY_NAME.equals(getAttributeValue(element, QNAME_NAME))) {
+                            jarEntryName = getAttributeValue(element, QNAME_VALUE);
+                        }
+                    }
+                }
+
+                if (itemDepth > 0) {
+                    if (filter == null) {
+                        writer.add(event);
+                    } else {
+                        itemEvents.add(event);
+                    }
+
+                    if (event.isEndElement() && --itemDepth == 0) {
+                        if (jarEntryName != null && filter != null && filter.contains(jarEntryName)) {
+                            for (XMLEvent itemEvent : itemEvents) {
+                                writer.add(itemEvent);
+                            }
+                        }
+
+                        itemEvents.clear();
+                        jarEntryName = null;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Get the value of an attribute.
+     *
+     * @param element {@link StartElement} instance.
+     * @param name Attribute name.
+     * @return Attribute value, or null if the attribute does not exist.
+     */
+    private static String getAttributeValue(StartElement element, QName name) {
+        Attribute attribute = element.getAttributeByName(name);
+        return attribute != null ? attribute.getValue() : null;
+    }
+}
@@ -0,0 +1,85 @@
+package com.oracle.osb.archiver;
+
+import org.apache.maven.plugin.logging.Log;
+
+import org.codehaus.plexus.logging.AbstractLogger;
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * Plexus {@link Logger} that writes to the Maven {@link Log} of a goal, so the messages of an archiver that is
+ * created by the plugin itself follow the log level and output of the Maven build. The threshold is taken from the
+ * enabled levels of the Maven log when the logger is created.
+ */
+public class MavenLogger extends AbstractLogger {
+
+    private final Log log;
+
+    /**
+     * Constructor.
+     *
+     * @param log Maven log.
+     * @param name Logger name.
+     */
+    public MavenLogger(Log log, String name) {
+        super(getThreshold(log), name);
+        this.log = log;
+    }
+
+    @Override
+    public void debug(String message, Throwable throwable) {
+        if (isDebugEnabled()) {
+            log.debug(message, throwable);
+        }
+    }
+
+    @Override
+    public void info(String message, Throwable throwable) {
+        if (isInfoEnabled()) {
+            log.info(message, throwable);
+        }
+    }
+
+    @Override
+    public void warn(String message, Throwable throwable) {
+        if (isWarnEnabled()) {
+            log.warn(message, throwable);
+        }
+    }
+
+    @Override
+    public void error(String message, Throwable throwable) {
+        if (isErrorEnabled()) {
+            log.error(message, throwable);
+        }
+    }
+
+    @Override
+    public void fatalError(String message, Throwable throwable) {
+        if (isFatalErrorEnabled()) {
+            log.error(message, throwable);
+        }
+    }
+
+    @Override
+    public Logger getChildLogger(String name) {
+        return new MavenLogger(log, getName() + "." + name);
+    }
+
+    /**
+     * Get the threshold of the lowest level that is enabled in the Maven log.
+     *
+     * @param log Maven log.
+     * @return Plexus {@link Logger} level.
+     */
+    private static int getThreshold(Log log) {
+        if (log.isDebugEnabled()) {
+            return LEVEL_DEBUG;
+        } else if (log.isInfoEnabled()) {
+            return LEVEL_INFO;
+        } else if (log.isWarnEnabled()) {
+            return LEVEL_WARN;
+        }
+
+        return LEVEL_ERROR;
+    }
+}
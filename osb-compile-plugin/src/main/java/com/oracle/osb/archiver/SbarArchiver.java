@@ -2,62 +2,85 @@ package com.oracle.osb.archiver;
 
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringWriter;
+
+import java.net.URL;
+
+import java.nio.charset.Charset;
 
 import java.text.SimpleDateFormat;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntryPredicate;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 
 import org.codehaus.plexus.archiver.AbstractArchiver;
 import org.codehaus.plexus.archiver.ArchiveEntry;
+import org.codehaus.plexus.archiver.ArchivedFileSet;
 import org.codehaus.plexus.archiver.Archiver;
 import org.codehaus.plexus.archiver.ArchiverException;
 import org.codehaus.plexus.archiver.ResourceIterator;
 import org.codehaus.plexus.archiver.util.ResourceUtils;
+import org.codehaus.plexus.components.io.fileselectors.IncludeExcludeFileSelector;
+import org.codehaus.plexus.components.io.resources.AbstractPlexusIoResource;
 import org.codehaus.plexus.components.io.resources.PlexusIoResource;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
-import org.xml.sax.SAXException;
-
 /**
  * Implementation of the {@link AbstractArchiver} class. This class can be used for archiving <i>sbar</i> files.
  * All files will be added to the <i>sbar</i> archive. If multiple <i>ExportInfo</i> files are provided, these files
- * will be merged into one single <i>ExportInfo</i> file.
+ * will be merged into one single <i>ExportInfo</i> file. The <i>ExportInfo</i> files are merged with a streaming
+ * (StAX) reader and writer, so no <i>ExportInfo</i> file is held in memory as a whole; the files are read with one
+ * {@link ExportInfoReader} per merge. With {@link #setExportedItemFilter(Set)} the merged <i>ExportInfo</i> file can be
+ * limited to a subset of the archive entries.
+ * <p>
+ * Entries are compressed before they are written to the archive, with the {@link Compression} method and level
+ * configured by {@link #setCompression(Compression)} and {@link #setCompressionLevel(int)}. Every entry is read into a
+ * buffer of the exact entry size; stored entries are written from this buffer together with the CRC computed while
+ * reading. When {@link #setThreads(int)} is configured with more than one thread, entries are compressed on a worker
+ * pool and written to the archive in the order of the resources. The resulting archive is the same for every thread
+ * count. The <i>ExportInfo</i> file is always deflated, since its size is not known before it is written.
+ * <p>
+ * Entries of other <i>sbar</i> archives, added with {@link #addArchivedFileSet(ArchivedFileSet)}, are copied to the
+ * archive as they are: the compressed data is written together with the original CRC and sizes, without inflating
+ * and deflating it again, so these entries keep their original compression. Only the <i>ExportInfo</i> files of these
+ * archives are read, to be merged. Raw copy is used for archived file sets without prefix, stream transformer or file
+ * selectors; other archived file sets are added as regular resources. The copied entries are written after the
+ * regular resources.
  */
 public class SbarArchiver extends AbstractArchiver {
 
-    //XML namespace
-    private static final String NS_XMLNS = "http://www.w3.org/2000/xmlns/";
-    private static final String NS_XMLNS_PREFIX = "xmlns";
-
     //ExportInfo file namespace
     private static final String NS_IMPORT_EXPORT = "http://www.bea.com/wli/config/importexport";
     private static final String NS_IMPORT_EXPORT_PREFIX = "imp";
@@ -81,18 +104,46 @@ public class SbarArchiver extends AbstractArchiver {
     private static final String ATTRIBUTE_PROJECT_LEVEL_EXPORT = "projectLevelExport";
 
     //General settings
-    private static final int BUFFER_SIZE = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int EXPORT_INFO_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_THREADS = 1;
+    private static final int PENDING_ENTRIES_PER_THREAD = 4;
     private static final String ARCHIVE_TYPE = "sbar";
+    private static final String ARCHIVE_EXTENSION = ".sbar";
+    private static final String DEFAULT_ARCHIVE_ENCODING = "UTF8";
     private static final String FILENAME_EXPORT_INFO = "ExportInfo";
-    private static final String DEFAULT_ENCODING = "UTF8";
+    private static final String DEFAULT_ENCODING = "UTF-8";
+    private static final String XML_VERSION = "1.0";
 
     //Output streams
     private FileOutputStream fileOutputStream;
     private BufferedOutputStream bufferedOutputStream;
-    private ZipOutputStream sbarOutputSteam;
+    private ZipArchiveOutputStream sbarOutputSteam;
+
+    //Number of threads used to deflate entries
+    private int threads = DEFAULT_THREADS;
+
+    //Compression method and deflate level of the entries
+    private Compression compression = Compression.DEFLATED;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
 
     //List containing all export info files which have to be merged into one
-    private List<Document> exportInfoFiles = new ArrayList<Document>();
+    private List<PlexusIoResource> exportInfoFiles = new ArrayList<PlexusIoResource>();
+
+    //Archive entry names of the exported items to keep in the merged export info file, null to keep all items
+    private Set<String> exportedItemFilter;
+
+    //Archived sbar file sets of which the entries are copied without decompressing them
+    private List<RawArchive> rawArchives = new ArrayList<RawArchive>();
+
+    //Source sbar archives opened for raw copy, closed together with the archive
+    private List<ZipFile> openArchives = new ArrayList<ZipFile>();
+
+    //Statistics of the last created archive
+    private int entryCount;
+    private int copiedEntryCount;
+    private long uncompressedSize;
+    private long duration;
 
     /**
      * Default constructor.
@@ -102,35 +153,205 @@ public class SbarArchiver extends AbstractArchiver {
         setDuplicateBehavior(Archiver.DUPLICATES_ADD);
     }
 
+    /**
+     * Get the number of threads used to deflate archive entries.
+     *
+     * @return Number of threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set the number of threads used to deflate archive entries. A value of one (default) deflates all entries on the
+     * calling thread.
+     *
+     * @param threads Number of threads.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(DEFAULT_THREADS, threads);
+    }
+
+    /**
+     * Get the compression method of the archive entries.
+     *
+     * @return {@link Compression} method.
+     */
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Set the compression method of the archive entries. {@link Compression#DEFLATED} (default) deflates the entries
+     * with the {@link #setCompressionLevel(int)} level, {@link Compression#STORED} stores the entries uncompressed.
+     *
+     * @param compression {@link Compression} method.
+     */
+    public void setCompression(Compression compression) {
+        this.compression = compression != null ? compression : Compression.DEFLATED;
+    }
+
+    /**
+     * Get the deflate level of the archive entries.
+     *
+     * @return Deflate level.
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Set the deflate level of the archive entries, from 1 (fastest) to 9 (smallest), or -1 for the default level.
+     * For {@link Compression#STORED} archives the level only applies to the <i>ExportInfo</i> file.
+     *
+     * @param compressionLevel Deflate level.
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION &&
+            (compressionLevel < Deflater.BEST_SPEED || compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level [" + compressionLevel + "]");
+        }
+
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Limit the <i>exportedItemInfo</i> elements of the merged <i>ExportInfo</i> file to the items with a
+     * <i>jarentryname</i> property in the provided set. If the filter is null (default), all items are kept.
+     * <p>
+     * If a filter is set, the <i>projectLevelExport</i> property of the merged <i>ExportInfo</i> file is always false:
+     * importing a project level export removes all resources of the project that are not part of the archive, so a
+     * filtered archive imported as project level export would remove the filtered resources from the server.
+     *
+     * @param exportedItemFilter Archive entry names of the items to keep, can be null.
+     */
+    public void setExportedItemFilter(Set<String> exportedItemFilter) {
+        this.exportedItemFilter = exportedItemFilter;
+    }
+
+    /**
+     * Get the number of entries that were compressed and written to the last created archive, not including the
+     * <i>ExportInfo</i> file and the entries copied from other <i>sbar</i> archives.
+     *
+     * @return Number of entries.
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Get the number of entries that were copied from other <i>sbar</i> archives without recompressing them.
+     *
+     * @return Number of copied entries.
+     */
+    public int getCopiedEntryCount() {
+        return copiedEntryCount;
+    }
+
+    /**
+     * Get the number of <i>ExportInfo</i> files that were merged into the <i>ExportInfo</i> file of the last created
+     * archive.
+     *
+     * @return Number of <i>ExportInfo</i> files.
+     */
+    public int getExportInfoFileCount() {
+        return exportInfoFiles.size();
+    }
+
+    /**
+     * Get the uncompressed size of the entries that were compressed and written to the last created archive.
+     *
+     * @return Size in bytes.
+     */
+    public long getUncompressedSize() {
+        return uncompressedSize;
+    }
+
+    /**
+     * Get the time spent on writing the last created archive.
+     *
+     * @return Duration in milliseconds.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
     @Override
     protected String getArchiveType() {
         return ARCHIVE_TYPE;
     }
 
+    @Override
+    public void addArchivedFileSet(ArchivedFileSet fileSet) throws ArchiverException {
+        addArchivedFileSet(fileSet, null);
+    }
+
+    @Override
+    public void addArchivedFileSet(ArchivedFileSet fileSet, Charset charset) throws ArchiverException {
+        if (isRawCopySupported(fileSet)) {
+            if (!fileSet.getArchive().isFile()) {
+                throw new ArchiverException("Archive [" + fileSet.getArchive().getAbsolutePath() +
+                                            "] does not exist");
+            }
+
+            rawArchives.add(new RawArchive(fileSet, charset));
+        } else {
+            super.addArchivedFileSet(fileSet, charset);
+        }
+    }
+
+    @Override
+    protected boolean isUptodate() throws ArchiverException {
+        if (!super.isUptodate()) {
+            return false;
+        }
+
+        long destLastModified = getDestFile().lastModified();
+
+        for (RawArchive rawArchive : rawArchives) {
+            if (rawArchive.fileSet.getArchive().lastModified() > destLastModified) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
 
     @Override
     protected void execute() throws IOException, ArchiverException {
         ResourceIterator resources = getResources();
 
-        if (!resources.hasNext() && !hasVirtualFiles()) {
+        if (!resources.hasNext() && !hasVirtualFiles() && rawArchives.isEmpty()) {
             throw new ArchiverException("You must set at least one file.");
         }
 
         getLogger().info("Writing [" + getArchiveType() + "] archive...");
+        long start = System.currentTimeMillis();
+        entryCount = 0;
+        copiedEntryCount = 0;
+        uncompressedSize = 0L;
 
         fileOutputStream = new FileOutputStream(getDestFile());
         bufferedOutputStream = new BufferedOutputStream(fileOutputStream);
-        sbarOutputSteam = new ZipOutputStream(bufferedOutputStream);
+        sbarOutputSteam = new ZipArchiveOutputStream(bufferedOutputStream);
+        sbarOutputSteam.setLevel(compressionLevel);
 
-        while (resources.hasNext()) {
-            ArchiveEntry entry = resources.next();
+        if (threads > 1) {
+            addFilesParallel(resources);
+        } else {
+            while (resources.hasNext()) {
+                ArchiveEntry entry = resources.next();
 
-            if (entry.getResource().isFile()) {
-                addFile(entry);
+                if (entry.getResource().isFile()) {
+                    addFile(entry);
+                }
             }
         }
 
+        addRawArchives();
         addExportInfoFile();
+        duration = System.currentTimeMillis() - start;
 
         getLogger().info("Archive completed: [" + getDestFile() + "].");
     }
@@ -140,92 +361,342 @@ public class SbarArchiver extends AbstractArchiver {
         IOUtils.closeQuietly(sbarOutputSteam);
         IOUtils.closeQuietly(bufferedOutputStream);
         IOUtils.closeQuietly(fileOutputStream);
+
+        for (ZipFile openArchive : openArchives) {
+            ZipFile.closeQuietly(openArchive);
+        }
+
+        openArchives.clear();
+    }
+
+    /**
+     * Check if the entries of an archived file set can be copied without decompressing them. This is the case for
+     * <i>sbar</i> archives without prefix, stream transformer or file selectors, since these would change the name
+     * or content of the entries.
+     *
+     * @param fileSet Archived file set as {@link ArchivedFileSet} instance.
+     * @return TRUE if the entries can be copied as they are, FALSE otherwise.
+     */
+    private boolean isRawCopySupported(ArchivedFileSet fileSet) {
+        return fileSet.getArchive() != null &&
+               fileSet.getArchive().getName().toLowerCase(Locale.ENGLISH).endsWith(ARCHIVE_EXTENSION) &&
+               (fileSet.getPrefix() == null || fileSet.getPrefix().isEmpty()) &&
+               fileSet.getStreamTransformer() == null &&
+               (fileSet.getFileSelectors() == null || fileSet.getFileSelectors().length == 0);
+    }
+
+    /**
+     * Copy the selected entries of all registered <i>sbar</i> archives to the archive. The compressed data of every
+     * entry is copied as it is, together with the CRC and sizes of the source entry. The <i>ExportInfo</i> files are
+     * not copied, but registered for merging. The source archives stay open until the archive is closed, since the
+     * <i>ExportInfo</i> files are read when the merged <i>ExportInfo</i> file is written.
+     *
+     * @throws ArchiverException
+     */
+    private void addRawArchives() throws ArchiverException {
+        for (RawArchive rawArchive : rawArchives) {
+            File archive = rawArchive.fileSet.getArchive();
+            getLogger().debug("Copying entries of [" + archive.getAbsolutePath() + "] to archive");
+
+            try {
+                ZipFile zipFile =
+                    new ZipFile(archive, rawArchive.charset != null ? rawArchive.charset.name() :
+                                         DEFAULT_ARCHIVE_ENCODING);
+                openArchives.add(zipFile);
+
+                final Set<String> selectedEntries = selectRawEntries(zipFile, rawArchive.fileSet);
+                copiedEntryCount += selectedEntries.size();
+                zipFile.copyRawEntries(sbarOutputSteam, new ZipArchiveEntryPredicate() {
+                    @Override
+                    public boolean test(ZipArchiveEntry entry) {
+                        return selectedEntries.contains(entry.getName());
+                    }
+                });
+            } catch (IOException ex) {
+                throw new ArchiverException("IOException occurred while copying entries of [" +
+                                            archive.getAbsolutePath() + "] to archive", ex);
+            }
+        }
+    }
+
+    /**
+     * Select the entries of a source <i>sbar</i> archive that are copied to the archive, using the includes and
+     * excludes of the archived file set. Directories are skipped and <i>ExportInfo</i> files are registered for
+     * merging instead of being selected.
+     *
+     * @param zipFile Source archive as {@link ZipFile} instance.
+     * @param fileSet Archived file set as {@link ArchivedFileSet} instance.
+     * @return Names of the entries to copy.
+     * @throws IOException
+     */
+    private Set<String> selectRawEntries(ZipFile zipFile, ArchivedFileSet fileSet) throws IOException {
+        IncludeExcludeFileSelector selector = new IncludeExcludeFileSelector();
+        selector.setIncludes(fileSet.getIncludes());
+        selector.setExcludes(fileSet.getExcludes());
+        selector.setCaseSensitive(fileSet.isCaseSensitive());
+        selector.setUseDefaultExcludes(fileSet.isUsingDefaultExcludes());
+
+        Set<String> result = new HashSet<String>();
+        Enumeration<ZipArchiveEntry> entries = zipFile.getEntriesInPhysicalOrder();
+
+        while (entries.hasMoreElements()) {
+            ZipArchiveEntry entry = entries.nextElement();
+            PlexusIoResource resource = new ZipEntryResource(zipFile, entry);
+
+            if (entry.isDirectory() || !selector.isSelected(resource)) {
+                continue;
+            }
+
+            if (FILENAME_EXPORT_INFO.equalsIgnoreCase(entry.getName())) {
+                exportInfoFiles.add(resource);
+            } else {
+                getLogger().debug("Adding file [" + entry.getName() + "] to archive");
+                result.add(entry.getName());
+            }
+        }
+
+        return result;
     }
 
     /**
      * Add file to archive. If provided {@link ArchiveEntry} is the <i>ExportInfo</i> file, this fill will not (yet) be
-     * added to the archive, but will be locally stored in memory. Use {@link #addExportInfoFile()}, after adding all
+     * added to the archive, but will be registered for merging. Use {@link #addExportInfoFile()}, after adding all
      * files to the archive, to add the <i>ExportInfo</i> file.
      *
      * @param entry File to add to the archive as {@link ArchiveEntry}.
      * @throws ArchiverException
      */
     private void addFile(ArchiveEntry entry) throws ArchiverException {
-        PlexusIoResource resource = entry.getResource();
-
-        if (ResourceUtils.isSame(resource, getDestFile())) {
-            throw new ArchiverException("A sbar file cannot include itself");
-        }
-
-        if (FILENAME_EXPORT_INFO.equalsIgnoreCase(entry.getName())) {
+        if (isExportInfo(entry)) {
             addContentToExportInfo(entry);
         } else {
             getLogger().debug("Adding file [" + entry.getName() + "] to archive");
+            writeCompressedEntry(compressEntry(entry));
+        }
+    }
 
-            try {
-                addFileToArchive(resource.getName(), resource.getContents());
-            } catch (IOException ex) {
-                throw new ArchiverException("ArchiverException occurred while adding file to archive", ex);
+    /**
+     * Add all files to the archive, deflating the entries on a pool of {@link #threads} workers. The deflated entries
+     * are written to the archive in the order of the provided resources. The number of deflated entries waiting to be
+     * written is bounded, so memory usage does not depend on the size of the archive.
+     *
+     * @param resources Files to add to the archive as {@link ResourceIterator}.
+     * @throws ArchiverException
+     */
+    private void addFilesParallel(ResourceIterator resources) throws ArchiverException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Deque<Future<CompressedEntry>> pendingEntries = new ArrayDeque<Future<CompressedEntry>>();
+
+        try {
+            while (resources.hasNext()) {
+                final ArchiveEntry entry = resources.next();
+
+                if (!entry.getResource().isFile()) {
+                    continue;
+                }
+
+                if (isExportInfo(entry)) {
+                    addContentToExportInfo(entry);
+                } else {
+                    getLogger().debug("Adding file [" + entry.getName() + "] to archive");
+                    pendingEntries.add(executor.submit(new Callable<CompressedEntry>() {
+                        @Override
+                        public CompressedEntry call() throws ArchiverException {
+                            return compressEntry(entry);
+                        }
+                    }));
+
+                    if (pendingEntries.size() >= threads * PENDING_ENTRIES_PER_THREAD) {
+                        writeCompressedEntry(awaitCompressedEntry(pendingEntries.poll()));
+                    }
+                }
+            }
+
+            while (!pendingEntries.isEmpty()) {
+                writeCompressedEntry(awaitCompressedEntry(pendingEntries.poll()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Wait for an entry to be deflated by one of the workers.
+     *
+     * @param future {@link Future} of the deflated entry.
+     * @return Compressed entry as {@link CompressedEntry} instance.
+     * @throws ArchiverException
+     */
+    private CompressedEntry awaitCompressedEntry(Future<CompressedEntry> future) throws ArchiverException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ArchiverException("Interrupted while deflating archive entries", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof ArchiverException) {
+                throw (ArchiverException) ex.getCause();
             }
+
+            throw new ArchiverException("Exception occurred while deflating archive entry", ex.getCause());
         }
     }
 
     /**
-     * Locally store <i>ExportInfo</i> file. This has to be done so all <i>ExportInfo</i> files can be merged to add
-     * one single <i>ExportInfo</i> file to the archive.
+     * Check if the provided {@link ArchiveEntry} is an <i>ExportInfo</i> file.
+     *
+     * @param entry File to add to the archive as {@link ArchiveEntry}.
+     * @return TRUE if the entry is an <i>ExportInfo</i> file, FALSE otherwise.
+     * @throws ArchiverException
+     */
+    private boolean isExportInfo(ArchiveEntry entry) throws ArchiverException {
+        if (ResourceUtils.isSame(entry.getResource(), getDestFile())) {
+            throw new ArchiverException("A sbar file cannot include itself");
+        }
+
+        return FILENAME_EXPORT_INFO.equalsIgnoreCase(entry.getName());
+    }
+
+    /**
+     * Register <i>ExportInfo</i> file. This has to be done so all <i>ExportInfo</i> files can be merged to add one
+     * single <i>ExportInfo</i> file to the archive. Only the resource is kept, the content is read when the merged
+     * <i>ExportInfo</i> file is written.
      *
      * @param entry <i>ExportInfo</i> file to add to the archive as {@link ArchiveEntry}.
+     */
+    private void addContentToExportInfo(ArchiveEntry entry) {
+        exportInfoFiles.add(entry.getResource());
+    }
+
+    /**
+     * Compress the content of an {@link ArchiveEntry}.
+     *
+     * @param entry File to add to the archive as {@link ArchiveEntry}.
+     * @return Compressed entry as {@link CompressedEntry} instance.
      * @throws ArchiverException
      */
-    private void addContentToExportInfo(ArchiveEntry entry) throws ArchiverException {
-        InputStream inputStream = null;
-        StringWriter writer = new StringWriter();
+    private CompressedEntry compressEntry(ArchiveEntry entry) throws ArchiverException {
+        PlexusIoResource resource = entry.getResource();
 
         try {
-            IOUtils.copy(entry.getInputStream(), writer, DEFAULT_ENCODING);
+            return compress(entry.getName(), resource.getLastModified(), resource.getSize(), resource.getContents());
+        } catch (IOException ex) {
+            throw new ArchiverException("ArchiverException occurred while adding file to archive", ex);
+        }
+    }
+
+    /**
+     * Compress file content. The content is read into a buffer of the expected size while the CRC is computed. For
+     * {@link Compression#STORED} entries this buffer is kept as entry content; otherwise the buffer is deflated and
+     * the raw deflate data is kept. The entry can then be written to the archive without compressing it again.
+     *
+     * @param fileName Filename of the file.
+     * @param lastModified Last modification time of the file.
+     * @param expectedSize Expected size of the file, or a negative value if unknown.
+     * @param inputStream {@link InputStream} with content of the file.
+     * @return Compressed entry as {@link CompressedEntry} instance.
+     * @throws ArchiverException
+     */
+    private CompressedEntry compress(String fileName, long lastModified, long expectedSize,
+                                     InputStream inputStream) throws ArchiverException {
+        try {
+            byte[] content = readFully(inputStream, expectedSize);
+            CRC32 crc = new CRC32();
+            crc.update(content, 0, content.length);
 
-            DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-            Document xmlDocument = docBuilder.parse(new ByteArrayInputStream(writer.toString().getBytes()));
+            if (compression == Compression.STORED) {
+                return new CompressedEntry(fileName, lastModified, ZipEntry.STORED, content.length, crc.getValue(),
+                                           content);
+            }
 
-            exportInfoFiles.add(xmlDocument);
+            return new CompressedEntry(fileName, lastModified, ZipEntry.DEFLATED, content.length, crc.getValue(),
+                                       deflate(content));
         } catch (IOException ex) {
-            throw new ArchiverException("IOException occurred while reading ExportInfo file", ex);
-        } catch (ParserConfigurationException ex) {
-            throw new ArchiverException("ParserConfigurationException occurred while parsing ExportInfo file", ex);
-        } catch (SAXException ex) {
-            throw new ArchiverException("SAXException occurred while parsing ExportInfo file", ex);
+            throw new ArchiverException("IOException occurred while writing file to archive", ex);
         } finally {
             IOUtils.closeQuietly(inputStream);
-            IOUtils.closeQuietly(writer);
         }
     }
 
     /**
-     * Add file to archive.
+     * Read the complete content of a stream into a byte array. If the expected size is known, the array is allocated
+     * once with this size and no intermediate copies are made.
      *
-     * @param fileName Filename of the file.
-     * @param inputStream {@link InputStream} with content of the file.
-     * @throws ArchiverException
+     * @param inputStream {@link InputStream} to read.
+     * @param expectedSize Expected size of the content, or a negative value if unknown.
+     * @return Content of the stream.
+     * @throws IOException
+     */
+    private byte[] readFully(InputStream inputStream, long expectedSize) throws IOException {
+        if (expectedSize >= 0 && expectedSize <= Integer.MAX_VALUE) {
+            byte[] content = new byte[(int) expectedSize];
+            int length = IOUtils.read(inputStream, content);
+            int next = length == content.length ? inputStream.read() : -1;
+
+            if (next == -1) {
+                return length == content.length ? content : Arrays.copyOf(content, length);
+            }
+
+            //Content grew while reading, read the remaining content as stream
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length + BUFFER_SIZE);
+            outputStream.write(content, 0, length);
+            outputStream.write(next);
+            IOUtils.copyLarge(inputStream, outputStream, new byte[BUFFER_SIZE]);
+            return outputStream.toByteArray();
+        }
+
+        return IOUtils.toByteArray(inputStream);
+    }
+
+    /**
+     * Deflate content with the configured {@link #compressionLevel}.
+     *
+     * @param content Content to deflate.
+     * @return Raw deflate data.
      */
     @SuppressWarnings("oracle.jdeveloper.java.nested-assignment")
-    private void addFileToArchive(String fileName, InputStream inputStream) throws ArchiverException {
+    private byte[] deflate(byte[] content) {
+        Deflater deflater = new Deflater(compressionLevel, true);
+
         try {
-            int length;
+            ByteArrayOutputStream compressedContent =
+                new ByteArrayOutputStream(Math.max(BUFFER_SIZE, content.length / 2));
             byte[] buffer = new byte[BUFFER_SIZE];
-            sbarOutputSteam.putNextEntry(new ZipEntry(fileName));
+            int length;
 
-            while ((length = inputStream.read(buffer)) > 0) {
-                sbarOutputSteam.write(buffer, 0, length);
+            deflater.setInput(content);
+            deflater.finish();
+
+            while ((length = deflater.deflate(buffer)) > 0) {
+                compressedContent.write(buffer, 0, length);
             }
 
-            sbarOutputSteam.closeEntry();
+            return compressedContent.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Write compressed entry to archive.
+     *
+     * @param compressedEntry Compressed entry as {@link CompressedEntry} instance.
+     * @throws ArchiverException
+     */
+    private void writeCompressedEntry(CompressedEntry compressedEntry) throws ArchiverException {
+        ZipArchiveEntry zipEntry = new ZipArchiveEntry(compressedEntry.name);
+        zipEntry.setMethod(compressedEntry.method);
+        zipEntry.setTime(compressedEntry.lastModified);
+        zipEntry.setSize(compressedEntry.size);
+        zipEntry.setCompressedSize(compressedEntry.content.length);
+        zipEntry.setCrc(compressedEntry.crc);
+
+        try {
+            sbarOutputSteam.addRawArchiveEntry(zipEntry, new ByteArrayInputStream(compressedEntry.content));
+            entryCount++;
+            uncompressedSize += compressedEntry.size;
         } catch (IOException ex) {
             throw new ArchiverException("IOException occurred while writing file to archive", ex);
-        } finally {
-            if (inputStream != null) {
-                IOUtils.closeQuietly(inputStream);
-            }
         }
     }
 
@@ -238,14 +709,26 @@ public class SbarArchiver extends AbstractArchiver {
         if (exportInfoFiles.size() > 0) {
             getLogger().debug("Adding [" + FILENAME_EXPORT_INFO + "] to archive");
 
-            String exportInfoContent = constructExportInfoContent();
-            addFileToArchive(FILENAME_EXPORT_INFO, new ByteArrayInputStream(exportInfoContent.getBytes()));
+            ZipArchiveEntry zipEntry = new ZipArchiveEntry(FILENAME_EXPORT_INFO);
+            zipEntry.setMethod(ZipEntry.DEFLATED);
+            zipEntry.setTime(System.currentTimeMillis());
+
+            try {
+                sbarOutputSteam.putArchiveEntry(zipEntry);
+                writeExportInfoContent();
+                sbarOutputSteam.closeArchiveEntry();
+            } catch (IOException ex) {
+                throw new ArchiverException("IOException occurred while writing file to archive", ex);
+            }
         }
     }
 
     /**
-     * Merge all locally stored <i>ExportInfo</i> file into single <i>ExportInfo</i> file. This single file will be
-     * added to the archive by the {@link #addExportInfoFile()} method. The following properties will be used:
+     * Merge all registered <i>ExportInfo</i> files into single <i>ExportInfo</i> file, which is streamed to the
+     * current archive entry. The properties of every registered file are read once, after that the
+     * <i>exportedItemInfo</i> elements of every file are copied one by one. The content is buffered before it is
+     * deflated, so the many small writes of the XML writer do not each invoke the deflater. The following properties
+     * will be used:
      * <ul>
      *  <li><b>username:</b> ServiceBus</li>
      *  <li><b>description:</b> (empty)</li>
@@ -253,105 +736,136 @@ public class SbarArchiver extends AbstractArchiver {
      *  2016)</li>
      *  <li><b>productname:</b> Oracle Service Bus</li>
      *  <li><b>productversion:</b> 12.1.3.0.0</li>
-     *  <li><b>projectLevelExport:</b> true if all locally stored <i>ExportInfo</i> files have configured this setting
+     *  <li><b>projectLevelExport:</b> true if all registered <i>ExportInfo</i> files have configured this setting
      *  to true. If any of the <i>ExportInfo</i> files has the <i>projectLevelExport</i> property configured to false,
-     *  this property will be set to false.</li>
+     *  or an {@link #exportedItemFilter} is configured, this property will be set to false.</li>
      * </ul>
      *
-     * @return Content of the merged <i>ExportInfo</i> file as {@link String} instance.
      * @throws ArchiverException
      */
-    private String constructExportInfoContent() throws ArchiverException {
-        String result = null;
+    private void writeExportInfoContent() throws ArchiverException {
+        ExportInfoReader exportInfoReader = new ExportInfoReader();
+        List<Map<String, String>> exportInfoProperties = new ArrayList<Map<String, String>>();
+
+        for (PlexusIoResource exportInfoFile : exportInfoFiles) {
+            exportInfoProperties.add(getPropertiesFromExportInfo(exportInfoReader, exportInfoFile));
+        }
+
+        Map<String, String> properties = exportInfoProperties.get(0);
+        boolean projectLevelExport = isExportInfoProjectLevel(exportInfoProperties);
+
+        if (exportedItemFilter != null) {
+            if (projectLevelExport) {
+                getLogger().info("ExportInfo is limited to [" + exportedItemFilter.size() + "] items, " +
+                                 "projectLevelExport is set to false: resources that are not part of the archive " +
+                                 "are not deleted on import");
+            }
+
+            projectLevelExport = false;
+        }
+
+        BufferedOutputStream outputStream =
+            new BufferedOutputStream(new CloseShieldOutputStream(sbarOutputSteam), EXPORT_INFO_BUFFER_SIZE);
+        XMLEventWriter writer = null;
 
         try {
-            DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-            Document doc = docBuilder.newDocument();
-
-            Element xmlFragmentElement = doc.createElement(ELEMENT_XML_FRAGMENT);
-            xmlFragmentElement.setAttribute(ATTRIBUTE_NAME, getDestFile().getName());
-            xmlFragmentElement.setAttribute(ATTRIBUTE_VERSION, ATTRIBUTE_VERSION_VALUE);
-            xmlFragmentElement.setAttributeNS(NS_XMLNS, NS_XMLNS_PREFIX + ":" + NS_IMPORT_EXPORT_PREFIX,
-                                              NS_IMPORT_EXPORT);
-            doc.appendChild(xmlFragmentElement);
-
-            Element propertiesElement = doc.createElementNS(NS_IMPORT_EXPORT, ELEMENT_PROPERTIES);
-            propertiesElement.setPrefix(NS_IMPORT_EXPORT_PREFIX);
-            xmlFragmentElement.appendChild(propertiesElement);
-
-            addPropertyToExportInfo(doc, propertiesElement, ATTRIBUTE_USERNAME,
-                                    getPropertyFromFirstExportInfo(ATTRIBUTE_USERNAME));
-            addPropertyToExportInfo(doc, propertiesElement, ATTRIBUTE_DESCRIPTION,
-                                    getPropertyFromFirstExportInfo(ATTRIBUTE_DESCRIPTION));
-            addPropertyToExportInfo(doc, propertiesElement, ATTRIBUTE_EXPORTTIME,
+            XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+            XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+            outputFactory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, Boolean.TRUE);
+            writer = outputFactory.createXMLEventWriter(outputStream, DEFAULT_ENCODING);
+
+            writer.add(eventFactory.createStartDocument(DEFAULT_ENCODING, XML_VERSION));
+            writer.add(eventFactory.createStartElement("", "", ELEMENT_XML_FRAGMENT));
+            writer.add(eventFactory.createNamespace(NS_IMPORT_EXPORT_PREFIX, NS_IMPORT_EXPORT));
+            writer.add(eventFactory.createAttribute(ATTRIBUTE_NAME, getDestFile().getName()));
+            writer.add(eventFactory.createAttribute(ATTRIBUTE_VERSION, ATTRIBUTE_VERSION_VALUE));
+            writer.add(eventFactory.createStartElement(NS_IMPORT_EXPORT_PREFIX, NS_IMPORT_EXPORT, ELEMENT_PROPERTIES));
+
+            addPropertyToExportInfo(writer, eventFactory, ATTRIBUTE_USERNAME, properties.get(ATTRIBUTE_USERNAME));
+            addPropertyToExportInfo(writer, eventFactory, ATTRIBUTE_DESCRIPTION, properties.get(ATTRIBUTE_DESCRIPTION));
+            addPropertyToExportInfo(writer, eventFactory, ATTRIBUTE_EXPORTTIME,
                                     new SimpleDateFormat(ATTRIBUTE_EXPORTTIME_FORMAT,
                                                          Locale.ENGLISH).format(new Date()));
-            addPropertyToExportInfo(doc, propertiesElement, ATTRIBUTE_PRODUCTNAME,
-                                    getPropertyFromFirstExportInfo(ATTRIBUTE_PRODUCTNAME));
-            addPropertyToExportInfo(doc, propertiesElement, ATTRIBUTE_PRODUCTVERSION,
-                                    getPropertyFromFirstExportInfo(ATTRIBUTE_PRODUCTVERSION));
-            addPropertyToExportInfo(doc, propertiesElement, ATTRIBUTE_PROJECT_LEVEL_EXPORT,
-                                    isExportInfoProjectLevel() + "");
-
-            for (Document exportInfoFile : exportInfoFiles) {
-                XPath xPath = XPathFactory.newInstance().newXPath();
-                NodeList nodeList =
-                    (NodeList) xPath.compile("//*[local-name()='exportedItemInfo']").evaluate(exportInfoFile,
-                                                                                              XPathConstants.NODESET);
-
-                for (int i = 0; i < nodeList.getLength(); i++) {
-                    Node node = nodeList.item(i);
-                    xmlFragmentElement.appendChild(doc.adoptNode(node));
-                }
+            addPropertyToExportInfo(writer, eventFactory, ATTRIBUTE_PRODUCTNAME, properties.get(ATTRIBUTE_PRODUCTNAME));
+            addPropertyToExportInfo(writer, eventFactory, ATTRIBUTE_PRODUCTVERSION,
+                                    properties.get(ATTRIBUTE_PRODUCTVERSION));
+            addPropertyToExportInfo(writer, eventFactory, ATTRIBUTE_PROJECT_LEVEL_EXPORT, projectLevelExport + "");
+
+            writer.add(eventFactory.createEndElement(NS_IMPORT_EXPORT_PREFIX, NS_IMPORT_EXPORT, ELEMENT_PROPERTIES));
+
+            for (PlexusIoResource exportInfoFile : exportInfoFiles) {
+                copyExportedItemInfo(exportInfoReader, exportInfoFile, writer);
             }
 
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            StringWriter writer = new StringWriter();
-            transformer.transform(new DOMSource(doc), new StreamResult(writer));
-            result = writer.getBuffer().toString();
-        } catch (ParserConfigurationException ex) {
-            throw new ArchiverException("ParserConfigurationException occurred while merging ExportInfo files", ex);
-        } catch (XPathExpressionException ex) {
-            throw new ArchiverException("ParserConfigurationException occurred while merging ExportInfo files", ex);
-        } catch (TransformerConfigurationException ex) {
-            throw new ArchiverException("TransformerConfigurationException occurred while merging ExportInfo files",
-                                        ex);
-        } catch (TransformerException ex) {
-            throw new ArchiverException("TransformerException occurred while merging ExportInfo files", ex);
+            writer.add(eventFactory.createEndElement("", "", ELEMENT_XML_FRAGMENT));
+            writer.add(eventFactory.createEndDocument());
+            writer.flush();
+            outputStream.flush();
+        } catch (XMLStreamException ex) {
+            throw new ArchiverException("XMLStreamException occurred while merging ExportInfo files", ex);
+        } catch (IOException ex) {
+            throw new ArchiverException("IOException occurred while writing ExportInfo file to archive", ex);
+        } finally {
+            closeQuietly(writer);
         }
+    }
 
-        return result;
+    /**
+     * Copy all <i>exportedItemInfo</i> elements from an <i>ExportInfo</i> file to the merged <i>ExportInfo</i> file.
+     * If an {@link #exportedItemFilter} is configured, the events of a single item are buffered until the end of the
+     * item, and the item is only copied if its <i>jarentryname</i> property is in the filter.
+     *
+     * @param exportInfoReader {@link ExportInfoReader} of the merge.
+     * @param exportInfo <i>ExportInfo</i> file as {@link PlexusIoResource} instance.
+     * @param writer {@link XMLEventWriter} of the merged <i>ExportInfo</i> file.
+     * @throws ArchiverException
+     */
+    private void copyExportedItemInfo(ExportInfoReader exportInfoReader, PlexusIoResource exportInfo,
+                                      XMLEventWriter writer) throws ArchiverException {
+        InputStream inputStream = null;
+
+        try {
+            inputStream = exportInfo.getContents();
+            exportInfoReader.copyExportedItems(inputStream, writer, exportedItemFilter);
+        } catch (IOException ex) {
+            throw new ArchiverException("IOException occurred while reading ExportInfo file", ex);
+        } catch (XMLStreamException ex) {
+            throw new ArchiverException("XMLStreamException occurred while merging ExportInfo files", ex);
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
     }
 
     /**
      * Add property to merged <i>ExportInfo</i> file.
      *
-     * @param doc XML document of the <i>ExportInfo</i> file.
-     * @param propertiesElement Properties element within the <i>ExportInfo</i> file.
+     * @param writer {@link XMLEventWriter} of the merged <i>ExportInfo</i> file.
+     * @param eventFactory {@link XMLEventFactory} to create the property element.
      * @param name Name of the property.
      * @param value Value of the property.
+     * @throws XMLStreamException
      */
-    private void addPropertyToExportInfo(Document doc, Element propertiesElement, String name, String value) {
-        Element propertyElement = doc.createElementNS(NS_IMPORT_EXPORT, ELEMENT_PROPERTY);
-        propertyElement.setAttribute(ATTRIBUTE_NAME, name);
-        propertyElement.setAttribute(ATTRIBUTE_VALUE, value);
-        propertiesElement.appendChild(propertyElement);
+    private void addPropertyToExportInfo(XMLEventWriter writer, XMLEventFactory eventFactory, String name,
+                                         String value) throws XMLStreamException {
+        writer.add(eventFactory.createStartElement(NS_IMPORT_EXPORT_PREFIX, NS_IMPORT_EXPORT, ELEMENT_PROPERTY));
+        writer.add(eventFactory.createAttribute(ATTRIBUTE_NAME, name));
+        writer.add(eventFactory.createAttribute(ATTRIBUTE_VALUE, value == null ? "" : value));
+        writer.add(eventFactory.createEndElement(NS_IMPORT_EXPORT_PREFIX, NS_IMPORT_EXPORT, ELEMENT_PROPERTY));
     }
 
     /**
-     * Method to check if any of the locally stored <i>ExportInfo</i> files has configured the <i>projectLevelExport</i>
+     * Method to check if any of the registered <i>ExportInfo</i> files has configured the <i>projectLevelExport</i>
      * property to false.
      *
+     * @param exportInfoProperties Properties of the registered <i>ExportInfo</i> files.
      * @return If any of the <i>ExportInfo</i> files has configured this property to false. This method will return
      * false. If all of the <i>ExportInfo</i> files have configured this property to true, this method will return true.
-     * @throws ArchiverException
      */
-    private boolean isExportInfoProjectLevel() throws ArchiverException {
+    private boolean isExportInfoProjectLevel(List<Map<String, String>> exportInfoProperties) {
         boolean result = true;
 
-        for (Document doc : exportInfoFiles) {
-            String projectLevelExport = getPropertyFromExportInfo(doc, ATTRIBUTE_PROJECT_LEVEL_EXPORT);
+        for (Map<String, String> properties : exportInfoProperties) {
+            String projectLevelExport = properties.get(ATTRIBUTE_PROJECT_LEVEL_EXPORT);
             result = "TRUE".equalsIgnoreCase(projectLevelExport);
 
             if (!result) {
@@ -363,42 +877,123 @@ public class SbarArchiver extends AbstractArchiver {
     }
 
     /**
-     * Method to retreive property value from first <i>ExportInfo</i> file in {@link exportInfoFiles} array.
+     * Method to retreive the properties from the <i>properties</i> element of an <i>ExportInfo</i> file. The file is
+     * read up to the end of the <i>properties</i> element, the <i>exportedItemInfo</i> elements are not read.
      *
-     * @param property Property name.
-     * @return Property value.
+     * @param exportInfoReader {@link ExportInfoReader} of the merge.
+     * @param exportInfo <i>ExportInfo</i> file as {@link PlexusIoResource} instance.
+     * @return Property values by property name.
      * @throws ArchiverException
      */
-    private String getPropertyFromFirstExportInfo(String property) throws ArchiverException {
-        String result = null;
+    private Map<String, String> getPropertiesFromExportInfo(ExportInfoReader exportInfoReader,
+                                                            PlexusIoResource exportInfo) throws ArchiverException {
+        InputStream inputStream = null;
 
-        if (exportInfoFiles.size() >= 1) {
-            result = getPropertyFromExportInfo(exportInfoFiles.get(0), property);
+        try {
+            inputStream = exportInfo.getContents();
+            return exportInfoReader.readProperties(inputStream);
+        } catch (IOException ex) {
+            throw new ArchiverException("IOException occurred while reading ExportInfo file", ex);
+        } catch (XMLStreamException ex) {
+            throw new ArchiverException("Failed to read properties from ExportInfo file", ex);
+        } finally {
+            IOUtils.closeQuietly(inputStream);
         }
-
-        return result;
     }
 
     /**
-     * Method to retreive property value from <i>ExportInfo</i> file.
+     * Close {@link XMLEventWriter} without throwing exceptions. The underlying archive stream is not closed.
      *
-     * @param exportInfo <i>ExportInfo</i> file as {@link Document} instance.
-     * @param property Property name.
-     * @return Property value.
-     * @throws ArchiverException
+     * @param writer {@link XMLEventWriter} to close, can be null.
      */
-    private String getPropertyFromExportInfo(Document exportInfo, String property) throws ArchiverException {
-        String result = null;
-
+    private static void closeQuietly(XMLEventWriter writer) {
         try {
-            XPath xPath = XPathFactory.newInstance().newXPath();
-            result =
-                xPath.compile("/xml-fragment/*[local-name()='properties']/*[local-name()='property' and @name='" +
-                              property + "']/@value").evaluate(exportInfo);
-        } catch (XPathExpressionException ex) {
-            throw new ArchiverException("Failed to read property [" + property + "] from ExportInfo file", ex);
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (XMLStreamException ex) {
+            //Ignore
         }
+    }
 
-        return result;
+    /**
+     * Archived <i>sbar</i> file set of which the entries are copied without decompressing them.
+     */
+    private static class RawArchive {
+        private final ArchivedFileSet fileSet;
+        private final Charset charset;
+
+        /**
+         * Constructor.
+         *
+         * @param fileSet Archived file set.
+         * @param charset Encoding of the entry names, null for UTF-8.
+         */
+        RawArchive(ArchivedFileSet fileSet, Charset charset) {
+            this.fileSet = fileSet;
+            this.charset = charset;
+        }
+    }
+
+    /**
+     * Entry of a source <i>sbar</i> archive as {@link PlexusIoResource}, used to select entries and to read the
+     * <i>ExportInfo</i> files of the source archives.
+     */
+    private static class ZipEntryResource extends AbstractPlexusIoResource {
+        private final ZipFile zipFile;
+        private final ZipArchiveEntry entry;
+
+        /**
+         * Constructor.
+         *
+         * @param zipFile Source archive.
+         * @param entry Entry of the source archive.
+         */
+        ZipEntryResource(ZipFile zipFile, ZipArchiveEntry entry) {
+            super(entry.getName(), entry.getTime(), entry.getSize(), !entry.isDirectory(), entry.isDirectory(), true);
+            this.zipFile = zipFile;
+            this.entry = entry;
+        }
+
+        @Override
+        public InputStream getContents() throws IOException {
+            return zipFile.getInputStream(entry);
+        }
+
+        @Override
+        public URL getURL() throws IOException {
+            return null;
+        }
+    }
+
+    /**
+     * Compressed archive entry, waiting to be written to the archive.
+     */
+    private static class CompressedEntry {
+        private final String name;
+        private final long lastModified;
+        private final int method;
+        private final long size;
+        private final long crc;
+        private final byte[] content;
+
+        /**
+         * Constructor.
+         *
+         * @param name Filename of the entry.
+         * @param lastModified Last modification time of the entry.
+         * @param method Compression method, {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}.
+         * @param size Uncompressed size of the entry.
+         * @param crc CRC-32 checksum of the uncompressed content.
+         * @param content Stored content or raw deflate data.
+         */
+        CompressedEntry(String name, long lastModified, int method, long size, long crc, byte[] content) {
+            this.name = name;
+            this.lastModified = lastModified;
+            this.method = method;
+            this.size = size;
+            this.crc = crc;
+            this.content = content;
+        }
     }
-}
\ No newline at end of file
+}
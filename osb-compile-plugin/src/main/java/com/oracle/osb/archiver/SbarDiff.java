@@ -0,0 +1,200 @@
+package com.oracle.osb.archiver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Comparison of two <i>sbar</i> archives, based on the central directories read by the {@link SbarReader}. Entries
+ * are compared by CRC and size: a different CRC or size proves that the content changed, so the resources of the
+ * archives are compared without reading their content. Only the <i>ExportInfo</i> files are read when their CRC or
+ * size differs, because they contain the export time of the archive and differ for every export; their properties are
+ * compared instead, ignoring the export time.
+ */
+public class SbarDiff {
+
+    //General settings
+    private static final String FILENAME_EXPORT_INFO = "ExportInfo";
+    private static final String PROPERTY_EXPORT_TIME = "exporttime";
+
+    private final SbarReader base;
+    private final SbarReader target;
+    private final List<String> added = new ArrayList<String>();
+    private final List<String> removed = new ArrayList<String>();
+    private final List<String> modified = new ArrayList<String>();
+    private final List<String> propertyChanges = new ArrayList<String>();
+    private final ExportInfoReader exportInfoReader = new ExportInfoReader();
+    private int unchangedCount;
+
+    /**
+     * Constructor.
+     *
+     * @param base Archive to compare with, for example the previous release.
+     * @param target Archive to compare, for example the current build.
+     */
+    public SbarDiff(SbarReader base, SbarReader target) {
+        this.base = base;
+        this.target = target;
+    }
+
+    /**
+     * Compare the archives. Directory entries are ignored.
+     *
+     * @throws IOException If an <i>ExportInfo</i> file cannot be read.
+     * @throws XMLStreamException If an <i>ExportInfo</i> file cannot be parsed.
+     */
+    public void compare() throws IOException, XMLStreamException {
+        Set<String> names = new TreeSet<String>();
+        names.addAll(getResourceNames(base));
+        names.addAll(getResourceNames(target));
+
+        for (String name : names) {
+            SbarReader.Entry baseEntry = base.getEntry(name);
+            SbarReader.Entry targetEntry = target.getEntry(name);
+
+            if (baseEntry == null) {
+                added.add(name);
+            } else if (targetEntry == null) {
+                removed.add(name);
+            } else if (baseEntry.getCrc() != targetEntry.getCrc() || baseEntry.getSize() != targetEntry.getSize()) {
+                modified.add(name);
+            } else {
+                unchangedCount++;
+            }
+        }
+
+        compareExportInfo();
+    }
+
+    /**
+     * Get the entries that are only part of the target archive.
+     *
+     * @return Sorted entry names.
+     */
+    public List<String> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * Get the entries that are only part of the base archive.
+     *
+     * @return Sorted entry names.
+     */
+    public List<String> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * Get the entries of which the content differs.
+     *
+     * @return Sorted entry names.
+     */
+    public List<String> getModified() {
+        return Collections.unmodifiableList(modified);
+    }
+
+    /**
+     * Get the changes of the <i>ExportInfo</i> properties, except the export time.
+     *
+     * @return Changes, formatted as <i>name: [base value] -&gt; [target value]</i>.
+     */
+    public List<String> getPropertyChanges() {
+        return Collections.unmodifiableList(propertyChanges);
+    }
+
+    /**
+     * Get the number of entries that are the same in both archives.
+     *
+     * @return Number of unchanged entries.
+     */
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * Check if the archives have any difference.
+     *
+     * @return TRUE if entries were added, removed or modified, or export properties changed, FALSE otherwise.
+     */
+    public boolean hasChanges() {
+        return !added.isEmpty() || !removed.isEmpty() || !modified.isEmpty() || !propertyChanges.isEmpty();
+    }
+
+    /**
+     * Compare the properties of the <i>ExportInfo</i> files, if the files differ.
+     *
+     * @throws IOException
+     * @throws XMLStreamException
+     */
+    private void compareExportInfo() throws IOException, XMLStreamException {
+        SbarReader.Entry baseEntry = base.getEntry(FILENAME_EXPORT_INFO);
+        SbarReader.Entry targetEntry = target.getEntry(FILENAME_EXPORT_INFO);
+
+        if (baseEntry != null && targetEntry != null && baseEntry.getCrc() == targetEntry.getCrc() &&
+            baseEntry.getSize() == targetEntry.getSize()) {
+            return;
+        }
+
+        Map<String, String> baseProperties = readProperties(base, baseEntry);
+        Map<String, String> targetProperties = readProperties(target, targetEntry);
+        Set<String> names = new TreeSet<String>(baseProperties.keySet());
+        names.addAll(targetProperties.keySet());
+        names.remove(PROPERTY_EXPORT_TIME);
+
+        for (String name : names) {
+            String baseValue = baseProperties.get(name);
+            String targetValue = targetProperties.get(name);
+
+            if (baseValue == null ? targetValue != null : !baseValue.equals(targetValue)) {
+                propertyChanges.add(name + ": [" + baseValue + "] -> [" + targetValue + "]");
+            }
+        }
+    }
+
+    /**
+     * Read the properties of the <i>ExportInfo</i> file of an archive.
+     *
+     * @param reader Archive.
+     * @param entry <i>ExportInfo</i> entry, can be null.
+     * @return Property values by property name, empty if the archive has no <i>ExportInfo</i> file.
+     * @throws IOException
+     * @throws XMLStreamException
+     */
+    private Map<String, String> readProperties(SbarReader reader,
+                                               SbarReader.Entry entry) throws IOException, XMLStreamException {
+        if (entry == null) {
+            return new HashMap<String, String>();
+        }
+
+        return exportInfoReader.readProperties(new ByteArrayInputStream(reader.read(entry)));
+    }
+
+    /**
+     * Get the names of the resource entries of an archive: all entries except directories and the <i>ExportInfo</i>
+     * file.
+     *
+     * @param reader Archive.
+     * @return Entry names.
+     */
+    private static Set<String> getResourceNames(SbarReader reader) {
+        Set<String> result = new HashSet<String>();
+
+        for (SbarReader.Entry entry : reader.getEntries()) {
+            if (!entry.isDirectory() && !FILENAME_EXPORT_INFO.equals(entry.getName())) {
+                result.add(entry.getName());
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,520 @@
+package com.oracle.osb.archiver;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Random-access reader of <i>sbar</i> archives. The archive is memory-mapped, and only the end of central directory
+ * record and the central directory are read when the archive is opened, so the entries of an archive are listed
+ * without reading the entry data, whatever the size of the archive. The content of an entry is read on request with
+ * {@link #read(Entry)}, from the mapped archive, and checked against the CRC of the central directory.
+ * <p>
+ * Archives up to 2 GB are mapped as a whole, larger archives are mapped per region. Zip64 archives, as written for
+ * archives of more than 65535 entries or 4 GB, are supported. Only the stored and deflated methods are supported,
+ * which are the methods of <i>sbar</i> archives. A reader can be used by several threads at the same time.
+ */
+public class SbarReader implements Closeable {
+
+    //Record signatures
+    private static final int SIGNATURE_LOCAL_HEADER = 0x04034b50;
+    private static final int SIGNATURE_CENTRAL_HEADER = 0x02014b50;
+    private static final int SIGNATURE_END = 0x06054b50;
+    private static final int SIGNATURE_ZIP64_END = 0x06064b50;
+    private static final int SIGNATURE_ZIP64_LOCATOR = 0x07064b50;
+
+    //Record sizes
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_SIZE = 22;
+    private static final int ZIP64_END_SIZE = 56;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    //Zip64 settings
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_SHORT = 0xFFFF;
+
+    //General settings
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Charset CP437 = Charset.forName("IBM437");
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final long length;
+    private final ByteBuffer mappedFile;
+    private final List<Entry> entries;
+    private final Map<String, Entry> entriesByName;
+
+    /**
+     * Constructor. Maps the archive and reads the central directory.
+     *
+     * @param file <i>sbar</i> archive.
+     * @throws IOException If the archive cannot be read or is not a valid zip archive.
+     */
+    public SbarReader(File file) throws IOException {
+        this.file = file;
+        this.randomAccessFile = new RandomAccessFile(file, "r");
+
+        try {
+            this.channel = randomAccessFile.getChannel();
+            this.length = channel.size();
+            this.mappedFile = length <= Integer.MAX_VALUE ? map(0L, length) : null;
+            this.entries = Collections.unmodifiableList(readCentralDirectory());
+        } catch (IOException ex) {
+            randomAccessFile.close();
+            throw ex;
+        } catch (RuntimeException ex) {
+            randomAccessFile.close();
+            throw new IOException("Archive [" + file.getAbsolutePath() + "] is not a valid zip archive", ex);
+        }
+
+        this.entriesByName = new HashMap<String, Entry>(entries.size() * 2);
+
+        for (Entry entry : entries) {
+            entriesByName.put(entry.name, entry);
+        }
+    }
+
+    /**
+     * Get the archive file.
+     *
+     * @return <i>sbar</i> archive.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Get all entries of the archive, in the order of the central directory.
+     *
+     * @return Entries of the archive.
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Get an entry by name.
+     *
+     * @param name Entry name.
+     * @return {@link Entry} instance, or null if the archive has no entry with this name.
+     */
+    public Entry getEntry(String name) {
+        return entriesByName.get(name);
+    }
+
+    /**
+     * Read the content of an entry. The content is inflated if the entry is deflated, and checked against the CRC of
+     * the entry.
+     *
+     * @param entry Entry of this archive.
+     * @return Uncompressed content of the entry.
+     * @throws IOException If the entry cannot be read, has an unsupported compression method or a wrong CRC.
+     */
+    public byte[] read(Entry entry) throws IOException {
+        if (entry.size > Integer.MAX_VALUE - 1 || entry.compressedSize > Integer.MAX_VALUE - 1) {
+            throw new IOException("Entry [" + entry.name + "] is too large to be read");
+        }
+
+        ByteBuffer header = map(entry.localHeaderOffset, LOCAL_HEADER_SIZE);
+
+        if (header.getInt(0) != SIGNATURE_LOCAL_HEADER) {
+            throw new IOException("Invalid local header of entry [" + entry.name + "]");
+        }
+
+        long dataOffset =
+            entry.localHeaderOffset + LOCAL_HEADER_SIZE + getUnsignedShort(header, 26) + getUnsignedShort(header, 28);
+        ByteBuffer data = map(dataOffset, entry.compressedSize);
+        byte[] result;
+
+        if (entry.method == ZipEntry.STORED) {
+            if (entry.size != entry.compressedSize) {
+                throw new IOException("Stored entry [" + entry.name + "] has different sizes");
+            }
+
+            result = new byte[(int) entry.size];
+            data.get(result);
+        } else if (entry.method == ZipEntry.DEFLATED) {
+            //The inflater needs an extra dummy byte at the end of the input when the zlib header is omitted
+            byte[] input = new byte[(int) entry.compressedSize + 1];
+            data.get(input, 0, (int) entry.compressedSize);
+            result = inflate(entry, input);
+        } else {
+            throw new IOException("Unsupported compression method [" + entry.method + "] of entry [" + entry.name +
+                                  "]");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(result);
+
+        if (crc.getValue() != entry.crc) {
+            throw new IOException("CRC of entry [" + entry.name + "] does not match");
+        }
+
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        randomAccessFile.close();
+    }
+
+    /**
+     * Inflate the content of a deflated entry.
+     *
+     * @param entry Deflated entry.
+     * @param input Compressed content, followed by a dummy byte.
+     * @return Uncompressed content.
+     * @throws IOException If the compressed content is invalid or shorter than the entry size.
+     */
+    private static byte[] inflate(Entry entry, byte[] input) throws IOException {
+        byte[] result = new byte[(int) entry.size];
+        Inflater inflater = new Inflater(true);
+
+        try {
+            inflater.setInput(input);
+            int offset = 0;
+
+            while (offset < result.length) {
+                int count = inflater.inflate(result, offset, result.length - offset);
+
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Unexpected end of deflated entry [" + entry.name + "]");
+                }
+
+                offset += count;
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException("Invalid deflated data in entry [" + entry.name + "]", ex);
+        } finally {
+            inflater.end();
+        }
+
+        return result;
+    }
+
+    /**
+     * Read all entries from the central directory.
+     *
+     * @return Entries in the order of the central directory.
+     * @throws IOException If the archive is not a valid zip archive.
+     */
+    private List<Entry> readCentralDirectory() throws IOException {
+        long endOffset = findEnd();
+        ByteBuffer end = map(endOffset, END_SIZE);
+        long entryCount = getUnsignedShort(end, 10);
+        long directorySize = getUnsignedInt(end, 12);
+        long directoryOffset = getUnsignedInt(end, 16);
+
+        if (entryCount == ZIP64_MAGIC_SHORT || directorySize == ZIP64_MAGIC || directoryOffset == ZIP64_MAGIC) {
+            ByteBuffer zip64End = map(findZip64End(endOffset), ZIP64_END_SIZE);
+            entryCount = zip64End.getLong(32);
+            directorySize = zip64End.getLong(40);
+            directoryOffset = zip64End.getLong(48);
+        }
+
+        if (directoryOffset < 0 || directorySize < 0 || directoryOffset + directorySize > length) {
+            throw new IOException("Invalid central directory in archive [" + file.getAbsolutePath() + "]");
+        }
+
+        ByteBuffer directory = map(directoryOffset, directorySize);
+        List<Entry> result = new ArrayList<Entry>((int) Math.min(entryCount, Integer.MAX_VALUE));
+        int position = 0;
+
+        for (long i = 0; i < entryCount; i++) {
+            if (directory.getInt(position) != SIGNATURE_CENTRAL_HEADER) {
+                throw new IOException("Invalid central directory header in archive [" + file.getAbsolutePath() + "]");
+            }
+
+            int nameLength = getUnsignedShort(directory, position + 28);
+            int extraLength = getUnsignedShort(directory, position + 30);
+            int commentLength = getUnsignedShort(directory, position + 32);
+            Entry entry = new Entry();
+            entry.method = getUnsignedShort(directory, position + 10);
+            entry.dosTime = getUnsignedInt(directory, position + 12);
+            entry.crc = getUnsignedInt(directory, position + 16);
+            entry.compressedSize = getUnsignedInt(directory, position + 20);
+            entry.size = getUnsignedInt(directory, position + 24);
+            entry.localHeaderOffset = getUnsignedInt(directory, position + 42);
+            entry.name =
+                getString(directory, position + CENTRAL_HEADER_SIZE, nameLength,
+                          (getUnsignedShort(directory, position + 8) & FLAG_UTF8) != 0 ? UTF8 : CP437);
+            readZip64Extra(entry, directory, position + CENTRAL_HEADER_SIZE + nameLength, extraLength);
+            result.add(entry);
+
+            position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+
+        return result;
+    }
+
+    /**
+     * Find the end of central directory record, searching backwards from the end of the archive, since the record is
+     * followed by the archive comment.
+     *
+     * @return Offset of the end of central directory record.
+     * @throws IOException If the archive has no end of central directory record.
+     */
+    private long findEnd() throws IOException {
+        long searchStart = Math.max(0L, length - END_SIZE - MAX_COMMENT_SIZE);
+        ByteBuffer tail = map(searchStart, length - searchStart);
+
+        for (int position = tail.limit() - END_SIZE; position >= 0; position--) {
+            if (tail.getInt(position) == SIGNATURE_END &&
+                position + END_SIZE + getUnsignedShort(tail, position + 20) == tail.limit()) {
+                return searchStart + position;
+            }
+        }
+
+        throw new IOException("Archive [" + file.getAbsolutePath() + "] is not a valid zip archive");
+    }
+
+    /**
+     * Find the Zip64 end of central directory record with the locator that precedes the end of central directory
+     * record.
+     *
+     * @param endOffset Offset of the end of central directory record.
+     * @return Offset of the Zip64 end of central directory record.
+     * @throws IOException If the archive has no valid Zip64 end of central directory record.
+     */
+    private long findZip64End(long endOffset) throws IOException {
+        if (endOffset >= ZIP64_LOCATOR_SIZE) {
+            ByteBuffer locator = map(endOffset - ZIP64_LOCATOR_SIZE, ZIP64_LOCATOR_SIZE);
+
+            if (locator.getInt(0) == SIGNATURE_ZIP64_LOCATOR) {
+                long zip64EndOffset = locator.getLong(8);
+
+                if (zip64EndOffset >= 0 && zip64EndOffset + ZIP64_END_SIZE <= length &&
+                    map(zip64EndOffset, 4).getInt(0) == SIGNATURE_ZIP64_END) {
+                    return zip64EndOffset;
+                }
+            }
+        }
+
+        throw new IOException("Invalid Zip64 end of central directory in archive [" + file.getAbsolutePath() + "]");
+    }
+
+    /**
+     * Read the sizes and local header offset of an entry from the Zip64 extra field, for the values that are too large
+     * for the central directory header.
+     *
+     * @param entry Entry.
+     * @param directory Central directory.
+     * @param position Position of the extra fields of the entry.
+     * @param extraLength Length of the extra fields of the entry.
+     */
+    private static void readZip64Extra(Entry entry, ByteBuffer directory, int position, int extraLength) {
+        if (entry.size != ZIP64_MAGIC && entry.compressedSize != ZIP64_MAGIC &&
+            entry.localHeaderOffset != ZIP64_MAGIC) {
+            return;
+        }
+
+        int end = position + extraLength;
+
+        while (position + 4 <= end) {
+            int headerId = getUnsignedShort(directory, position);
+            int dataSize = getUnsignedShort(directory, position + 2);
+            int dataPosition = position + 4;
+
+            if (headerId == ZIP64_EXTRA_ID) {
+                if (entry.size == ZIP64_MAGIC) {
+                    entry.size = directory.getLong(dataPosition);
+                    dataPosition += 8;
+                }
+
+                if (entry.compressedSize == ZIP64_MAGIC) {
+                    entry.compressedSize = directory.getLong(dataPosition);
+                    dataPosition += 8;
+                }
+
+                if (entry.localHeaderOffset == ZIP64_MAGIC) {
+                    entry.localHeaderOffset = directory.getLong(dataPosition);
+                }
+
+                return;
+            }
+
+            position = dataPosition + dataSize;
+        }
+    }
+
+    /**
+     * Get a little-endian view of a region of the archive. The region is a view of the archive mapping if the archive
+     * is mapped as a whole, otherwise the region is mapped on its own.
+     *
+     * @param offset Offset of the region.
+     * @param size Size of the region.
+     * @return {@link ByteBuffer} of the region, positioned at its start.
+     * @throws IOException If the region is not part of the archive.
+     */
+    private ByteBuffer map(long offset, long size) throws IOException {
+        if (offset < 0 || size < 0 || offset + size > length || size > Integer.MAX_VALUE) {
+            throw new IOException("Invalid region [" + offset + ", " + size + "] of archive [" +
+                                  file.getAbsolutePath() + "]");
+        }
+
+        ByteBuffer result;
+
+        if (mappedFile != null) {
+            result = mappedFile.duplicate();
+            result.position((int) offset);
+            result.limit((int) (offset + size));
+            result = result.slice();
+        } else {
+            result = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        }
+
+        return result.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Get an unsigned 16 bit value.
+     *
+     * @param buffer Little-endian buffer.
+     * @param position Position of the value.
+     * @return Value.
+     */
+    private static int getUnsignedShort(ByteBuffer buffer, int position) {
+        return buffer.getShort(position) & 0xFFFF;
+    }
+
+    /**
+     * Get an unsigned 32 bit value.
+     *
+     * @param buffer Little-endian buffer.
+     * @param position Position of the value.
+     * @return Value.
+     */
+    private static long getUnsignedInt(ByteBuffer buffer, int position) {
+        return buffer.getInt(position) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Decode a string.
+     *
+     * @param buffer Buffer.
+     * @param position Position of the string.
+     * @param size Size of the string in bytes.
+     * @param charset Character set of the string.
+     * @return Decoded string.
+     */
+    private static String getString(ByteBuffer buffer, int position, int size, Charset charset) {
+        byte[] bytes = new byte[size];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.get(bytes);
+
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Convert a DOS date and time, as stored in the central directory, to Java time.
+     *
+     * @param dosTime DOS time in the low 16 bits, DOS date in the high 16 bits.
+     * @return Time in milliseconds since the epoch, in the local time zone.
+     */
+    @SuppressWarnings("deprecation")
+    private static long dosToJavaTime(long dosTime) {
+        return new Date((int) ((dosTime >> 25) & 0x7f) + 80, (int) ((dosTime >> 21) & 0x0f) - 1,
+                        (int) ((dosTime >> 16) & 0x1f), (int) ((dosTime >> 11) & 0x1f),
+                        (int) ((dosTime >> 5) & 0x3f), (int) ((dosTime << 1) & 0x3e)).getTime();
+    }
+
+    /**
+     * Entry of an <i>sbar</i> archive, as listed in the central directory.
+     */
+    public static class Entry {
+
+        private String name;
+        private int method;
+        private long dosTime;
+        private long crc;
+        private long compressedSize;
+        private long size;
+        private long localHeaderOffset;
+
+        /**
+         * Get the entry name.
+         *
+         * @return Entry name, directories end with a slash.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Check if the entry is a directory.
+         *
+         * @return TRUE if the entry is a directory, FALSE otherwise.
+         */
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        /**
+         * Get the compression method.
+         *
+         * @return {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}.
+         */
+        public int getMethod() {
+            return method;
+        }
+
+        /**
+         * Get the modification time.
+         *
+         * @return Time in milliseconds since the epoch.
+         */
+        public long getTime() {
+            return dosToJavaTime(dosTime);
+        }
+
+        /**
+         * Get the CRC-32 of the uncompressed content.
+         *
+         * @return CRC-32 value.
+         */
+        public long getCrc() {
+            return crc;
+        }
+
+        /**
+         * Get the compressed size.
+         *
+         * @return Compressed size in bytes.
+         */
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        /**
+         * Get the uncompressed size.
+         *
+         * @return Uncompressed size in bytes.
+         */
+        public long getSize() {
+            return size;
+        }
+    }
+}
@@ -1,15 +1,58 @@
 package com.oracle.osb.archiver;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+
+import org.codehaus.plexus.archiver.ArchiverException;
 import org.codehaus.plexus.archiver.zip.ZipUnArchiver;
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.components.io.fileselectors.FileSelector;
 
 /**
  * Class to unarchive <i>sbar</i> archive files. To achieve this, the <i>sbar</i> just has to be unpacked like a
  * <i>zip</i> file. This class is an extension of the {@link ZipUnArchiver}.
+ * <p>
+ * When {@link #setThreads(int)} is configured with more than one thread, or the extraction is limited to some resource
+ * types with {@link #setResourceTypes(Set)}, the archive is extracted with the {@link SbarReader}: the archive is
+ * memory-mapped, the entries to extract are selected from the central directory, and the entries are extracted by a
+ * worker pool. Every entry is read into a buffer of the exact entry size and written to its file in a single write, so
+ * the file is allocated at its final size. The data of entries that are not selected is not read. The
+ * <i>ExportInfo</i> file is always extracted, so the extracted resources can be archived again. The directories of
+ * the extracted files are created before the workers are started.
+ * <p>
+ * If file selectors are configured, the archive is extracted by the {@link ZipUnArchiver}, one entry at a time, with
+ * the resource types as an additional file selector.
  */
 public class SbarUnArchiver extends ZipUnArchiver {
 
+    //General settings
+    private static final int DEFAULT_THREADS = 1;
+    private static final String FILENAME_EXPORT_INFO = "ExportInfo";
+    private static final String SEPARATOR = "/";
+    private static final String TYPE_SEPARATOR = ".";
+
+    //Number of threads used to extract entries
+    private int threads = DEFAULT_THREADS;
+
+    //Type ids of the resources to extract, null to extract all entries
+    private Set<String> resourceTypes;
+
     /**
      * Default constructor.
      */
@@ -25,4 +68,285 @@ public class SbarUnArchiver extends ZipUnArchiver {
     public SbarUnArchiver(File file) {
         super(file);
     }
+
+    /**
+     * Get the number of threads used to extract entries.
+     *
+     * @return Number of threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set the number of threads used to extract entries. With more than one thread (default 1), the archive is
+     * memory-mapped and the entries are extracted concurrently.
+     *
+     * @param threads Number of threads, 0 for the number of available processors.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Get the type ids of the resources to extract.
+     *
+     * @return Type ids, null if all entries are extracted.
+     */
+    public Set<String> getResourceTypes() {
+        return resourceTypes;
+    }
+
+    /**
+     * Limit the extraction to resources of some types. The type of a resource is the extension of its entry name
+     * (example: <i>SBProject/Resources/xsd/one.XMLSchema</i> has type <i>XMLSchema</i>). The <i>ExportInfo</i> file is
+     * always extracted.
+     *
+     * @param resourceTypes Type ids of the resources to extract, null to extract all entries.
+     */
+    public void setResourceTypes(Set<String> resourceTypes) {
+        this.resourceTypes = resourceTypes != null ? new HashSet<String>(resourceTypes) : null;
+    }
+
+    @Override
+    protected void execute() throws ArchiverException {
+        execute(null, getDestDirectory());
+    }
+
+    @Override
+    protected void execute(String path, File outputDirectory) throws ArchiverException {
+        if (getFileSelectors() != null && getFileSelectors().length > 0) {
+            executeSelected(path, outputDirectory);
+        } else if (threads > 1 || resourceTypes != null) {
+            executeMapped(path, outputDirectory);
+        } else if (path == null) {
+            super.execute();
+        } else {
+            super.execute(path, outputDirectory);
+        }
+    }
+
+    /**
+     * Extract the archive with the {@link ZipUnArchiver} and the configured file selectors. If resource types are
+     * configured, a file selector for these types is added during the extraction.
+     *
+     * @param path Path prefix of the entries to extract, null to extract all entries.
+     * @param outputDirectory Target directory.
+     * @throws ArchiverException
+     */
+    private void executeSelected(String path, File outputDirectory) throws ArchiverException {
+        FileSelector[] fileSelectors = getFileSelectors();
+
+        if (resourceTypes != null) {
+            FileSelector[] selectors = new FileSelector[fileSelectors.length + 1];
+            System.arraycopy(fileSelectors, 0, selectors, 0, fileSelectors.length);
+            selectors[fileSelectors.length] = new FileSelector() {
+                @Override
+                public boolean isSelected(FileInfo fileInfo) {
+                    return fileInfo.isDirectory() || isSelectedType(fileInfo.getName());
+                }
+            };
+            setFileSelectors(selectors);
+        }
+
+        try {
+            if (path == null) {
+                super.execute();
+            } else {
+                super.execute(path, outputDirectory);
+            }
+        } finally {
+            setFileSelectors(fileSelectors);
+        }
+    }
+
+    /**
+     * Extract the archive with the {@link SbarReader} and a worker pool of {@link #threads} threads.
+     *
+     * @param path Path prefix of the entries to extract, null to extract all entries.
+     * @param outputDirectory Target directory.
+     * @throws ArchiverException
+     */
+    private void executeMapped(String path, File outputDirectory) throws ArchiverException {
+        getLogger().info("Expanding: " + getSourceFile() + " into " + outputDirectory);
+        long start = System.currentTimeMillis();
+        SbarReader reader = null;
+
+        try {
+            reader = new SbarReader(getSourceFile());
+            List<SbarReader.Entry> entries = new ArrayList<SbarReader.Entry>();
+            List<File> files = new ArrayList<File>();
+            Set<File> directories = new TreeSet<File>();
+
+            for (SbarReader.Entry entry : reader.getEntries()) {
+                if ((path != null && !entry.getName().startsWith(path)) ||
+                    (!entry.isDirectory() && !isSelectedType(entry.getName())) ||
+                    (entry.isDirectory() && resourceTypes != null)) {
+                    continue;
+                }
+
+                File file = getTargetFile(outputDirectory, entry.getName());
+
+                if (entry.isDirectory()) {
+                    directories.add(file);
+                } else if (isOverwrite() || !file.exists() || file.lastModified() < entry.getTime()) {
+                    directories.add(file.getParentFile());
+                    entries.add(entry);
+                    files.add(file);
+                }
+            }
+
+            for (File directory : directories) {
+                if (!directory.mkdirs() && !directory.isDirectory()) {
+                    throw new ArchiverException("Unable to create directory [" + directory.getAbsolutePath() + "]");
+                }
+            }
+
+            extractEntries(reader, entries, files);
+            getLogger().debug("Extracted [" + entries.size() + "] entries with [" + threads + "] threads in [" +
+                              (System.currentTimeMillis() - start) + "] ms");
+        } catch (IOException ex) {
+            throw new ArchiverException("IOException occurred while extracting archive [" + getSourceFile() + "]",
+                                        ex);
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Extract entries to their files. With more than one thread, every worker takes the next entry that is not
+     * extracted yet, until all entries are extracted or an entry fails.
+     *
+     * @param reader Archive.
+     * @param entries Entries to extract.
+     * @param files Target files of the entries.
+     * @throws ArchiverException
+     */
+    private void extractEntries(final SbarReader reader, final List<SbarReader.Entry> entries,
+                                final List<File> files) throws ArchiverException {
+        int workerCount = Math.min(threads, entries.size());
+
+        if (workerCount <= 1) {
+            for (int i = 0; i < entries.size(); i++) {
+                extractEntry(reader, entries.get(i), files.get(i));
+            }
+
+            return;
+        }
+
+        final AtomicInteger nextEntry = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        List<Future<Void>> workers = new ArrayList<Future<Void>>(workerCount);
+
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                workers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    @SuppressWarnings("oracle.jdeveloper.java.nested-assignment")
+                    public Void call() throws ArchiverException {
+                        int index;
+
+                        while ((index = nextEntry.getAndIncrement()) < entries.size()) {
+                            extractEntry(reader, entries.get(index), files.get(index));
+                        }
+
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> worker : workers) {
+                awaitWorker(worker, nextEntry, entries.size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Wait for a worker to complete. If the worker failed, the other workers are stopped after their current entry.
+     *
+     * @param worker {@link Future} of the worker.
+     * @param nextEntry Index of the next entry to extract.
+     * @param entryCount Number of entries to extract.
+     * @throws ArchiverException
+     */
+    private void awaitWorker(Future<Void> worker, AtomicInteger nextEntry, int entryCount) throws ArchiverException {
+        try {
+            worker.get();
+        } catch (InterruptedException ex) {
+            nextEntry.set(entryCount);
+            Thread.currentThread().interrupt();
+            throw new ArchiverException("Interrupted while extracting archive entries", ex);
+        } catch (ExecutionException ex) {
+            nextEntry.set(entryCount);
+
+            if (ex.getCause() instanceof ArchiverException) {
+                throw (ArchiverException) ex.getCause();
+            }
+
+            throw new ArchiverException("Exception occurred while extracting archive entry", ex.getCause());
+        }
+    }
+
+    /**
+     * Extract a single entry. The content is written with a single write and the modification time of the entry is
+     * set on the file.
+     *
+     * @param reader Archive.
+     * @param entry Entry to extract.
+     * @param file Target file.
+     * @throws ArchiverException
+     */
+    private void extractEntry(SbarReader reader, SbarReader.Entry entry, File file) throws ArchiverException {
+        FileOutputStream outputStream = null;
+
+        try {
+            byte[] content = reader.read(entry);
+            outputStream = new FileOutputStream(file);
+            outputStream.write(content);
+            outputStream.close();
+            file.setLastModified(entry.getTime());
+        } catch (IOException ex) {
+            throw new ArchiverException("IOException occurred while extracting entry [" + entry.getName() + "]", ex);
+        } finally {
+            IOUtils.closeQuietly(outputStream);
+        }
+    }
+
+    /**
+     * Get the target file of an entry. Entries with an absolute path or a path that leaves the target directory are
+     * rejected.
+     *
+     * @param outputDirectory Target directory.
+     * @param name Entry name.
+     * @return Target file.
+     * @throws ArchiverException If the entry is outside of the target directory.
+     */
+    private File getTargetFile(File outputDirectory, String name) throws ArchiverException {
+        String normalizedName = FilenameUtils.normalizeNoEndSeparator(name, true);
+
+        if (normalizedName == null || FilenameUtils.getPrefixLength(normalizedName) != 0) {
+            throw new ArchiverException("Entry [" + name + "] is outside of the target directory");
+        }
+
+        return new File(outputDirectory, normalizedName);
+    }
+
+    /**
+     * Check if an entry is of one of the {@link #resourceTypes}. The <i>ExportInfo</i> file is always selected.
+     *
+     * @param name Entry name.
+     * @return TRUE if all entries are extracted or the entry type is selected, FALSE otherwise.
+     */
+    private boolean isSelectedType(String name) {
+        if (resourceTypes == null || FILENAME_EXPORT_INFO.equals(name)) {
+            return true;
+        }
+
+        String filename = name.substring(name.lastIndexOf(SEPARATOR) + 1);
+        int typeIndex = filename.lastIndexOf(TYPE_SEPARATOR);
+
+        return typeIndex >= 0 && resourceTypes.contains(filename.substring(typeIndex + 1));
+    }
 }
@@ -0,0 +1,177 @@
+package com.oracle.osb.build;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Scheduler of the packaging jobs of all OSB modules of a Maven session. In a parallel build (<i>mvn -T</i>) the
+ * modules are packaged concurrently, within two budgets that are configured by the first module that uses the
+ * scheduler:
+ * <ul>
+ *  <li>the maximum number of concurrent jobs, by default the number of available processors</li>
+ *  <li>the memory budget in megabytes, every job reserves the memory it is expected to use; 0 means no memory
+ *  budget</li>
+ * </ul>
+ * Every module writes its Configjar settings file and archive to its own build directory. If several modules share a
+ * build directory, their jobs would overwrite each others files, so the build directory is locked by
+ * {@link #lock(File)} for the whole packaging of a module and the jobs of these modules run one after the other.
+ * <p>
+ * The order of the modules (system modules before project modules) is not handled by the scheduler, but by the
+ * {@link ReactorOrderParticipant}, so a build thread never waits for a module that is not started yet.
+ */
+public final class BuildScheduler {
+
+    //Schedulers by execution request of the Maven session
+    private static final Map<MavenExecutionRequest, BuildScheduler> INSTANCES =
+        new WeakHashMap<MavenExecutionRequest, BuildScheduler>();
+
+    private final Map<String, ReentrantLock> directoryLocks = new HashMap<String, ReentrantLock>();
+    private final Semaphore jobPermits;
+    private final Semaphore memoryPermits;
+    private final int maxJobs;
+    private final int memoryBudget;
+
+    /**
+     * Constructor.
+     *
+     * @param maxJobs Maximum number of concurrent jobs.
+     * @param memoryBudget Memory budget in megabytes, 0 for no memory budget.
+     */
+    private BuildScheduler(int maxJobs, int memoryBudget) {
+        this.maxJobs = Math.max(1, maxJobs);
+        this.memoryBudget = Math.max(0, memoryBudget);
+        this.jobPermits = new Semaphore(this.maxJobs, true);
+        this.memoryPermits = this.memoryBudget > 0 ? new Semaphore(this.memoryBudget, true) : null;
+    }
+
+    /**
+     * Get the scheduler of a Maven session. The scheduler is created on first use and released together with the
+     * session. Maven builds every module with its own clone of the session, so the scheduler is looked up by the
+     * execution request of the session, which is shared by all clones; all modules of a build therefore get the same
+     * scheduler and the limits apply to the whole reactor.
+     *
+     * @param session Maven session.
+     * @param maxJobs Maximum number of concurrent jobs, 0 for the number of available processors. Only used when the
+     * scheduler is created.
+     * @param memoryBudget Memory budget in megabytes, 0 for no memory budget. Only used when the scheduler is created.
+     * @return {@link BuildScheduler} instance.
+     */
+    public static synchronized BuildScheduler getInstance(MavenSession session, int maxJobs, int memoryBudget) {
+        BuildScheduler result = INSTANCES.get(session.getRequest());
+
+        if (result == null) {
+            result =
+                new BuildScheduler(maxJobs > 0 ? maxJobs : Runtime.getRuntime().availableProcessors(), memoryBudget);
+            INSTANCES.put(session.getRequest(), result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the maximum number of concurrent jobs.
+     *
+     * @return Maximum number of concurrent jobs.
+     */
+    public int getMaxJobs() {
+        return maxJobs;
+    }
+
+    /**
+     * Get the memory budget.
+     *
+     * @return Memory budget in megabytes, 0 if there is no memory budget.
+     */
+    public int getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Lock a build directory for the current thread. Blocks while another module uses the same build directory. Every
+     * call has to be followed by a call to {@link #unlock(File)}.
+     *
+     * @param buildDir Build directory.
+     * @return TRUE if the thread had to wait for another module, FALSE otherwise.
+     * @throws IOException If the canonical path of the build directory could not be determined.
+     */
+    public boolean lock(File buildDir) throws IOException {
+        ReentrantLock lock = getLock(buildDir);
+
+        if (lock.tryLock()) {
+            return false;
+        }
+
+        lock.lock();
+        return true;
+    }
+
+    /**
+     * Unlock a build directory that is locked by the current thread.
+     *
+     * @param buildDir Build directory.
+     * @throws IOException If the canonical path of the build directory could not be determined.
+     */
+    public void unlock(File buildDir) throws IOException {
+        getLock(buildDir).unlock();
+    }
+
+    /**
+     * Run a job within the budgets. Blocks until a job slot and the memory of the job are available. The memory of a
+     * job is limited to the memory budget, so a job that needs more than the budget still runs, on its own.
+     *
+     * @param memory Expected memory usage of the job in megabytes.
+     * @param job Job.
+     * @return Result of the job.
+     * @throws Exception The exception of the job.
+     */
+    public <T> T run(int memory, Callable<T> job) throws Exception {
+        int reservedMemory = memoryPermits != null ? Math.max(0, Math.min(memory, memoryBudget)) : 0;
+
+        if (reservedMemory > 0) {
+            memoryPermits.acquire(reservedMemory);
+        }
+
+        try {
+            jobPermits.acquire();
+
+            try {
+                return job.call();
+            } finally {
+                jobPermits.release();
+            }
+        } finally {
+            if (reservedMemory > 0) {
+                memoryPermits.release(reservedMemory);
+            }
+        }
+    }
+
+    /**
+     * Get the lock of a build directory. The lock is created on first use.
+     *
+     * @param buildDir Build directory.
+     * @return {@link ReentrantLock} instance.
+     * @throws IOException If the canonical path of the build directory could not be determined.
+     */
+    private synchronized ReentrantLock getLock(File buildDir) throws IOException {
+        String key = buildDir.getCanonicalPath();
+        ReentrantLock lock = directoryLocks.get(key);
+
+        if (lock == null) {
+            lock = new ReentrantLock(true);
+            directoryLocks.put(key, lock);
+        }
+
+        return lock;
+    }
+}
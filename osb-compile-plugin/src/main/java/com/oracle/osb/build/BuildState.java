@@ -0,0 +1,140 @@
+package com.oracle.osb.build;
+
+import com.oracle.osb.configjar.ExportLevel;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.charset.Charset;
+
+import java.security.MessageDigest;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Content-addressed state of an <i>sbar</i> build. The state consists of hashes of the resolved fileset (paths and
+ * content), the Configjar settings file, the {@link ExportLevel}, the system setting and the archive settings. The
+ * content hashes are taken from the {@link ResourceIndex}, so unchanged resources are not read again. The state of the
+ * last successful build is stored next to the archive, so the next build can skip Configjar when nothing has changed.
+ */
+public class BuildState {
+
+    //State properties
+    private static final String PROPERTY_FILESET = "fileset";
+    private static final String PROPERTY_SETTINGS = "settings";
+    private static final String PROPERTY_EXPORT_LEVEL = "exportLevel";
+    private static final String PROPERTY_SYSTEM = "system";
+    private static final String PROPERTY_ARCHIVE = "archive";
+
+    //General settings
+    private static final Charset PATH_ENCODING = Charset.forName("UTF-8");
+    private static final String COMMENT = "OSB package build state";
+
+    private final Properties properties;
+
+    /**
+     * Constructor.
+     *
+     * @param properties State properties.
+     */
+    private BuildState(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Create the state of the current build.
+     *
+     * @param resourceIndex Refreshed {@link ResourceIndex} of the project, provides the content hashes.
+     * @param files Resolved fileset, paths relative to the project directory.
+     * @param settingsFile Configjar settings file.
+     * @param exportLevel Export level, project or resource.
+     * @param system True if the project is a system project.
+     * @param archive Archive settings that change the archive content, like the compression (example: DEFLATED:6),
+     * can be null.
+     * @return {@link BuildState} instance.
+     * @throws IOException
+     */
+    public static BuildState create(ResourceIndex resourceIndex, List<String> files, File settingsFile,
+                                    ExportLevel exportLevel, boolean system, String archive) throws IOException {
+        MessageDigest filesetDigest = ContentHash.newDigest();
+
+        for (String file : files) {
+            String hash = resourceIndex.getHash(file);
+
+            if (hash == null) {
+                throw new IOException("Resource [" + file + "] is not in the resource index");
+            }
+
+            filesetDigest.update(file.getBytes(PATH_ENCODING));
+            filesetDigest.update((byte) 0);
+            filesetDigest.update(hash.getBytes(PATH_ENCODING));
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty(PROPERTY_FILESET, ContentHash.toHex(filesetDigest.digest()));
+        properties.setProperty(PROPERTY_SETTINGS, ContentHash.of(settingsFile));
+        properties.setProperty(PROPERTY_EXPORT_LEVEL, String.valueOf(exportLevel));
+        properties.setProperty(PROPERTY_SYSTEM, String.valueOf(system));
+        properties.setProperty(PROPERTY_ARCHIVE, String.valueOf(archive));
+
+        return new BuildState(properties);
+    }
+
+    /**
+     * Load the state of the last successful build.
+     *
+     * @param stateFile Build state file.
+     * @return {@link BuildState} instance, or null if the state file does not exist.
+     * @throws IOException
+     */
+    public static BuildState load(File stateFile) throws IOException {
+        if (!stateFile.isFile()) {
+            return null;
+        }
+
+        InputStream inputStream = null;
+
+        try {
+            inputStream = new FileInputStream(stateFile);
+            Properties properties = new Properties();
+            properties.load(inputStream);
+            return new BuildState(properties);
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * Store the state of the current build.
+     *
+     * @param stateFile Build state file.
+     * @throws IOException
+     */
+    public void save(File stateFile) throws IOException {
+        OutputStream outputStream = null;
+
+        try {
+            outputStream = new FileOutputStream(stateFile);
+            properties.store(outputStream, COMMENT);
+        } finally {
+            IOUtils.closeQuietly(outputStream);
+        }
+    }
+
+    /**
+     * Check if this state is the same as the state of another build.
+     *
+     * @param other State of another build, can be null.
+     * @return TRUE if all hashes and settings are the same, FALSE otherwise.
+     */
+    public boolean isUnchanged(BuildState other) {
+        return other != null && properties.equals(other.properties);
+    }
+}
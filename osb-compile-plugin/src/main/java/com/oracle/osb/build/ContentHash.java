@@ -0,0 +1,117 @@
+package com.oracle.osb.build;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Utility class to calculate SHA-256 content hashes of files and streams.
+ */
+public final class ContentHash {
+
+    //General settings
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Private constructor, utility class.
+     */
+    private ContentHash() {
+    }
+
+    /**
+     * Create new {@link MessageDigest} instance.
+     *
+     * @return {@link MessageDigest} instance.
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not supported", ex);
+        }
+    }
+
+    /**
+     * Calculate digest of the content of a file.
+     *
+     * @param file File.
+     * @return Digest of the file content.
+     * @throws IOException
+     */
+    public static byte[] digest(File file) throws IOException {
+        InputStream inputStream = null;
+
+        try {
+            inputStream = new FileInputStream(file);
+            return digest(inputStream);
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * Calculate digest of the content of a stream. The stream is read to the end, but not closed.
+     *
+     * @param inputStream {@link InputStream} instance.
+     * @return Digest of the stream content.
+     * @throws IOException
+     */
+    @SuppressWarnings("oracle.jdeveloper.java.nested-assignment")
+    public static byte[] digest(InputStream inputStream) throws IOException {
+        int length;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        MessageDigest digest = newDigest();
+
+        while ((length = inputStream.read(buffer)) > 0) {
+            digest.update(buffer, 0, length);
+        }
+
+        return digest.digest();
+    }
+
+    /**
+     * Calculate hexadecimal content hash of a file.
+     *
+     * @param file File.
+     * @return Hexadecimal content hash.
+     * @throws IOException
+     */
+    public static String of(File file) throws IOException {
+        return toHex(digest(file));
+    }
+
+    /**
+     * Calculate hexadecimal content hash of a stream. The stream is read to the end, but not closed.
+     *
+     * @param inputStream {@link InputStream} instance.
+     * @return Hexadecimal content hash.
+     * @throws IOException
+     */
+    public static String of(InputStream inputStream) throws IOException {
+        return toHex(digest(inputStream));
+    }
+
+    /**
+     * Convert bytes to hexadecimal string.
+     *
+     * @param bytes Bytes.
+     * @return Hexadecimal string.
+     */
+    public static String toHex(byte[] bytes) {
+        StringBuilder result = new StringBuilder(bytes.length * 2);
+
+        for (byte b : bytes) {
+            result.append(Character.forDigit((b >> 4) & 0xf, 16));
+            result.append(Character.forDigit(b & 0xf, 16));
+        }
+
+        return result.toString();
+    }
+}
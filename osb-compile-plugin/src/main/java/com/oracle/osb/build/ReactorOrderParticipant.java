@@ -0,0 +1,136 @@
+package com.oracle.osb.build;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Lifecycle participant that orders the OSB modules of the reactor: every OSB project module gets a dependency on the
+ * OSB system modules (the modules of which the plugin is configured with <i>system</i> true), so the system modules
+ * are packaged first. The order is part of the project dependency graph that Maven builds after the projects are read,
+ * so a parallel build (<i>mvn -T</i>) never starts a project module before the system modules are completed, and no
+ * build thread has to wait for another module. The dependencies are added to the in-memory model only; they have type
+ * <i>pom</i>, are optional and do not change the installed pom files.
+ * <p>
+ * The participant is active when the plugin is loaded as build extension (<i>extensions</i> true).
+ */
+public class ReactorOrderParticipant extends AbstractMavenLifecycleParticipant {
+
+    //General settings
+    private static final String PLUGIN_KEY = "com.oracle.osb:osb-compile-plugin";
+    private static final String PARAMETER_SYSTEM = "system";
+    private static final String DEPENDENCY_TYPE = "pom";
+    private static final String DEPENDENCY_SCOPE = "provided";
+
+    @Override
+    public void afterProjectsRead(MavenSession session) throws MavenExecutionException {
+        List<MavenProject> systemProjects = new ArrayList<MavenProject>();
+        List<MavenProject> osbProjects = new ArrayList<MavenProject>();
+
+        for (MavenProject project : session.getProjects()) {
+            Plugin plugin = project.getPlugin(PLUGIN_KEY);
+
+            if (plugin == null) {
+                continue;
+            }
+
+            if (isSystem(plugin)) {
+                systemProjects.add(project);
+            } else {
+                osbProjects.add(project);
+            }
+        }
+
+        for (MavenProject project : osbProjects) {
+            for (MavenProject systemProject : systemProjects) {
+                if (!dependsOn(systemProject, project)) {
+                    addDependency(project, systemProject);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if the plugin is configured for a system project, in the plugin configuration or in the configuration of
+     * any execution.
+     *
+     * @param plugin Plugin of the project.
+     * @return TRUE if the plugin is configured with <i>system</i> true, FALSE otherwise.
+     */
+    private boolean isSystem(Plugin plugin) {
+        if (isSystem(plugin.getConfiguration())) {
+            return true;
+        }
+
+        for (PluginExecution execution : plugin.getExecutions()) {
+            if (isSystem(execution.getConfiguration())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Check if a plugin configuration has <i>system</i> true.
+     *
+     * @param configuration Plugin configuration, can be null.
+     * @return TRUE if the configuration has <i>system</i> true, FALSE otherwise.
+     */
+    private boolean isSystem(Object configuration) {
+        if (!(configuration instanceof Xpp3Dom)) {
+            return false;
+        }
+
+        Xpp3Dom system = ((Xpp3Dom) configuration).getChild(PARAMETER_SYSTEM);
+        return system != null && Boolean.parseBoolean(system.getValue());
+    }
+
+    /**
+     * Check if a project has a direct dependency on another project.
+     *
+     * @param project Project.
+     * @param other Other project.
+     * @return TRUE if the project depends on the other project, FALSE otherwise.
+     */
+    private boolean dependsOn(MavenProject project, MavenProject other) {
+        for (Dependency dependency : project.getDependencies()) {
+            if (other.getGroupId().equals(dependency.getGroupId()) &&
+                other.getArtifactId().equals(dependency.getArtifactId())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Add an ordering dependency on another project, unless the project already depends on it.
+     *
+     * @param project Project.
+     * @param other Project that has to be built first.
+     */
+    private void addDependency(MavenProject project, MavenProject other) {
+        if (dependsOn(project, other)) {
+            return;
+        }
+
+        Dependency dependency = new Dependency();
+        dependency.setGroupId(other.getGroupId());
+        dependency.setArtifactId(other.getArtifactId());
+        dependency.setVersion(other.getVersion());
+        dependency.setType(DEPENDENCY_TYPE);
+        dependency.setScope(DEPENDENCY_SCOPE);
+        dependency.setOptional(true);
+        project.getModel().addDependency(dependency);
+    }
+}
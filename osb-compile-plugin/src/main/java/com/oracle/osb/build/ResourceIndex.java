@@ -0,0 +1,286 @@
+package com.oracle.osb.build;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Persistent index of the files of an OSB project, holding the size, modification time and content hash of every
+ * resource. The index is stored next to the archive, so the package goal (for the {@link BuildState}) and the watch
+ * goal (with an index of its own) know which resources changed since their last run without hashing the whole
+ * project. Delta deployment does not use the index, since it compares the entries of the archive instead of the
+ * project files.
+ * <p>
+ * {@link #refresh(List)} only hashes files that are new or of which the modification time or size changed, so on a
+ * warm build the index is refreshed with a single <i>stat</i> per file. A file that was modified less than
+ * {@link #MODIFICATION_WINDOW} milliseconds before it was hashed could still be modified again without a change of its
+ * modification time, so its modification time is not trusted and the file is hashed again by the next refresh.
+ * <p>
+ * The index is stored as a text file with one line per resource: the resource path, its modification time, size and
+ * content hash, separated by tabs.
+ */
+public class ResourceIndex {
+
+    //Index file settings
+    private static final String HEADER = "#OSB resource index v1";
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final String ENCODING = "UTF-8";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //General settings
+    private static final String INDEX_FILENAME = "sbconfig.index";
+    private static final long MODIFICATION_WINDOW = 2000L;
+
+    private final File projectDir;
+    private final Map<String, Entry> entries = new TreeMap<String, Entry>();
+    private final Set<String> changedPaths = new TreeSet<String>();
+    private final Set<String> removedPaths = new TreeSet<String>();
+    private boolean modified;
+
+    /**
+     * Constructor.
+     *
+     * @param projectDir OSB project directory.
+     */
+    private ResourceIndex(File projectDir) {
+        this.projectDir = projectDir;
+    }
+
+    /**
+     * Get the location of the index file in a build directory.
+     *
+     * @param buildDir Build directory of the project, for example <i>.data/maven</i>.
+     * @return Index file.
+     */
+    public static File getIndexFile(File buildDir) {
+        return new File(buildDir, INDEX_FILENAME);
+    }
+
+    /**
+     * Load the index of a project. If the index file does not exist or has an unknown format, an empty index is
+     * returned.
+     *
+     * @param indexFile Index file.
+     * @param projectDir OSB project directory.
+     * @return {@link ResourceIndex} instance.
+     * @throws IOException
+     */
+    @SuppressWarnings("oracle.jdeveloper.java.nested-assignment")
+    public static ResourceIndex load(File indexFile, File projectDir) throws IOException {
+        ResourceIndex index = new ResourceIndex(projectDir);
+
+        if (!indexFile.isFile()) {
+            return index;
+        }
+
+        BufferedReader reader = null;
+
+        try {
+            reader =
+                new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), ENCODING), BUFFER_SIZE);
+
+            if (!HEADER.equals(reader.readLine())) {
+                return index;
+            }
+
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(FIELD_SEPARATOR);
+
+                if (fields.length == 4) {
+                    index.entries.put(fields[0],
+                                      new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3]));
+                }
+            }
+        } catch (NumberFormatException ex) {
+            index.entries.clear();
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+
+        return index;
+    }
+
+    /**
+     * Store the index.
+     *
+     * @param indexFile Index file.
+     * @throws IOException
+     */
+    public void save(File indexFile) throws IOException {
+        Writer writer = null;
+
+        try {
+            indexFile.getParentFile().mkdirs();
+            writer =
+                new BufferedWriter(new OutputStreamWriter(new FileOutputStream(indexFile), ENCODING), BUFFER_SIZE);
+            writer.write(HEADER);
+            writer.write('\n');
+
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write(FIELD_SEPARATOR);
+                writer.write(String.valueOf(entry.getValue().lastModified));
+                writer.write(FIELD_SEPARATOR);
+                writer.write(String.valueOf(entry.getValue().size));
+                writer.write(FIELD_SEPARATOR);
+                writer.write(entry.getValue().hash);
+                writer.write('\n');
+            }
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+
+        modified = false;
+    }
+
+    /**
+     * Refresh the index with the current files of the project. Files that are new or of which the modification time
+     * or size changed are hashed, entries of files that no longer exist are removed. The paths of the files of which
+     * the content changed and of the removed files are available with {@link #getChangedPaths()} and
+     * {@link #getRemovedPaths()} until the next refresh.
+     *
+     * @param files Files of the project, relative to the project directory and separated by slashes.
+     * @return TRUE if the content of any file changed or any file was removed, FALSE otherwise.
+     * @throws IOException
+     */
+    public boolean refresh(List<String> files) throws IOException {
+        Set<String> current = new HashSet<String>();
+        changedPaths.clear();
+        removedPaths.clear();
+
+        for (String path : files) {
+            current.add(path);
+            File file = new File(projectDir, path);
+            long lastModified = file.lastModified();
+            long size = file.length();
+            Entry entry = entries.get(path);
+
+            if (entry != null && entry.lastModified == lastModified && entry.size == size) {
+                continue;
+            }
+
+            String hash = ContentHash.of(file);
+
+            if (System.currentTimeMillis() - lastModified < MODIFICATION_WINDOW) {
+                lastModified = 0L;
+            }
+
+            if (entry == null || !entry.hash.equals(hash)) {
+                changedPaths.add(path);
+            }
+
+            entries.put(path, new Entry(lastModified, size, hash));
+            modified = true;
+        }
+
+        for (String path : entries.keySet()) {
+            if (!current.contains(path)) {
+                removedPaths.add(path);
+            }
+        }
+
+        if (!removedPaths.isEmpty()) {
+            entries.keySet().removeAll(removedPaths);
+            modified = true;
+        }
+
+        return !changedPaths.isEmpty() || !removedPaths.isEmpty();
+    }
+
+    /**
+     * Check if the index changed since it was loaded or saved, including changes of modification times only.
+     *
+     * @return TRUE if the index needs to be saved, FALSE otherwise.
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Get the content hash of a resource.
+     *
+     * @param path Path of the resource, relative to the project directory.
+     * @return Hexadecimal SHA-256 hash, or null if the resource is not in the index.
+     */
+    public String getHash(String path) {
+        Entry entry = entries.get(path);
+        return entry != null ? entry.hash : null;
+    }
+
+    /**
+     * Get the paths of all resources in the index.
+     *
+     * @return Sorted set of paths, relative to the project directory.
+     */
+    public Set<String> getPaths() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Get the paths of the resources that are new or of which the content changed during the last refresh.
+     *
+     * @return Sorted set of paths, relative to the project directory.
+     */
+    public Set<String> getChangedPaths() {
+        return Collections.unmodifiableSet(changedPaths);
+    }
+
+    /**
+     * Get the paths of the resources that were removed during the last refresh.
+     *
+     * @return Sorted set of paths, relative to the project directory.
+     */
+    public Set<String> getRemovedPaths() {
+        return Collections.unmodifiableSet(removedPaths);
+    }
+
+    /**
+     * Get the number of resources in the index.
+     *
+     * @return Number of resources.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Index entry holding the size, modification time and content hash of one resource.
+     */
+    private static class Entry {
+
+        private final long lastModified;
+        private final long size;
+        private final String hash;
+
+        /**
+         * Constructor.
+         *
+         * @param lastModified Modification time of the resource, 0 if it is not trusted.
+         * @param size Size of the resource.
+         * @param hash Content hash of the resource.
+         */
+        Entry(long lastModified, long size, String hash) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.oracle.osb.configjar;
+
+/**
+ * Engine that exports an OSB project to an <i>sbar</i> archive, based on the Configjar settings file generated by
+ * {@link ConfigJarSettings}. Engine instances are created by the {@link ConfigJarEngineFactory}.
+ */
+public interface ConfigJarEngine {
+
+    /**
+     * Export an OSB project to an <i>sbar</i> archive.
+     *
+     * @param request Export request.
+     * @return TRUE if the archive was created, FALSE otherwise.
+     * @throws Exception
+     */
+    boolean export(ExportRequest request) throws Exception;
+}
@@ -0,0 +1,40 @@
+package com.oracle.osb.configjar;
+
+import com.oracle.osb.fileset.FilesetCache;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Utility class to create {@link ConfigJarEngine} instances by engine name. Engines are created for every export and
+ * are not kept for the Maven session: the {@link ConfigJarExecEngine} starts the Configjar tool for every export, so
+ * its bootstrap cost is paid per module. There is no resident Configjar engine that is reused across modules.
+ */
+public final class ConfigJarEngineFactory {
+
+    /**
+     * Private constructor, utility class.
+     */
+    private ConfigJarEngineFactory() {
+    }
+
+    /**
+     * Create the engine with the provided name.
+     *
+     * @param name Engine name.
+     * @param filesetCache {@link FilesetCache} of the session, used by engines that resolve the fileset.
+     * @param log Maven log of the goal, used by engines that write the archive.
+     * @return {@link ConfigJarEngine} instance.
+     * @throws IllegalArgumentException If no engine exists with the provided name.
+     */
+    public static ConfigJarEngine create(String name, FilesetCache filesetCache, Log log) {
+        if (ConfigJarExecEngine.NAME.equals(name)) {
+            return new ConfigJarExecEngine();
+        } else if (NativeConfigJarEngine.NAME.equals(name)) {
+            return new NativeConfigJarEngine(new ConfigJarExecEngine(), filesetCache, log);
+        } else if (StubConfigJarEngine.NAME.equals(name)) {
+            return new StubConfigJarEngine();
+        }
+
+        throw new IllegalArgumentException("Unknown configjar engine [" + name + "]");
+    }
+}
@@ -0,0 +1,23 @@
+package com.oracle.osb.configjar;
+
+import oracle.sb.maven.plugin.configjar.ConfigJarExec;
+
+/**
+ * Implementation of {@link ConfigJarEngine} that uses the default Oracle {@link ConfigJarExec} class to execute the
+ * Configjar tool. {@link ConfigJarExec} is not known to be safe for use by multiple threads, so every export creates
+ * its own instance and pays the Configjar bootstrap cost.
+ */
+public class ConfigJarExecEngine implements ConfigJarEngine {
+
+    //Engine name
+    public static final String NAME = "configjar";
+
+    @Override
+    public boolean export(ExportRequest request) throws Exception {
+        if (request.getOracleHome() == null) {
+            throw new IllegalArgumentException("The Oracle home is required for the [" + NAME + "] engine");
+        }
+
+        return new ConfigJarExec().execute(request.getOracleHome(), request.getOutputDir());
+    }
+}
@@ -61,29 +61,42 @@ public class ConfigJarSettings {
      * @param exportLevel Export level, project or resource.
      * @param includes String array containing all files which have to be included in the sbar archive.
      * @param excludes String array containing all files which have to be excluded from the sbar archive.
+     * @return {@link File} instance of the generated Configjar settings file.
      * @throws ParserConfigurationException
      * @throws XmlException
      * @throws IOException
      */
-    public void create(MavenProject project, File sbarFile, File outputDir, boolean system, ExportLevel exportLevel,
+    public File create(MavenProject project, File sbarFile, File outputDir, boolean system, ExportLevel exportLevel,
                        String[] includes, String[] excludes, String projectDir) throws ParserConfigurationException, XmlException,
                                                                     IOException {
         String projectName = project.getBasedir().getName();
         //String projectDir = project.getBasedir().toString();
         String sbarLocation = sbarFile.toString();
-        String[] combinedExcludes = excludes;
-
-        if (system) {
-            combinedExcludes = (String[]) ArrayUtils.addAll(excludes, DEFAULT_SYSTEM_EXCLUDES);
-        } else {
-            combinedExcludes = (String[]) ArrayUtils.addAll(excludes, DEFAULT_PROJECT_EXCLUDES);
-        }
+        String[] combinedExcludes = getExcludes(system, excludes);
 
         File settingsFile = new File(outputDir, DEFAULT_FILENAME);
         XmlObject settings =
             constructConfigjarXML(exportLevel, system, projectName, projectDir, sbarLocation, includes,
                                   combinedExcludes);
         FileUtils.copyInputStreamToFile(settings.newInputStream(), settingsFile);
+
+        return settingsFile;
+    }
+
+    /**
+     * Get the excludes that will be written to the Configjar settings file. These are the provided excludes combined
+     * with the default system or project excludes.
+     *
+     * @param system True if the excludes are used for a system project.
+     * @param excludes String array containing all files which have to be excluded from the sbar archive.
+     * @return String array containing the provided excludes and the default excludes.
+     */
+    public String[] getExcludes(boolean system, String[] excludes) {
+        if (system) {
+            return (String[]) ArrayUtils.addAll(excludes, DEFAULT_SYSTEM_EXCLUDES);
+        } else {
+            return (String[]) ArrayUtils.addAll(excludes, DEFAULT_PROJECT_EXCLUDES);
+        }
     }
 
     /**
@@ -0,0 +1,163 @@
+package com.oracle.osb.configjar;
+
+import com.oracle.osb.archiver.Compression;
+import com.oracle.osb.metrics.BuildMetrics;
+
+import java.io.File;
+
+import java.util.zip.Deflater;
+
+/**
+ * Request to export an OSB project to an <i>sbar</i> archive with a {@link ConfigJarEngine}.
+ */
+public class ExportRequest {
+
+    private final File oracleHome;
+    private final File outputDir;
+    private final File settingsFile;
+    private final File sbarFile;
+    private final Compression compression;
+    private final int compressionLevel;
+    private final int threads;
+    private final BuildMetrics metrics;
+
+    /**
+     * Constructor.
+     *
+     * @param oracleHome Oracle home directory, can be null if the engine does not use the Oracle toolchain.
+     * @param outputDir Output directory containing the Configjar settings file.
+     * @param settingsFile Configjar settings file.
+     * @param sbarFile Location of the <i>sbar</i> archive.
+     */
+    public ExportRequest(File oracleHome, File outputDir, File settingsFile, File sbarFile) {
+        this(oracleHome, outputDir, settingsFile, sbarFile, Compression.DEFLATED, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param oracleHome Oracle home directory, can be null if the engine does not use the Oracle toolchain.
+     * @param outputDir Output directory containing the Configjar settings file.
+     * @param settingsFile Configjar settings file.
+     * @param sbarFile Location of the <i>sbar</i> archive.
+     * @param compression Compression method of the archive entries, only used by engines that write the archive.
+     * @param compressionLevel Deflate level of the archive entries, only used by engines that write the archive.
+     */
+    public ExportRequest(File oracleHome, File outputDir, File settingsFile, File sbarFile, Compression compression,
+                         int compressionLevel) {
+        this(oracleHome, outputDir, settingsFile, sbarFile, compression, compressionLevel, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param oracleHome Oracle home directory, can be null if the engine does not use the Oracle toolchain.
+     * @param outputDir Output directory containing the Configjar settings file.
+     * @param settingsFile Configjar settings file.
+     * @param sbarFile Location of the <i>sbar</i> archive.
+     * @param compression Compression method of the archive entries, only used by engines that write the archive.
+     * @param compressionLevel Deflate level of the archive entries, only used by engines that write the archive.
+     * @param metrics {@link BuildMetrics} the engine records its phases and counters in, can be null.
+     */
+    public ExportRequest(File oracleHome, File outputDir, File settingsFile, File sbarFile, Compression compression,
+                         int compressionLevel, BuildMetrics metrics) {
+        this(oracleHome, outputDir, settingsFile, sbarFile, compression, compressionLevel, 1, metrics);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param oracleHome Oracle home directory, can be null if the engine does not use the Oracle toolchain.
+     * @param outputDir Output directory containing the Configjar settings file.
+     * @param settingsFile Configjar settings file.
+     * @param sbarFile Location of the <i>sbar</i> archive.
+     * @param compression Compression method of the archive entries, only used by engines that write the archive.
+     * @param compressionLevel Deflate level of the archive entries, only used by engines that write the archive.
+     * @param threads Number of threads used to compress the archive entries, only used by engines that write the
+     * archive.
+     * @param metrics {@link BuildMetrics} the engine records its phases and counters in, can be null.
+     */
+    public ExportRequest(File oracleHome, File outputDir, File settingsFile, File sbarFile, Compression compression,
+                         int compressionLevel, int threads, BuildMetrics metrics) {
+        this.oracleHome = oracleHome;
+        this.outputDir = outputDir;
+        this.settingsFile = settingsFile;
+        this.sbarFile = sbarFile;
+        this.compression = compression;
+        this.compressionLevel = compressionLevel;
+        this.threads = threads;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Get the Oracle home directory.
+     *
+     * @return Oracle home directory, can be null.
+     */
+    public File getOracleHome() {
+        return oracleHome;
+    }
+
+    /**
+     * Get the output directory containing the Configjar settings file.
+     *
+     * @return Output directory containing the Configjar settings file.
+     */
+    public File getOutputDir() {
+        return outputDir;
+    }
+
+    /**
+     * Get the Configjar settings file.
+     *
+     * @return Configjar settings file.
+     */
+    public File getSettingsFile() {
+        return settingsFile;
+    }
+
+    /**
+     * Get the location of the <i>sbar</i> archive.
+     *
+     * @return Location of the <i>sbar</i> archive.
+     */
+    public File getSbarFile() {
+        return sbarFile;
+    }
+
+    /**
+     * Get the compression method of the archive entries.
+     *
+     * @return {@link Compression} method.
+     */
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Get the deflate level of the archive entries.
+     *
+     * @return Deflate level, -1 for the default level.
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Get the number of threads used to compress the archive entries.
+     *
+     * @return Number of threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Get the metrics of the build.
+     *
+     * @return {@link BuildMetrics} instance, can be null.
+     */
+    public BuildMetrics getMetrics() {
+        return metrics;
+    }
+}
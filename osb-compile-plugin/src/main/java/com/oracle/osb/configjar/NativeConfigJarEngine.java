@@ -0,0 +1,356 @@
+package com.oracle.osb.configjar;
+
+import com.oracle.osb.archiver.MavenLogger;
+import com.oracle.osb.archiver.SbarArchiver;
+import com.oracle.osb.fileset.FilesetCache;
+import com.oracle.osb.fileset.FilesetResolver;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.text.SimpleDateFormat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Pure Java implementation of {@link ConfigJarEngine} for resource level exports. The engine reads the Configjar
+ * settings file, resolves the fileset with the {@link FilesetResolver}, and writes the resources together with a
+ * generated <i>ExportInfo</i> file to the <i>sbar</i> archive with the {@link SbarArchiver}. No Oracle toolchain is
+ * used.
+ * <p>
+ * Project level exports, system exports and projects containing files of an unsupported resource type are exported
+ * with the fallback engine (the Configjar tool by default).
+ * <p>
+ * This engine is experimental and is never used by default. The generated <i>ExportInfo</i> file only contains the
+ * item type and instance of every resource, without the <i>dataclass</i> and <i>extrefs</i> metadata written by
+ * Configjar, and the resulting archives are not verified to import into an OSB server. Use the Configjar engine for
+ * archives that are deployed outside of development.
+ */
+public class NativeConfigJarEngine implements ConfigJarEngine {
+
+    //Engine name
+    public static final String NAME = "native";
+
+    //Warning logged by goals that use this engine
+    public static final String EXPERIMENTAL_WARNING =
+        "The [" + NAME + "] configjar engine is experimental: its ExportInfo has no dataclass and extrefs metadata " +
+        "and its archives are not verified to import into OSB";
+
+    //Configjar file elements
+    private static final String ELEMENT_SYSTEM = "system";
+    private static final String ELEMENT_PROJECT = "project";
+    private static final String ELEMENT_INCLUDE = "include";
+    private static final String ELEMENT_EXCLUDE = "exclude";
+    private static final String ELEMENT_CONFIGJAR = "configjar";
+    private static final String ELEMENT_RESOURCE_LEVEL = "resourceLevel";
+
+    //Configjar file element attributes
+    private static final String ATTRIBUTE_DIR = "dir";
+    private static final String ATTRIBUTE_NAME = "name";
+    private static final String ATTRIBUTE_JAR = "jar";
+
+    //ExportInfo file namespace
+    private static final String NS_IMPORT_EXPORT = "http://www.bea.com/wli/config/importexport";
+    private static final String NS_IMPORT_EXPORT_PREFIX = "imp";
+
+    //ExportInfo file elements
+    private static final String ELEMENT_XML_FRAGMENT = "xml-fragment";
+    private static final String ELEMENT_PROPERTIES = "properties";
+    private static final String ELEMENT_PROPERTY = "property";
+    private static final String ELEMENT_EXPORTED_ITEM_INFO = "exportedItemInfo";
+
+    //ExportInfo file element attributes
+    private static final String ATTRIBUTE_VALUE = "value";
+    private static final String ATTRIBUTE_VERSION = "version";
+    private static final String ATTRIBUTE_VERSION_VALUE = "v2";
+    private static final String ATTRIBUTE_INSTANCE_ID = "instanceId";
+    private static final String ATTRIBUTE_TYPE_ID = "typeId";
+    private static final String ATTRIBUTE_EXPORTTIME_FORMAT = "EEE MMM dd HH:mm:ss z yyyy";
+
+    //ExportInfo property values
+    private static final String USERNAME = "ServiceBus";
+    private static final String PRODUCTNAME = "Oracle Service Bus";
+    private static final String PRODUCTVERSION = "12.2.1.4.0";
+
+    //General settings
+    private static final String FILENAME_EXPORT_INFO = "ExportInfo";
+    private static final String DEFAULT_ENCODING = "UTF-8";
+    private static final String XML_VERSION = "1.0";
+    private static final String SEPARATOR = "/";
+
+    //Resource types by file extension
+    private static final Map<String, String> RESOURCE_TYPES = new HashMap<String, String>();
+
+    //File extensions of project files that are not exported
+    private static final Set<String> IGNORED_EXTENSIONS = new HashSet<String>();
+
+    static {
+        RESOURCE_TYPES.put("xsd", "XMLSchema");
+        RESOURCE_TYPES.put("wsdl", "WSDL");
+        RESOURCE_TYPES.put("wadl", "WADL");
+        RESOURCE_TYPES.put("proxy", "ProxyService");
+        RESOURCE_TYPES.put("pipeline", "Pipeline");
+        RESOURCE_TYPES.put("bix", "BusinessService");
+        RESOURCE_TYPES.put("xqy", "Xquery");
+        RESOURCE_TYPES.put("xsl", "XSLT");
+        RESOURCE_TYPES.put("mfl", "MFL");
+        RESOURCE_TYPES.put("jca", "JCA");
+        RESOURCE_TYPES.put("sa", "ServiceAccount");
+
+        IGNORED_EXTENSIONS.add("jpr");
+        IGNORED_EXTENSIONS.add("jws");
+        IGNORED_EXTENSIONS.add("sboverview");
+    }
+
+    private final ConfigJarEngine fallbackEngine;
+    private final FilesetCache filesetCache;
+    private final Log log;
+
+    /**
+     * Constructor.
+     *
+     * @param fallbackEngine Engine to use for exports that are not supported by this engine.
+     * @param filesetCache {@link FilesetCache} used to resolve the fileset, null to scan the project directory for
+     * every export.
+     * @param log Maven log, used by the {@link SbarArchiver}.
+     */
+    public NativeConfigJarEngine(ConfigJarEngine fallbackEngine, FilesetCache filesetCache, Log log) {
+        this.fallbackEngine = fallbackEngine;
+        this.filesetCache = filesetCache;
+        this.log = log;
+    }
+
+    @Override
+    public boolean export(ExportRequest request) throws Exception {
+        Settings settings = readSettings(request.getSettingsFile());
+
+        if (settings.system || !settings.resourceLevel) {
+            return fallbackEngine.export(request);
+        }
+
+        File projectDir = new File(settings.projectDir);
+        String projectName = projectDir.getName();
+        List<String> files =
+            new FilesetResolver(projectDir, settings.includes, settings.excludes, filesetCache).resolve();
+        List<String> resources = new ArrayList<String>();
+
+        for (String file : files) {
+            String extension = FilenameUtils.getExtension(file);
+
+            if (RESOURCE_TYPES.containsKey(extension)) {
+                resources.add(file);
+            } else if (!IGNORED_EXTENSIONS.contains(extension)) {
+                return fallbackEngine.export(request);
+            }
+        }
+
+        File exportInfoFile = new File(request.getSettingsFile().getParentFile(), FILENAME_EXPORT_INFO);
+        writeExportInfo(exportInfoFile, projectName, resources);
+
+        SbarArchiver archiver = new SbarArchiver();
+        archiver.enableLogging(new MavenLogger(log, SbarArchiver.class.getName()));
+        archiver.setForced(true);
+        archiver.setCompression(request.getCompression());
+        archiver.setCompressionLevel(request.getCompressionLevel());
+        archiver.setThreads(request.getThreads());
+        archiver.setDestFile(new File(settings.jar));
+
+        for (String resource : resources) {
+            archiver.addFile(new File(projectDir, resource), getJarEntryName(projectName, resource));
+        }
+
+        archiver.addFile(exportInfoFile, FILENAME_EXPORT_INFO);
+        archiver.createArchive();
+
+        if (request.getMetrics() != null) {
+            request.getMetrics().addDuration("archive", archiver.getDuration());
+            request.getMetrics().addCount("archiveEntries", archiver.getEntryCount());
+            request.getMetrics().addCount("uncompressedBytes", archiver.getUncompressedSize());
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the name of the archive entry of a resource: the resource path, starting with the project name, followed by
+     * the resource type (example: <i>SBProject/Resources/xsd/one.XMLSchema</i>).
+     *
+     * @param projectName Project name.
+     * @param resource Resource path relative to the project directory.
+     * @return Name of the archive entry.
+     */
+    private String getJarEntryName(String projectName, String resource) {
+        return getInstanceId(projectName, resource) + "." +
+               RESOURCE_TYPES.get(FilenameUtils.getExtension(resource));
+    }
+
+    /**
+     * Get the instance id of a resource: the resource path without extension, starting with the project name.
+     *
+     * @param projectName Project name.
+     * @param resource Resource path relative to the project directory.
+     * @return Instance id of the resource.
+     */
+    private String getInstanceId(String projectName, String resource) {
+        return projectName + SEPARATOR + FilenameUtils.removeExtension(resource);
+    }
+
+    /**
+     * Write the <i>ExportInfo</i> file for the exported resources.
+     *
+     * @param exportInfoFile <i>ExportInfo</i> file.
+     * @param projectName Project name.
+     * @param resources Resource paths relative to the project directory.
+     * @throws IOException
+     * @throws XMLStreamException
+     */
+    private void writeExportInfo(File exportInfoFile, String projectName,
+                                 List<String> resources) throws IOException, XMLStreamException {
+        OutputStream outputStream = null;
+        XMLStreamWriter writer = null;
+
+        try {
+            outputStream = new FileOutputStream(exportInfoFile);
+            writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_ENCODING);
+
+            writer.writeStartDocument(DEFAULT_ENCODING, XML_VERSION);
+            writer.writeStartElement(ELEMENT_XML_FRAGMENT);
+            writer.writeNamespace(NS_IMPORT_EXPORT_PREFIX, NS_IMPORT_EXPORT);
+            writer.writeAttribute(ATTRIBUTE_NAME, projectName);
+            writer.writeAttribute(ATTRIBUTE_VERSION, ATTRIBUTE_VERSION_VALUE);
+
+            writer.writeStartElement(NS_IMPORT_EXPORT_PREFIX, ELEMENT_PROPERTIES, NS_IMPORT_EXPORT);
+            writeProperty(writer, "username", USERNAME);
+            writeProperty(writer, "description", "");
+            writeProperty(writer, "exporttime",
+                          new SimpleDateFormat(ATTRIBUTE_EXPORTTIME_FORMAT, Locale.ENGLISH).format(new Date()));
+            writeProperty(writer, "productname", PRODUCTNAME);
+            writeProperty(writer, "productversion", PRODUCTVERSION);
+            writeProperty(writer, "projectLevelExport", "false");
+            writer.writeEndElement();
+
+            for (String resource : resources) {
+                writer.writeStartElement(NS_IMPORT_EXPORT_PREFIX, ELEMENT_EXPORTED_ITEM_INFO, NS_IMPORT_EXPORT);
+                writer.writeAttribute(ATTRIBUTE_INSTANCE_ID, getInstanceId(projectName, resource));
+                writer.writeAttribute(ATTRIBUTE_TYPE_ID, RESOURCE_TYPES.get(FilenameUtils.getExtension(resource)));
+                writer.writeStartElement(NS_IMPORT_EXPORT_PREFIX, ELEMENT_PROPERTIES, NS_IMPORT_EXPORT);
+                writeProperty(writer, "representationversion", "0");
+                writeProperty(writer, "isencrypted", "false");
+                writeProperty(writer, "jarentryname", getJarEntryName(projectName, resource));
+                writer.writeEndElement();
+                writer.writeEndElement();
+            }
+
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+
+            IOUtils.closeQuietly(outputStream);
+        }
+    }
+
+    /**
+     * Write property element to the <i>ExportInfo</i> file.
+     *
+     * @param writer {@link XMLStreamWriter} of the <i>ExportInfo</i> file.
+     * @param name Name of the property.
+     * @param value Value of the property.
+     * @throws XMLStreamException
+     */
+    private void writeProperty(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        writer.writeEmptyElement(NS_IMPORT_EXPORT_PREFIX, ELEMENT_PROPERTY, NS_IMPORT_EXPORT);
+        writer.writeAttribute(ATTRIBUTE_NAME, name);
+        writer.writeAttribute(ATTRIBUTE_VALUE, value);
+    }
+
+    /**
+     * Read the Configjar settings file generated by {@link ConfigJarSettings}.
+     *
+     * @param settingsFile Configjar settings file.
+     * @return Settings as {@link Settings} instance.
+     * @throws IOException
+     * @throws XMLStreamException
+     */
+    private Settings readSettings(File settingsFile) throws IOException, XMLStreamException {
+        Settings settings = new Settings();
+        List<String> includes = new ArrayList<String>();
+        List<String> excludes = new ArrayList<String>();
+        InputStream inputStream = null;
+        XMLStreamReader reader = null;
+
+        try {
+            inputStream = new FileInputStream(settingsFile);
+            reader = XMLInputFactory.newInstance().createXMLStreamReader(inputStream);
+
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    String localName = reader.getLocalName();
+
+                    if (ELEMENT_SYSTEM.equals(localName) || ELEMENT_PROJECT.equals(localName)) {
+                        if (reader.getAttributeValue(null, ATTRIBUTE_DIR) != null) {
+                            settings.system = ELEMENT_SYSTEM.equals(localName);
+                            settings.projectDir = reader.getAttributeValue(null, ATTRIBUTE_DIR);
+                        }
+                    } else if (ELEMENT_INCLUDE.equals(localName)) {
+                        includes.add(reader.getAttributeValue(null, ATTRIBUTE_NAME));
+                    } else if (ELEMENT_EXCLUDE.equals(localName)) {
+                        excludes.add(reader.getAttributeValue(null, ATTRIBUTE_NAME));
+                    } else if (ELEMENT_CONFIGJAR.equals(localName)) {
+                        settings.jar = reader.getAttributeValue(null, ATTRIBUTE_JAR);
+                    } else if (ELEMENT_RESOURCE_LEVEL.equals(localName)) {
+                        settings.resourceLevel = true;
+                    }
+                }
+            }
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+
+            IOUtils.closeQuietly(inputStream);
+        }
+
+        settings.includes = includes.toArray(new String[includes.size()]);
+        settings.excludes = excludes.toArray(new String[excludes.size()]);
+
+        return settings;
+    }
+
+    /**
+     * Content of the Configjar settings file.
+     */
+    private static class Settings {
+        private String projectDir;
+        private boolean system;
+        private String[] includes;
+        private String[] excludes;
+        private String jar;
+        private boolean resourceLevel;
+    }
+}
@@ -0,0 +1,68 @@
+package com.oracle.osb.configjar;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Stand-in implementation of {@link ConfigJarEngine} that does not need an Oracle home. The engine writes an
+ * <i>sbar</i> archive containing an empty <i>ExportInfo</i> file, and keeps track of the number of exports. This
+ * engine can be used to test the packaging flow on machines without the Oracle toolchain.
+ */
+public class StubConfigJarEngine implements ConfigJarEngine {
+
+    //Engine name
+    public static final String NAME = "stub";
+
+    //ExportInfo file
+    private static final String FILENAME_EXPORT_INFO = "ExportInfo";
+    private static final String EXPORT_INFO_CONTENT =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+        "<xml-fragment name=\"stub\" version=\"v2\" xmlns:imp=\"http://www.bea.com/wli/config/importexport\">" +
+        "<imp:properties>" + "<imp:property name=\"username\" value=\"stub\"/>" +
+        "<imp:property name=\"projectLevelExport\" value=\"false\"/>" + "</imp:properties>" + "</xml-fragment>";
+    private static final String DEFAULT_ENCODING = "UTF-8";
+
+    private final AtomicInteger exportCount = new AtomicInteger();
+
+    @Override
+    public boolean export(ExportRequest request) throws IOException {
+        if (!request.getSettingsFile().isFile()) {
+            return false;
+        }
+
+        OutputStream outputStream = null;
+        ZipOutputStream sbarOutputStream = null;
+
+        try {
+            request.getSbarFile().getParentFile().mkdirs();
+            outputStream = new FileOutputStream(request.getSbarFile());
+            sbarOutputStream = new ZipOutputStream(outputStream);
+            sbarOutputStream.putNextEntry(new ZipEntry(FILENAME_EXPORT_INFO));
+            sbarOutputStream.write(EXPORT_INFO_CONTENT.getBytes(DEFAULT_ENCODING));
+            sbarOutputStream.closeEntry();
+            sbarOutputStream.finish();
+        } finally {
+            IOUtils.closeQuietly(sbarOutputStream);
+            IOUtils.closeQuietly(outputStream);
+        }
+
+        exportCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Get the number of exports executed by this engine.
+     *
+     * @return Number of exports.
+     */
+    public int getExportCount() {
+        return exportCount.get();
+    }
+}
@@ -0,0 +1,296 @@
+package com.oracle.osb.dependency;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * On-disk index of the references between the resources of an OSB project, used to compute the dependency closure of
+ * a resource level export. The references of every resource are found by the {@link ReferenceScanner}: schema and
+ * WSDL imports and includes, XQuery imports, and the resource references of proxy services, pipelines and business
+ * services.
+ * <p>
+ * The index is stored as a text file with one line per resource: the resource path, its modification time and size,
+ * and its references, separated by tabs. {@link #update(List)} only scans resources that are new or of which the
+ * modification time or size changed, so after the first build the index is maintained incrementally. References to
+ * resources of other projects are kept in the index, but are not part of the closure.
+ */
+public class ReferenceIndex {
+
+    //Index file settings
+    private static final String HEADER = "#OSB reference index v1";
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final String ENCODING = "UTF-8";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //General settings
+    private static final String SEPARATOR = "/";
+
+    //Extensions of the resources that can contain references
+    private static final Set<String> SCANNED_EXTENSIONS = new HashSet<String>();
+
+    static {
+        SCANNED_EXTENSIONS.add("xsd");
+        SCANNED_EXTENSIONS.add("wsdl");
+        SCANNED_EXTENSIONS.add("wadl");
+        SCANNED_EXTENSIONS.add("proxy");
+        SCANNED_EXTENSIONS.add("pipeline");
+        SCANNED_EXTENSIONS.add("bix");
+        SCANNED_EXTENSIONS.add("xqy");
+        SCANNED_EXTENSIONS.add("xsl");
+        SCANNED_EXTENSIONS.add("jca");
+        SCANNED_EXTENSIONS.add("sa");
+    }
+
+    private final File projectDir;
+    private final Map<String, Entry> entries = new TreeMap<String, Entry>();
+
+    /**
+     * Constructor.
+     *
+     * @param projectDir OSB project directory.
+     */
+    private ReferenceIndex(File projectDir) {
+        this.projectDir = projectDir;
+    }
+
+    /**
+     * Load the index of a project. If the index file does not exist or has an unknown format, an empty index is
+     * returned.
+     *
+     * @param indexFile Index file.
+     * @param projectDir OSB project directory.
+     * @return {@link ReferenceIndex} instance.
+     * @throws IOException
+     */
+    @SuppressWarnings("oracle.jdeveloper.java.nested-assignment")
+    public static ReferenceIndex load(File indexFile, File projectDir) throws IOException {
+        ReferenceIndex index = new ReferenceIndex(projectDir);
+
+        if (!indexFile.isFile()) {
+            return index;
+        }
+
+        BufferedReader reader = null;
+
+        try {
+            reader =
+                new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), ENCODING), BUFFER_SIZE);
+
+            if (!HEADER.equals(reader.readLine())) {
+                return index;
+            }
+
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(FIELD_SEPARATOR);
+
+                if (fields.length >= 3) {
+                    Entry entry = new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]));
+
+                    for (int i = 3; i < fields.length; i++) {
+                        entry.references.add(fields[i]);
+                    }
+
+                    index.entries.put(fields[0], entry);
+                }
+            }
+        } catch (NumberFormatException ex) {
+            index.entries.clear();
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+
+        return index;
+    }
+
+    /**
+     * Store the index.
+     *
+     * @param indexFile Index file.
+     * @throws IOException
+     */
+    public void save(File indexFile) throws IOException {
+        Writer writer = null;
+
+        try {
+            indexFile.getParentFile().mkdirs();
+            writer =
+                new BufferedWriter(new OutputStreamWriter(new FileOutputStream(indexFile), ENCODING), BUFFER_SIZE);
+            writer.write(HEADER);
+            writer.write('\n');
+
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write(FIELD_SEPARATOR);
+                writer.write(String.valueOf(entry.getValue().lastModified));
+                writer.write(FIELD_SEPARATOR);
+                writer.write(String.valueOf(entry.getValue().size));
+
+                for (String reference : entry.getValue().references) {
+                    writer.write(FIELD_SEPARATOR);
+                    writer.write(reference);
+                }
+
+                writer.write('\n');
+            }
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Update the index with the current files of the project. Resources that are new or changed are scanned, entries
+     * of files that no longer exist are removed.
+     *
+     * @param files Files of the project, relative to the project directory and separated by slashes.
+     * @return TRUE if the index changed, FALSE otherwise.
+     * @throws IOException
+     */
+    public boolean update(List<String> files) throws IOException {
+        ReferenceScanner scanner = new ReferenceScanner();
+        Set<String> current = new HashSet<String>();
+        boolean changed = false;
+
+        for (String path : files) {
+            if (!SCANNED_EXTENSIONS.contains(FilenameUtils.getExtension(path))) {
+                continue;
+            }
+
+            current.add(path);
+            File file = new File(projectDir, path);
+            Entry entry = entries.get(path);
+
+            if (entry == null || entry.lastModified != file.lastModified() || entry.size != file.length()) {
+                entry = new Entry(file.lastModified(), file.length());
+                entry.references.addAll(scanner.scan(projectDir, path));
+                entries.put(path, entry);
+                changed = true;
+            }
+        }
+
+        changed |= entries.keySet().retainAll(current);
+        return changed;
+    }
+
+    /**
+     * Get the number of resources in the index.
+     *
+     * @return Number of resources.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Compute the dependency closure of a list of resources: the resources themselves and all resources of the
+     * project they refer to, directly or indirectly.
+     *
+     * @param seeds Paths of the resources, relative to the project directory.
+     * @return Sorted set of paths, relative to the project directory.
+     */
+    public Set<String> getClosure(Collection<String> seeds) {
+        Map<String, List<String>> pathsByInstanceId = getPathsByInstanceId();
+        String refPrefix = ReferenceScanner.REF_PREFIX + projectDir.getName() + SEPARATOR;
+        Set<String> result = new TreeSet<String>(seeds);
+        Deque<String> pending = new ArrayDeque<String>(seeds);
+
+        while (!pending.isEmpty()) {
+            Entry entry = entries.get(pending.poll());
+
+            if (entry == null) {
+                continue;
+            }
+
+            for (String reference : entry.references) {
+                List<String> paths;
+
+                if (reference.startsWith(refPrefix)) {
+                    paths = pathsByInstanceId.get(reference.substring(refPrefix.length()));
+                } else if (!reference.startsWith(ReferenceScanner.REF_PREFIX) && entries.containsKey(reference)) {
+                    paths = Collections.singletonList(reference);
+                } else {
+                    paths = null;
+                }
+
+                if (paths != null) {
+                    for (String path : paths) {
+                        if (result.add(path)) {
+                            pending.add(path);
+                        }
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the paths of the indexed resources by instance id, the path without extension. Resources of different types
+     * can share an instance id.
+     *
+     * @return Paths by instance id.
+     */
+    private Map<String, List<String>> getPathsByInstanceId() {
+        Map<String, List<String>> result = new HashMap<String, List<String>>();
+
+        for (String path : entries.keySet()) {
+            String instanceId = FilenameUtils.removeExtension(path);
+            List<String> paths = result.get(instanceId);
+
+            if (paths == null) {
+                paths = new ArrayList<String>(1);
+                result.put(instanceId, paths);
+            }
+
+            paths.add(path);
+        }
+
+        return result;
+    }
+
+    /**
+     * Index entry holding the references of one resource.
+     */
+    private static class Entry {
+
+        private final long lastModified;
+        private final long size;
+        private final List<String> references = new ArrayList<String>();
+
+        /**
+         * Constructor.
+         *
+         * @param lastModified Modification time of the resource.
+         * @param size Size of the resource.
+         */
+        Entry(long lastModified, long size) {
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+    }
+}
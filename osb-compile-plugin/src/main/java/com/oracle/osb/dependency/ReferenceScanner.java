@@ -0,0 +1,181 @@
+package com.oracle.osb.dependency;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.charset.Charset;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Scanner of the references of a single OSB resource. Two kinds of references are found:
+ * <ul>
+ *  <li><b>Locations:</b> the <i>schemaLocation</i> or <i>location</i> attribute of <i>import</i>, <i>include</i>
+ *  and <i>redefine</i> elements in schemas and WSDL files, and the <i>at</i> locations of XQuery imports. Locations
+ *  are relative to the resource and are returned as path relative to the project directory.</li>
+ *  <li><b>Resource references:</b> the <i>ref</i> attribute used by proxy services, pipelines and business services
+ *  to refer to WSDL files, pipelines, business services and other resources (example:
+ *  <i>SBProject/Resources/wsdl/one</i>). These are returned with the {@link #REF_PREFIX} prefix.</li>
+ * </ul>
+ * Locations outside the project directory and absolute URLs are ignored. Resources that cannot be parsed have no
+ * references.
+ */
+final class ReferenceScanner {
+
+    //Prefix of resource references
+    static final String REF_PREFIX = "ref:";
+
+    //Reference elements and attributes
+    private static final Set<String> LOCATION_ELEMENTS =
+        new HashSet<String>(Arrays.asList("import", "include", "redefine"));
+    private static final String ATTRIBUTE_SCHEMA_LOCATION = "schemaLocation";
+    private static final String ATTRIBUTE_LOCATION = "location";
+    private static final String ATTRIBUTE_REF = "ref";
+
+    //XQuery import locations (example: import schema namespace ns = "urn:one" at "../xsd/one.xsd";)
+    private static final Pattern XQUERY_IMPORT =
+        Pattern.compile("import\\s+(?:schema|module)\\b[^;]*?\\bat\\s+[\"']([^\"']+)[\"']");
+
+    //General settings
+    private static final String SEPARATOR = "/";
+    private static final String PARENT_PREFIX = "../";
+    private static final String URL_SCHEME_SEPARATOR = ":";
+    private static final String XQUERY_EXTENSION = "xqy";
+    private static final Charset XQUERY_ENCODING = Charset.forName("UTF-8");
+
+    private final XMLInputFactory inputFactory;
+
+    /**
+     * Constructor.
+     */
+    ReferenceScanner() {
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    }
+
+    /**
+     * Scan the references of a resource.
+     *
+     * @param projectDir Project directory.
+     * @param path Path of the resource relative to the project directory, separated by slashes.
+     * @return Project relative paths of the referenced locations and prefixed resource references.
+     * @throws IOException
+     */
+    Set<String> scan(File projectDir, String path) throws IOException {
+        File file = new File(projectDir, path);
+
+        if (XQUERY_EXTENSION.equals(FilenameUtils.getExtension(path))) {
+            return scanXQuery(file, path);
+        }
+
+        try {
+            return scanXml(file, path);
+        } catch (XMLStreamException ex) {
+            return new LinkedHashSet<String>();
+        }
+    }
+
+    /**
+     * Scan the references of an XML resource in a single streaming pass.
+     *
+     * @param file Resource file.
+     * @param path Path of the resource relative to the project directory.
+     * @return Project relative paths of the referenced locations and prefixed resource references.
+     * @throws IOException
+     * @throws XMLStreamException
+     */
+    private Set<String> scanXml(File file, String path) throws IOException, XMLStreamException {
+        Set<String> result = new LinkedHashSet<String>();
+        InputStream inputStream = null;
+        XMLStreamReader reader = null;
+
+        try {
+            inputStream = new FileInputStream(file);
+            reader = inputFactory.createXMLStreamReader(inputStream);
+
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+
+                boolean locationElement = LOCATION_ELEMENTS.contains(reader.getLocalName());
+
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    String name = reader.getAttributeLocalName(i);
+                    String value = reader.getAttributeValue(i);
+
+                    if (ATTRIBUTE_REF.equals(name) && value.contains(SEPARATOR)) {
+                        result.add(REF_PREFIX + value);
+                    } else if (locationElement &&
+                               (ATTRIBUTE_SCHEMA_LOCATION.equals(name) || ATTRIBUTE_LOCATION.equals(name))) {
+                        addLocation(result, path, value);
+                    }
+                }
+            }
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+
+            IOUtils.closeQuietly(inputStream);
+        }
+
+        return result;
+    }
+
+    /**
+     * Scan the import locations of an XQuery resource.
+     *
+     * @param file Resource file.
+     * @param path Path of the resource relative to the project directory.
+     * @return Project relative paths of the referenced locations.
+     * @throws IOException
+     */
+    private Set<String> scanXQuery(File file, String path) throws IOException {
+        Set<String> result = new LinkedHashSet<String>();
+        Matcher matcher = XQUERY_IMPORT.matcher(FileUtils.readFileToString(file, XQUERY_ENCODING));
+
+        while (matcher.find()) {
+            addLocation(result, path, matcher.group(1));
+        }
+
+        return result;
+    }
+
+    /**
+     * Resolve a location relative to a resource and add it to the references. Absolute URLs and locations outside
+     * the project directory are ignored.
+     *
+     * @param result References of the resource.
+     * @param path Path of the resource relative to the project directory.
+     * @param location Location relative to the resource.
+     */
+    private void addLocation(Set<String> result, String path, String location) {
+        if (location.isEmpty() || location.contains(URL_SCHEME_SEPARATOR) || location.startsWith(SEPARATOR)) {
+            return;
+        }
+
+        String resolved = FilenameUtils.normalize(FilenameUtils.getPath(path) + location, true);
+
+        if (resolved != null && !resolved.startsWith(PARENT_PREFIX)) {
+            result.add(resolved);
+        }
+    }
+}
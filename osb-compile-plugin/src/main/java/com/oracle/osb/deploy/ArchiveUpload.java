@@ -0,0 +1,110 @@
+package com.oracle.osb.deploy;
+
+import com.bea.wli.sb.management.configuration.ALSBConfigurationMBean;
+
+import com.sun.management.ThreadMXBean;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.lang.management.ManagementFactory;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Class to upload an <i>sbar</i> archive to an OSB session. The {@link ALSBConfigurationMBean} only accepts the
+ * archive as byte array, so the archive is on the heap once while it is uploaded; it cannot be streamed. The archive
+ * is read straight into a byte array of the exact archive size, without intermediate buffers, and the file is closed
+ * before the upload starts, so it can be rewritten while the upload is running. The array is released as soon as the
+ * upload completes. The heap allocated by the uploading thread is measured and can be reported.
+ */
+public class ArchiveUpload {
+
+    private final File archive;
+    private long allocatedHeap = -1;
+
+    /**
+     * Constructor.
+     *
+     * @param archive Archive file that needs to be uploaded.
+     */
+    public ArchiveUpload(File archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Upload the archive to the session of the provided {@link ALSBConfigurationMBean}.
+     *
+     * @param configMBean {@link ALSBConfigurationMBean} of the session.
+     * @throws IOException If the archive could not be read or exceeds the maximum size of a byte array.
+     * @throws Exception If the archive could not be uploaded.
+     */
+    public void upload(ALSBConfigurationMBean configMBean) throws Exception {
+        long start = getThreadAllocatedBytes();
+        configMBean.uploadJarFile(read());
+        allocatedHeap = start < 0 ? -1 : getThreadAllocatedBytes() - start;
+    }
+
+    /**
+     * Read the archive into a byte array of the exact archive size.
+     *
+     * @return Content of the archive.
+     * @throws IOException If the archive could not be read or exceeds the maximum size of a byte array.
+     */
+    public byte[] read() throws IOException {
+        long size = archive.length();
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Archive [" + archive.getAbsolutePath() + "] of " + size +
+                                  " bytes exceeds the maximum upload size of " + Integer.MAX_VALUE + " bytes");
+        }
+
+        byte[] content = new byte[(int) size];
+        InputStream input = new FileInputStream(archive);
+
+        try {
+            IOUtils.readFully(input, content);
+        } finally {
+            IOUtils.closeQuietly(input);
+        }
+
+        return content;
+    }
+
+    /**
+     * Get the archive size.
+     *
+     * @return Archive size in bytes.
+     */
+    public long getSize() {
+        return archive.length();
+    }
+
+    /**
+     * Get the heap allocated by the uploading thread during the last upload: the array of the archive and everything
+     * the {@link ALSBConfigurationMBean} allocates in the calling thread, like the serialized request of a remote
+     * MBean. Allocations of other threads are not included, so concurrent uploads do not affect each other.
+     *
+     * @return Allocated heap in bytes, -1 if the JVM does not measure thread allocations.
+     */
+    public long getAllocatedHeap() {
+        return allocatedHeap;
+    }
+
+    /**
+     * Get the total heap allocated by the current thread.
+     *
+     * @return Allocated heap in bytes, -1 if the JVM does not measure thread allocations.
+     */
+    private static long getThreadAllocatedBytes() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        if (threadMXBean instanceof ThreadMXBean && ((ThreadMXBean) threadMXBean).isThreadAllocatedMemoryEnabled()) {
+            return ((ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return -1;
+    }
+}
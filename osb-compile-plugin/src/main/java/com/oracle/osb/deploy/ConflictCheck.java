@@ -0,0 +1,16 @@
+package com.oracle.osb.deploy;
+
+/**
+ * Enumeration of the ways a session can be checked for conflicts before it is activated:
+ * <ul>
+ *  <li>FULL: the diagnostics of all resources of the domain are checked (default)</li>
+ *  <li>SCOPED: only the diagnostics of the resources imported to the session are checked, in batches, stopping at the
+ *  first conflict; much faster on large domains, but conflicts of other resources caused by the import are not
+ *  found</li>
+ *  <li>REPORT: the diagnostics of all resources of the domain are checked and all conflicts are logged, grouped by
+ *  project</li>
+ * </ul>.
+ */
+public enum ConflictCheck {
+    FULL, SCOPED, REPORT
+}
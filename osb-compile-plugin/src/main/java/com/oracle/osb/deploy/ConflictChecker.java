@@ -0,0 +1,165 @@
+package com.oracle.osb.deploy;
+
+import com.bea.wli.config.Ref;
+import com.bea.wli.config.resource.Diagnostics;
+import com.bea.wli.sb.management.configuration.ALSBConfigurationMBean;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Check of the diagnostics of a session for conflicts, using one of the {@link ConflictCheck} modes. Asking the
+ * {@link ALSBConfigurationMBean} for the diagnostics of all resources transfers a diagnostics map of the whole domain,
+ * which can take longer than the import itself on domains with many resources. The {@link ConflictCheck#SCOPED} mode
+ * only asks for the diagnostics of the imported resources, in batches of {@link #BATCH_SIZE} resources, and stops at
+ * the first batch with a conflict. Resources without diagnostics in the returned map have no conflicts. If the
+ * imported resources are not known, the {@link ConflictCheck#SCOPED} mode checks all resources, like
+ * {@link ConflictCheck#FULL}.
+ */
+public class ConflictChecker {
+
+    //General settings
+    private static final int BATCH_SIZE = 500;
+    private static final String NO_PROJECT = "(no project)";
+
+    private final ALSBConfigurationMBean configMBean;
+    private final Log log;
+    private int diagnosticsCount;
+
+    /**
+     * Constructor.
+     *
+     * @param configMBean {@link ALSBConfigurationMBean} of the session.
+     * @param log Maven log.
+     */
+    public ConflictChecker(ALSBConfigurationMBean configMBean, Log log) {
+        this.configMBean = configMBean;
+        this.log = log;
+    }
+
+    /**
+     * Check if there are conflicts in the session.
+     *
+     * @param mode {@link ConflictCheck} mode.
+     * @param importedRefs Resources imported to the session, only used by the {@link ConflictCheck#SCOPED} mode, can
+     * be null.
+     * @return TRUE if there are conflicts, FALSE otherwise.
+     * @throws Exception If the diagnostics could not be retrieved.
+     */
+    public boolean hasConflicts(ConflictCheck mode, Collection<Ref> importedRefs) throws Exception {
+        if (mode == ConflictCheck.SCOPED) {
+            if (importedRefs != null && !importedRefs.isEmpty()) {
+                return hasConflicts(importedRefs);
+            }
+
+            log.warn("Imported resources are unknown, checking the diagnostics of all resources instead");
+        } else if (mode == ConflictCheck.REPORT) {
+            return reportConflicts();
+        }
+
+        return hasConflicts(configMBean.getDiagnostics(null));
+    }
+
+    /**
+     * Get the number of diagnostics that were checked.
+     *
+     * @return Number of diagnostics.
+     */
+    public int getDiagnosticsCount() {
+        return diagnosticsCount;
+    }
+
+    /**
+     * Check the diagnostics of the provided resources in batches, stopping at the first batch with a conflict.
+     *
+     * @param refs Resources to check.
+     * @return TRUE if any resource has a conflict, FALSE otherwise.
+     * @throws Exception If the diagnostics could not be retrieved.
+     */
+    private boolean hasConflicts(Collection<Ref> refs) throws Exception {
+        List<Ref> batch = new ArrayList<Ref>(Math.min(refs.size(), BATCH_SIZE));
+
+        for (Ref ref : refs) {
+            batch.add(ref);
+
+            if (batch.size() == BATCH_SIZE) {
+                if (hasConflicts(configMBean.getDiagnostics(batch))) {
+                    return true;
+                }
+
+                batch.clear();
+            }
+        }
+
+        return !batch.isEmpty() && hasConflicts(configMBean.getDiagnostics(batch));
+    }
+
+    /**
+     * Check a diagnostics map, stopping at the first conflict.
+     *
+     * @param diagnosticMap Diagnostics by resource.
+     * @return TRUE if any resource has a conflict, FALSE otherwise.
+     */
+    private boolean hasConflicts(Map<Ref, Diagnostics> diagnosticMap) {
+        for (Diagnostics diags : diagnosticMap.values()) {
+            diagnosticsCount++;
+
+            if (isConflict(diags)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Check the diagnostics of all resources of the domain and log all conflicts, grouped by project.
+     *
+     * @return TRUE if any resource has a conflict, FALSE otherwise.
+     * @throws Exception If the diagnostics could not be retrieved.
+     */
+    private boolean reportConflicts() throws Exception {
+        Map<String, Map<String, Diagnostics>> conflictsByProject = new TreeMap<String, Map<String, Diagnostics>>();
+
+        for (Map.Entry<Ref, Diagnostics> diags : configMBean.getDiagnostics(null).entrySet()) {
+            diagnosticsCount++;
+
+            if (isConflict(diags.getValue())) {
+                String project = diags.getKey().getProjectName() != null ? diags.getKey().getProjectName() : NO_PROJECT;
+                Map<String, Diagnostics> conflicts = conflictsByProject.get(project);
+
+                if (conflicts == null) {
+                    conflicts = new TreeMap<String, Diagnostics>();
+                    conflictsByProject.put(project, conflicts);
+                }
+
+                conflicts.put(diags.getKey().getFullName(), diags.getValue());
+            }
+        }
+
+        for (Map.Entry<String, Map<String, Diagnostics>> project : conflictsByProject.entrySet()) {
+            log.error("Project [" + project.getKey() + "] has [" + project.getValue().size() + "] conflicts:");
+
+            for (Map.Entry<String, Diagnostics> conflict : project.getValue().entrySet()) {
+                log.error("  [" + conflict.getKey() + "]: " + conflict.getValue());
+            }
+        }
+
+        return !conflictsByProject.isEmpty();
+    }
+
+    /**
+     * Check if the diagnostics of a resource contain a conflict.
+     *
+     * @param diags Diagnostics of the resource, can be null.
+     * @return TRUE if the severity of the diagnostics is not valid, FALSE otherwise.
+     */
+    private static boolean isConflict(Diagnostics diags) {
+        return diags != null && !diags.getSeverity().isValidSeverity();
+    }
+}
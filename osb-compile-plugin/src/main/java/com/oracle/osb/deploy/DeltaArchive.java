@@ -0,0 +1,241 @@
+package com.oracle.osb.deploy;
+
+import com.oracle.osb.archiver.MavenLogger;
+import com.oracle.osb.archiver.SbarArchiver;
+import com.oracle.osb.build.ContentHash;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Class to build a delta <i>sbar</i> archive, containing only the resources of an archive that changed since the last
+ * deployment. The content hashes of the deployed resources are kept in a manifest file. The delta archive contains
+ * the changed and new resources, together with an <i>ExportInfo</i> file that is limited to these resources by the
+ * {@link SbarArchiver}. The delta archive is never a project level export, so the import does not remove the
+ * unchanged resources from the server. Resources that were removed from the archive are not removed from the server
+ * by a delta deployment either.
+ */
+public class DeltaArchive {
+
+    //General settings
+    private static final String FILENAME_EXPORT_INFO = "ExportInfo";
+    private static final String COMMENT = "OSB deployment manifest";
+
+    private final File archive;
+    private final File manifestFile;
+    private final File workDir;
+    private final Log log;
+    private final Properties entryHashes = new Properties();
+    private final List<String> changedEntries = new ArrayList<String>();
+    private final List<String> removedEntries = new ArrayList<String>();
+    private int threads = 1;
+
+    /**
+     * Constructor.
+     *
+     * @param archive Full <i>sbar</i> archive.
+     * @param manifestFile Manifest file with the content hashes of the last deployment.
+     * @param workDir Working directory for the changed resources.
+     * @param log Maven log, used by the {@link SbarArchiver}.
+     */
+    public DeltaArchive(File archive, File manifestFile, File workDir, Log log) {
+        this.archive = archive;
+        this.manifestFile = manifestFile;
+        this.workDir = workDir;
+        this.log = log;
+    }
+
+    /**
+     * Set the number of threads used to compress the entries of the delta archive, see
+     * {@link SbarArchiver#setThreads(int)}.
+     *
+     * @param threads Number of threads.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Build the delta archive. The content hash of every archive entry is compared with the manifest of the last
+     * deployment; entries with a different or no hash in the manifest are added to the delta archive.
+     *
+     * @param deltaFile Location of the delta archive.
+     * @return The delta archive, or null if no resources changed.
+     * @throws IOException
+     */
+    public File build(File deltaFile) throws IOException {
+        Properties deployedHashes = loadManifest();
+        ZipFile zipFile = new ZipFile(archive);
+
+        try {
+            ZipEntry exportInfoEntry = null;
+
+            for (ZipEntry entry : Collections.list(zipFile.entries())) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+
+                if (FILENAME_EXPORT_INFO.equals(entry.getName())) {
+                    exportInfoEntry = entry;
+                    continue;
+                }
+
+                String hash = hashEntry(zipFile, entry);
+                entryHashes.setProperty(entry.getName(), hash);
+
+                if (!hash.equals(deployedHashes.getProperty(entry.getName()))) {
+                    changedEntries.add(entry.getName());
+                }
+            }
+
+            for (String deployedEntry : deployedHashes.stringPropertyNames()) {
+                if (!entryHashes.containsKey(deployedEntry)) {
+                    removedEntries.add(deployedEntry);
+                }
+            }
+
+            if (changedEntries.isEmpty()) {
+                return null;
+            }
+
+            FileUtils.deleteDirectory(workDir);
+
+            SbarArchiver archiver = new SbarArchiver();
+            archiver.enableLogging(new MavenLogger(log, SbarArchiver.class.getName()));
+            archiver.setForced(true);
+            archiver.setThreads(threads);
+            archiver.setDestFile(deltaFile);
+
+            for (String changedEntry : changedEntries) {
+                archiver.addFile(extractEntry(zipFile, zipFile.getEntry(changedEntry)), changedEntry);
+            }
+
+            if (exportInfoEntry != null) {
+                archiver.setExportedItemFilter(new HashSet<String>(changedEntries));
+                archiver.addFile(extractEntry(zipFile, exportInfoEntry), FILENAME_EXPORT_INFO);
+            }
+
+            archiver.createArchive();
+        } finally {
+            zipFile.close();
+        }
+
+        return deltaFile;
+    }
+
+    /**
+     * Store the content hashes of the archive as manifest of the last deployment. This method should be called after
+     * the delta archive is deployed and activated.
+     *
+     * @throws IOException
+     */
+    public void commit() throws IOException {
+        OutputStream outputStream = null;
+
+        try {
+            manifestFile.getParentFile().mkdirs();
+            outputStream = new FileOutputStream(manifestFile);
+            entryHashes.store(outputStream, COMMENT);
+        } finally {
+            IOUtils.closeQuietly(outputStream);
+        }
+    }
+
+    /**
+     * Get the archive entries that changed since the last deployment.
+     *
+     * @return Names of the changed and new archive entries.
+     */
+    public List<String> getChangedEntries() {
+        return changedEntries;
+    }
+
+    /**
+     * Get the archive entries that were deployed before, but are no longer part of the archive.
+     *
+     * @return Names of the removed archive entries.
+     */
+    public List<String> getRemovedEntries() {
+        return removedEntries;
+    }
+
+    /**
+     * Load the manifest of the last deployment.
+     *
+     * @return Content hashes by archive entry name, empty if there is no manifest.
+     * @throws IOException
+     */
+    private Properties loadManifest() throws IOException {
+        Properties result = new Properties();
+
+        if (manifestFile.isFile()) {
+            InputStream inputStream = null;
+
+            try {
+                inputStream = new FileInputStream(manifestFile);
+                result.load(inputStream);
+            } finally {
+                IOUtils.closeQuietly(inputStream);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Calculate the content hash of an archive entry.
+     *
+     * @param zipFile Archive.
+     * @param entry Archive entry.
+     * @return Content hash.
+     * @throws IOException
+     */
+    private String hashEntry(ZipFile zipFile, ZipEntry entry) throws IOException {
+        InputStream inputStream = null;
+
+        try {
+            inputStream = zipFile.getInputStream(entry);
+            return ContentHash.of(inputStream);
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * Extract an archive entry to the working directory. Entries with an absolute path or a path that leaves the
+     * working directory are rejected.
+     *
+     * @param zipFile Archive.
+     * @param entry Archive entry.
+     * @return Extracted file.
+     * @throws IOException If the entry cannot be extracted or is outside of the working directory.
+     */
+    private File extractEntry(ZipFile zipFile, ZipEntry entry) throws IOException {
+        String name = FilenameUtils.normalizeNoEndSeparator(entry.getName(), true);
+
+        if (name == null || FilenameUtils.getPrefixLength(name) != 0) {
+            throw new IOException("Entry [" + entry.getName() + "] is outside of the working directory");
+        }
+
+        File file = new File(workDir, name);
+        FileUtils.copyInputStreamToFile(zipFile.getInputStream(entry), file);
+        return file;
+    }
+}
@@ -0,0 +1,275 @@
+package com.oracle.osb.deploy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Pipeline of deployment stages with explicit dependencies. Every {@link Stage} is started as soon as the stages it
+ * depends on are completed, so stages that do not depend on each other, like reading the archive, parsing the
+ * customization file and creating the session, run concurrently. The wall time of the pipeline is the time of the
+ * longest chain of dependent stages instead of the sum of all stages.
+ * <p>
+ * If a stage fails, with an exception or an error, the stages that depend on it are skipped, and {@link #run()} throws
+ * the exception of the first failed stage after all other stages are completed. {@link #run()} also fails if any
+ * other stage did not complete, so the pipeline only returns normally if every stage is completed. The start time and
+ * duration of every stage are logged.
+ */
+public class DeployPipeline {
+
+    /**
+     * Status of a stage.
+     */
+    public enum Status {
+        PENDING,
+        COMPLETED,
+        FAILED,
+        SKIPPED
+    }
+
+    private final String name;
+    private final Log log;
+    private final List<Stage<?>> stages = new ArrayList<Stage<?>>();
+    private long duration;
+
+    /**
+     * Constructor.
+     *
+     * @param name Pipeline name, used in the log.
+     * @param log Maven log.
+     */
+    public DeployPipeline(String name, Log log) {
+        this.name = name;
+        this.log = log;
+    }
+
+    /**
+     * Add a stage to the pipeline. The stages it depends on must be added first.
+     *
+     * @param stage Stage.
+     * @return The added stage.
+     */
+    public <T> Stage<T> add(Stage<T> stage) {
+        for (Stage<?> dependency : stage.dependencies) {
+            if (!stages.contains(dependency)) {
+                throw new IllegalArgumentException("Stage [" + stage.name + "] depends on stage [" +
+                                                   dependency.name + "] that is not part of the pipeline");
+            }
+        }
+
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Run all stages and wait until all stages are completed, failed or skipped.
+     *
+     * @throws MojoExecutionException The exception of the first failed stage, or if any stage did not complete.
+     */
+    public void run() throws MojoExecutionException {
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, stages.size()));
+
+        try {
+            for (final Stage<?> stage : stages) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        stage.run();
+                    }
+                });
+            }
+
+            for (Stage<?> stage : stages) {
+                stage.await();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while waiting for pipeline [" + name + "] to complete", ex);
+        } finally {
+            executor.shutdownNow();
+            duration = System.currentTimeMillis() - start;
+        }
+
+        logTimings(start);
+
+        for (Stage<?> stage : stages) {
+            if (stage.status == Status.FAILED) {
+                throw stage.exception;
+            }
+        }
+
+        for (Stage<?> stage : stages) {
+            if (stage.status != Status.COMPLETED) {
+                throw new MojoExecutionException("Stage [" + stage.name + "] of pipeline [" + name +
+                                                 "] did not complete, status [" + stage.status + "]");
+            }
+        }
+    }
+
+    /**
+     * Get the stages of the pipeline, in the order they were added.
+     *
+     * @return Stages.
+     */
+    public List<Stage<?>> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Get the wall time of the last run of the pipeline.
+     *
+     * @return Duration in milliseconds.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Log the start time and duration of every stage, and the wall time of the pipeline compared to the sum of the
+     * stage durations.
+     *
+     * @param start Start time of the pipeline.
+     */
+    private void logTimings(long start) {
+        long total = 0L;
+        log.info("Pipeline [" + name + "] stages:");
+
+        for (Stage<?> stage : stages) {
+            if (stage.status == Status.SKIPPED) {
+                log.info("  [" + stage.name + "] " + stage.status);
+            } else {
+                log.info("  [" + stage.name + "] " + stage.status + " in [" + stage.duration + "] ms, started at [" +
+                         (stage.start - start) + "] ms");
+                total += stage.duration;
+            }
+        }
+
+        log.info("Pipeline [" + name + "] completed in [" + duration + "] ms, sum of stages [" + total + "] ms");
+    }
+
+    /**
+     * Stage of a pipeline. The result of a stage is available to the stages that depend on it with {@link #get()}.
+     *
+     * @param <T> Type of the result of the stage, {@link Void} if the stage has no result.
+     */
+    public abstract static class Stage<T> {
+
+        private final String name;
+        private final Stage<?>[] dependencies;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Status status = Status.PENDING;
+        private volatile T result;
+        private volatile MojoExecutionException exception;
+        private volatile long start;
+        private volatile long duration;
+
+        /**
+         * Constructor.
+         *
+         * @param name Stage name, used in the log.
+         * @param dependencies Stages that need to be completed before this stage is started.
+         */
+        protected Stage(String name, Stage<?>... dependencies) {
+            this.name = name;
+            this.dependencies = dependencies;
+        }
+
+        /**
+         * Execute the stage.
+         *
+         * @return Result of the stage, null if the stage has no result.
+         * @throws MojoExecutionException
+         */
+        protected abstract T execute() throws MojoExecutionException;
+
+        /**
+         * Get the result of the stage.
+         *
+         * @return Result of the stage, null if the stage has no result or is not completed.
+         */
+        public T get() {
+            return result;
+        }
+
+        /**
+         * Get the stage name.
+         *
+         * @return Stage name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the time spent on executing the stage, not including the time spent waiting for its dependencies.
+         *
+         * @return Duration in milliseconds, 0 if the stage was skipped.
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * Get the status of the stage.
+         *
+         * @return {@link Status} of the stage.
+         */
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Wait for the dependencies and execute the stage, unless any dependency did not complete. Any exception or
+         * error of the stage marks the stage as failed.
+         */
+        private void run() {
+            try {
+                for (Stage<?> dependency : dependencies) {
+                    dependency.await();
+
+                    if (dependency.status != Status.COMPLETED) {
+                        status = Status.SKIPPED;
+                        return;
+                    }
+                }
+
+                start = System.currentTimeMillis();
+
+                try {
+                    result = execute();
+                    status = Status.COMPLETED;
+                } catch (MojoExecutionException ex) {
+                    exception = ex;
+                    status = Status.FAILED;
+                } catch (Throwable ex) {
+                    exception =
+                        new MojoExecutionException("An unexpected exception occurred in stage [" + name + "]", ex);
+                    status = Status.FAILED;
+                } finally {
+                    duration = System.currentTimeMillis() - start;
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                status = Status.SKIPPED;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        /**
+         * Wait until the stage is completed, failed or skipped.
+         *
+         * @throws InterruptedException
+         */
+        private void await() throws InterruptedException {
+            done.await();
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.oracle.osb.deploy;
+
+import com.bea.wli.config.Ref;
+import com.bea.wli.config.customization.Customization;
+import com.bea.wli.config.importexport.ImportResult;
+import com.bea.wli.config.resource.Diagnostics;
+import com.bea.wli.sb.management.configuration.ALSBConfigurationMBean;
+import com.bea.wli.sb.management.configuration.SessionManagementMBean;
+import com.bea.wli.sb.management.importexport.ALSBImportPlan;
+import com.bea.wli.sb.management.importexport.ALSBJarInfo;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import oracle.sb.maven.plugin.deploy.MBeanHelper;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.xmlbeans.XmlException;
+
+/**
+ * OSB session on a server, used to import one or more archives, apply a customization file, check for conflicts and
+ * activate or discard the changes. The session and configuration MBean proxies are resolved once and reused for all
+ * actions on the session.
+ */
+public class DeploymentSession {
+
+    //General settings
+    private static final String SESSION_ACTIVATION_DESCRIPTION = "Published from ServiceBusPlugin.";
+
+    private final MBeanHelper mBeanHelper;
+    private final String sessionName;
+    private final Log log;
+    private SessionManagementMBean sessionMBean;
+    private ALSBConfigurationMBean configMBean;
+    private final List<Ref> importedRefs = new ArrayList<Ref>();
+    private int diagnosticsCount;
+
+    /**
+     * Constructor.
+     *
+     * @param mBeanHelper {@link MBeanHelper} instance to execute actions on OSB server.
+     * @param sessionName Session name.
+     * @param log Maven log.
+     */
+    public DeploymentSession(MBeanHelper mBeanHelper, String sessionName, Log log) {
+        this.mBeanHelper = mBeanHelper;
+        this.sessionName = sessionName;
+        this.log = log;
+    }
+
+    /**
+     * Get the session name.
+     *
+     * @return Session name.
+     */
+    public String getName() {
+        return sessionName;
+    }
+
+    /**
+     * Create session which can be used to import artifacts.
+     *
+     * @throws MojoExecutionException
+     */
+    public void create() throws MojoExecutionException {
+        log.info("Creating session [" + sessionName + "]");
+
+        try {
+            getSessionMBean().createSession(sessionName);
+        } catch (Exception ex) {
+            throw new MojoExecutionException("Unable to create session [" + sessionName + "]", ex);
+        }
+    }
+
+    /**
+     * Import artifact to session. If the import fails for any resource, the failed resources and their diagnostics
+     * are logged.
+     *
+     * @param artifact Artifact file that needs to be imported as {@link File} instance.
+     * @param options Options for the import plan.
+     * @return Result of the import as {@link ImportResult} instance.
+     * @throws MojoExecutionException
+     */
+    public ImportResult importArtifact(File artifact, ImportPlanOptions options) throws MojoExecutionException {
+        log.info("Importing artifact [" + artifact.getAbsolutePath() + "] to session [" + sessionName + "]");
+        upload(artifact);
+        return importUploaded(artifact, options);
+    }
+
+    /**
+     * Upload artifact to session, without importing it. The artifact is read by an {@link ArchiveUpload}, so it is
+     * only on the heap while it is uploaded.
+     *
+     * @param artifact Artifact file that needs to be uploaded as {@link File} instance.
+     * @throws MojoExecutionException
+     */
+    public void upload(File artifact) throws MojoExecutionException {
+        try {
+            ArchiveUpload upload = new ArchiveUpload(artifact);
+            upload.upload(getConfigMBean());
+            log.info("Uploaded [" + upload.getSize() + "] bytes, heap allocated by the upload [" +
+                     upload.getAllocatedHeap() + "] bytes");
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to read artifact [" + artifact.getAbsolutePath() + "]", ex);
+        } catch (Exception ex) {
+            throw new MojoExecutionException("Unable to upload artifact [" + artifact.getAbsolutePath() +
+                                             "] to session [" + sessionName + "]", ex);
+        }
+    }
+
+    /**
+     * Import artifact that is already read into memory to session. This allows the same content to be imported to
+     * sessions on several servers, while the artifact is read only once. If the import fails for any resource, the
+     * failed resources and their diagnostics are logged.
+     *
+     * @param artifact Artifact file that needs to be imported as {@link File} instance.
+     * @param content Content of the artifact file.
+     * @param options Options for the import plan.
+     * @return Result of the import as {@link ImportResult} instance.
+     * @throws MojoExecutionException
+     */
+    public ImportResult importArtifact(File artifact, byte[] content,
+                                       ImportPlanOptions options) throws MojoExecutionException {
+        log.info("Importing artifact [" + artifact.getAbsolutePath() + "] to session [" + sessionName + "]");
+        upload(artifact, content);
+        return importUploaded(artifact, options);
+    }
+
+    /**
+     * Upload artifact that is already read into memory to session, without importing it.
+     *
+     * @param artifact Artifact file that needs to be uploaded as {@link File} instance.
+     * @param content Content of the artifact file.
+     * @throws MojoExecutionException
+     */
+    public void upload(File artifact, byte[] content) throws MojoExecutionException {
+        try {
+            getConfigMBean().uploadJarFile(content);
+        } catch (Exception ex) {
+            throw new MojoExecutionException("Unable to upload artifact [" + artifact.getAbsolutePath() +
+                                             "] to session [" + sessionName + "]", ex);
+        }
+    }
+
+    /**
+     * Apply customization file to session if the customization file is not null.
+     *
+     * @param customizationFile Customization file, can be null.
+     * @throws MojoExecutionException
+     */
+    public void applyCustomizationFile(File customizationFile) throws MojoExecutionException {
+        if (customizationFile != null) {
+            applyCustomizations(customizationFile, readCustomizationFile(customizationFile));
+        }
+    }
+
+    /**
+     * Read the customizations from a customization file. The file is read without a session, so it can be read while
+     * the session is prepared.
+     *
+     * @param customizationFile Customization file.
+     * @return Customizations.
+     * @throws MojoExecutionException
+     */
+    public static List<Customization> readCustomizationFile(File customizationFile) throws MojoExecutionException {
+        FileInputStream inputStream = null;
+
+        try {
+            inputStream = new FileInputStream(customizationFile);
+            return Customization.fromXML(inputStream, null);
+        } catch (XmlException ex) {
+            throw new MojoExecutionException("Unable to parse XML from customization file [" +
+                                             customizationFile.getAbsolutePath() + "]", ex);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to read customization file [" +
+                                             customizationFile.getAbsolutePath() + "]", ex);
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * Apply customizations that are read from a customization file to session.
+     *
+     * @param customizationFile Customization file the customizations are read from.
+     * @param customizations Customizations.
+     * @throws MojoExecutionException
+     */
+    public void applyCustomizations(File customizationFile,
+                                    List<Customization> customizations) throws MojoExecutionException {
+        log.info("Applying customization file [" + customizationFile.getAbsolutePath() + "]");
+
+        try {
+            getConfigMBean().customize(customizations);
+        } catch (Exception ex) {
+            throw new MojoExecutionException("Unable to apply customization file [" +
+                                             customizationFile.getAbsolutePath() + "] to session [" + sessionName +
+                                             "]", ex);
+        }
+    }
+
+    /**
+     * Check if there are conflicts in the diagnostics of all resources of the domain.
+     *
+     * @return FALSE if there are no conflicts in the session, TRUE otherwise.
+     * @throws MojoExecutionException
+     */
+    public boolean hasConflicts() throws MojoExecutionException {
+        return hasConflicts(ConflictCheck.FULL);
+    }
+
+    /**
+     * Check if there are conflicts in the session with the {@link ConflictChecker}. The {@link ConflictCheck#SCOPED}
+     * mode checks the resources imported to this session.
+     *
+     * @param mode {@link ConflictCheck} mode.
+     * @return FALSE if there are no conflicts in the session, TRUE otherwise.
+     * @throws MojoExecutionException
+     */
+    public boolean hasConflicts(ConflictCheck mode) throws MojoExecutionException {
+        log.info("Checking for conflicts in session [" + sessionName + "] (" + mode + ")");
+
+        try {
+            ConflictChecker checker = new ConflictChecker(getConfigMBean(), log);
+
+            try {
+                return checker.hasConflicts(mode, importedRefs);
+            } finally {
+                diagnosticsCount += checker.getDiagnosticsCount();
+            }
+        } catch (Exception ex) {
+            throw new MojoExecutionException("An unexpected exception occurred while checking session [" + sessionName +
+                                             "] for conflicts", ex);
+        }
+    }
+
+    /**
+     * Get the number of diagnostics that were scanned by {@link #hasConflicts(ConflictCheck)}.
+     *
+     * @return Number of diagnostics.
+     */
+    public int getDiagnosticsCount() {
+        return diagnosticsCount;
+    }
+
+    /**
+     * Activate session.
+     *
+     * @throws MojoExecutionException
+     */
+    public void activate() throws MojoExecutionException {
+        log.info("Activating session [" + sessionName + "]");
+
+        try {
+            getSessionMBean().activateSession(sessionName, SESSION_ACTIVATION_DESCRIPTION);
+            configMBean = null;
+        } catch (Exception ex) {
+            throw new MojoExecutionException("Unable to activate session [" + sessionName + "]", ex);
+        }
+    }
+
+    /**
+     * Discard session.
+     *
+     * @throws MojoExecutionException
+     */
+    public void discard() throws MojoExecutionException {
+        log.info("Discarding session [" + sessionName + "]");
+
+        try {
+            getSessionMBean().discardSession(sessionName);
+            configMBean = null;
+        } catch (Exception ex) {
+            throw new MojoExecutionException("Unable to discard session [" + sessionName + "]", ex);
+        }
+    }
+
+    /**
+     * Get the import plan of the uploaded artifact.
+     *
+     * @param options Options for the import plan.
+     * @return Instance of {@link ALSBImportPlan}
+     * @throws MojoExecutionException
+     */
+    public ALSBImportPlan getImportPlan(ImportPlanOptions options) throws MojoExecutionException {
+        try {
+            return getImportPlan(getConfigMBean(), options);
+        } catch (MojoExecutionException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new MojoExecutionException("Failed to retreive default import plan", ex);
+        }
+    }
+
+    /**
+     * Import the uploaded artifact with an import plan. If the import fails for any resource, the failed resources and
+     * their diagnostics are logged.
+     *
+     * @param artifact Uploaded artifact file.
+     * @param importPlan Import plan of the uploaded artifact, see {@link #getImportPlan(ImportPlanOptions)}.
+     * @return Result of the import as {@link ImportResult} instance.
+     * @throws MojoExecutionException
+     */
+    public ImportResult importUploaded(File artifact, ALSBImportPlan importPlan) throws MojoExecutionException {
+        ImportResult result;
+
+        try {
+            result = getConfigMBean().importUploaded(importPlan);
+        } catch (Exception ex) {
+            throw new MojoExecutionException("Unable to import artifact [" + artifact.getAbsolutePath() +
+                                             "] to session [" + sessionName + "]", ex);
+        }
+
+        if (!result.getFailed().isEmpty()) {
+            for (Map.Entry<Ref, Diagnostics> failed : result.getFailed().entrySet()) {
+                log.error("Failed to import [" + failed.getKey().getFullName() + "] from artifact [" +
+                          artifact.getAbsolutePath() + "]: " + failed.getValue());
+            }
+
+            throw new MojoExecutionException("Import of artifact [" + artifact.getAbsolutePath() + "] to session [" +
+                                             sessionName + "] failed for [" + result.getFailed().size() +
+                                             "] resources");
+        }
+
+        if (result.getImported() != null) {
+            importedRefs.addAll(result.getImported());
+        }
+
+        return result;
+    }
+
+    /**
+     * Import the uploaded artifact with the default import plan and the provided options.
+     *
+     * @param artifact Uploaded artifact file.
+     * @param options Options for the import plan.
+     * @return Result of the import as {@link ImportResult} instance.
+     * @throws MojoExecutionException
+     */
+    private ImportResult importUploaded(File artifact, ImportPlanOptions options) throws MojoExecutionException {
+        return importUploaded(artifact, getImportPlan(options));
+    }
+
+    /**
+     * Get the {@link SessionManagementMBean} proxy. The proxy is resolved on first use.
+     *
+     * @return {@link SessionManagementMBean} instance.
+     * @throws Exception
+     */
+    private SessionManagementMBean getSessionMBean() throws Exception {
+        if (sessionMBean == null) {
+            sessionMBean = mBeanHelper.getSessionMBean();
+        }
+
+        return sessionMBean;
+    }
+
+    /**
+     * Get the {@link ALSBConfigurationMBean} proxy of the session. The proxy is resolved on first use, after the
+     * session is created, and is released when the session is activated or discarded.
+     *
+     * @return {@link ALSBConfigurationMBean} instance.
+     * @throws Exception
+     */
+    private ALSBConfigurationMBean getConfigMBean() throws Exception {
+        if (configMBean == null) {
+            configMBean = mBeanHelper.getConfigMBean(sessionName);
+        }
+
+        return configMBean;
+    }
+
+    /**
+     * Constructs the {@link ALSBImportPlan} that should be used when importing the uploaded archive. The import plan
+     * is based on the default import plan in combination with the provided {@link ImportPlanOptions}.
+     *
+     * @param configMBean {@link ALSBConfigurationMBean} of the session.
+     * @param options Options for the import plan.
+     * @return Instance of {@link ALSBImportPlan}
+     * @throws MojoExecutionException
+     */
+    private ALSBImportPlan getImportPlan(ALSBConfigurationMBean configMBean,
+                                         ImportPlanOptions options) throws MojoExecutionException {
+        try {
+            ALSBJarInfo jarInfo = configMBean.getImportJarInfo();
+            ALSBImportPlan importPlan = jarInfo.getDefaultImportPlan();
+            options.apply(importPlan);
+
+            return importPlan;
+        } catch (Exception ex) {
+            throw new MojoExecutionException("Failed to retreive default import plan");
+        }
+    }
+}
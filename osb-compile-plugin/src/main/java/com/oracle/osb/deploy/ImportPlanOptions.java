@@ -0,0 +1,47 @@
+package com.oracle.osb.deploy;
+
+import com.bea.wli.sb.management.importexport.ALSBImportPlan;
+
+/**
+ * Options that are applied to the default {@link ALSBImportPlan} when an archive is imported to a session.
+ */
+public class ImportPlanOptions {
+
+    private final boolean preserveAccessControlPolicies;
+    private final boolean preserveCredentials;
+    private final boolean preserveEnvValues;
+    private final boolean preserveOperationalValues;
+    private final boolean preserveSecurityAndPolicyConfig;
+
+    /**
+     * Constructor.
+     *
+     * @param preserveAccessControlPolicies Preserve existing access control policies.
+     * @param preserveCredentials Preserve existing credentials.
+     * @param preserveEnvValues Preserve existing environment values.
+     * @param preserveOperationalValues Preserve existing operational values.
+     * @param preserveSecurityAndPolicyConfig Preserve existing security and policy configuration.
+     */
+    public ImportPlanOptions(boolean preserveAccessControlPolicies, boolean preserveCredentials,
+                             boolean preserveEnvValues, boolean preserveOperationalValues,
+                             boolean preserveSecurityAndPolicyConfig) {
+        this.preserveAccessControlPolicies = preserveAccessControlPolicies;
+        this.preserveCredentials = preserveCredentials;
+        this.preserveEnvValues = preserveEnvValues;
+        this.preserveOperationalValues = preserveOperationalValues;
+        this.preserveSecurityAndPolicyConfig = preserveSecurityAndPolicyConfig;
+    }
+
+    /**
+     * Apply the options to an import plan.
+     *
+     * @param importPlan {@link ALSBImportPlan} instance.
+     */
+    public void apply(ALSBImportPlan importPlan) {
+        importPlan.setPreserveExistingAccessControlPolicies(preserveAccessControlPolicies);
+        importPlan.setPreserveExistingCredentials(preserveCredentials);
+        importPlan.setPreserveExistingEnvValues(preserveEnvValues);
+        importPlan.setPreserveExistingOperationalValues(preserveOperationalValues);
+        importPlan.setPreserveExistingSecurityAndPolicyConfig(preserveSecurityAndPolicyConfig);
+    }
+}
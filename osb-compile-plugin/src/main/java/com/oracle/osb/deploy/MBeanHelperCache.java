@@ -0,0 +1,174 @@
+package com.oracle.osb.deploy;
+
+import com.oracle.osb.build.ContentHash;
+
+import java.nio.charset.Charset;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import oracle.sb.maven.plugin.deploy.MBeanHelper;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Cache of {@link MBeanHelper} instances that is shared by all deploy goals and modules of a Maven session. Every
+ * instance holds a connection to a Weblogic server, so the connection is opened and authenticated once per server URL
+ * and credentials, instead of once per module. The key contains a hash of the password, so a request with another
+ * password never reuses an authenticated connection. Connections to different servers are opened concurrently.
+ * <p>
+ * A connection can break during the session, for example when the server is restarted. Callers remove the instance
+ * with {@link #invalidate(MBeanHelper)} when an action on the server fails, so the next request opens a new
+ * connection.
+ * <p>
+ * Every Maven session has its own cache, see {@link #getInstance(MavenSession)}, so a JVM that runs several builds
+ * (like a Maven daemon or an IDE) opens new connections for every build. The cache of a session is released together
+ * with the session.
+ */
+public final class MBeanHelperCache {
+
+    //General settings
+    private static final String KEY_SEPARATOR = "|";
+    private static final Charset PASSWORD_ENCODING = Charset.forName("UTF-8");
+
+    //Caches by execution request of the Maven session
+    private static final Map<MavenExecutionRequest, MBeanHelperCache> INSTANCES =
+        new WeakHashMap<MavenExecutionRequest, MBeanHelperCache>();
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    private long hitCount;
+    private long missCount;
+    private long invalidationCount;
+
+    /**
+     * Constructor.
+     */
+    private MBeanHelperCache() {
+    }
+
+    /**
+     * Get the cache of a Maven session. The cache is created on first use and is the same for all modules, so
+     * connections and hit counts are shared by the modules.
+     *
+     * @param session Maven session.
+     * @return {@link MBeanHelperCache} instance.
+     */
+    public static synchronized MBeanHelperCache getInstance(MavenSession session) {
+        MBeanHelperCache result = INSTANCES.get(session.getRequest());
+
+        if (result == null) {
+            result = new MBeanHelperCache();
+            INSTANCES.put(session.getRequest(), result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the shared {@link MBeanHelper} for the provided server URL and credentials. The instance is created, and the
+     * connection is opened, on first use. Only requests for the same server URL and credentials wait for each other
+     * while the connection is opened; if opening the connection fails, the next request tries again.
+     *
+     * @param serverUrl Weblogic server URL.
+     * @param serverUsername Weblogic username.
+     * @param serverPassword Weblogic password.
+     * @return {@link MBeanHelper} instance.
+     */
+    public MBeanHelper get(String serverUrl, String serverUsername, String serverPassword) {
+        String key = getKey(serverUrl, serverUsername, serverPassword);
+        Entry entry;
+
+        synchronized (this) {
+            entry = entries.get(key);
+
+            if (entry == null) {
+                missCount++;
+                entry = new Entry();
+                entries.put(key, entry);
+            } else {
+                hitCount++;
+            }
+        }
+
+        synchronized (entry) {
+            if (entry.mBeanHelper == null) {
+                entry.mBeanHelper = new MBeanHelper(serverUrl, serverUsername, serverPassword, false);
+            }
+
+            return entry.mBeanHelper;
+        }
+    }
+
+    /**
+     * Remove an instance from the cache, so the next request for its server URL and credentials opens a new
+     * connection. Nothing is removed if the instance was already replaced.
+     *
+     * @param mBeanHelper {@link MBeanHelper} instance, can be null.
+     */
+    public synchronized void invalidate(MBeanHelper mBeanHelper) {
+        if (mBeanHelper == null) {
+            return;
+        }
+
+        Iterator<Entry> iterator = entries.values().iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next().mBeanHelper == mBeanHelper) {
+                iterator.remove();
+                invalidationCount++;
+            }
+        }
+    }
+
+    /**
+     * Get the number of requests that were served by an existing connection.
+     *
+     * @return Number of cache hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the number of requests that opened a new connection.
+     *
+     * @return Number of cache misses.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Get the number of instances that were removed by {@link #invalidate(MBeanHelper)}.
+     *
+     * @return Number of invalidated connections.
+     */
+    public synchronized long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * Get the cache key of a server URL and credentials. The password is part of the key as SHA-256 hash.
+     *
+     * @param serverUrl Weblogic server URL.
+     * @param serverUsername Weblogic username.
+     * @param serverPassword Weblogic password.
+     * @return Cache key.
+     */
+    private static String getKey(String serverUrl, String serverUsername, String serverPassword) {
+        byte[] password = serverPassword != null ? serverPassword.getBytes(PASSWORD_ENCODING) : new byte[0];
+        return serverUrl + KEY_SEPARATOR + serverUsername + KEY_SEPARATOR +
+               ContentHash.toHex(ContentHash.newDigest().digest(password));
+    }
+
+    /**
+     * Cache entry holding the {@link MBeanHelper} of one server URL and credentials.
+     */
+    private static class Entry {
+
+        private MBeanHelper mBeanHelper;
+    }
+}
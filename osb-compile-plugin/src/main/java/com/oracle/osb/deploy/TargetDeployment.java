@@ -0,0 +1,161 @@
+package com.oracle.osb.deploy;
+
+import java.io.File;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Deployment of an artifact to a single server, as part of a deployment to several servers. The deployment is done in
+ * two steps, so all servers can be prepared before any server is activated: {@link #prepare} creates the session,
+ * imports the artifact, applies the customization file and checks for conflicts, {@link #activate} activates the
+ * session. A failure does not throw an exception, but is recorded in the {@link Status} and message of the deployment.
+ */
+public class TargetDeployment {
+
+    /**
+     * Status of a deployment.
+     */
+    public enum Status {
+        PENDING,
+        PREPARED,
+        ACTIVATED,
+        DISCARDED,
+        FAILED
+    }
+
+    private final String targetName;
+    private final Log log;
+    private volatile DeploymentSession session;
+    private volatile Status status = Status.PENDING;
+    private volatile boolean created;
+    private volatile String message;
+    private volatile long duration;
+
+    /**
+     * Constructor.
+     *
+     * @param targetName Name of the target server.
+     * @param log Maven log.
+     */
+    public TargetDeployment(String targetName, Log log) {
+        this.targetName = targetName;
+        this.log = log;
+    }
+
+    /**
+     * Prepare the session: create the session, import the artifact, apply the customization file and check the
+     * session for conflicts.
+     *
+     * @param session Session on the target server.
+     * @param artifact Artifact file.
+     * @param content Content of the artifact file.
+     * @param options Options for the import plan.
+     * @param customizationFile Customization file, can be null.
+     * @param conflictCheck {@link ConflictCheck} mode.
+     */
+    public void prepare(DeploymentSession session, File artifact, byte[] content, ImportPlanOptions options,
+                        File customizationFile, ConflictCheck conflictCheck) {
+        long start = System.currentTimeMillis();
+        this.session = session;
+
+        try {
+            session.create();
+            created = true;
+            session.importArtifact(artifact, content, options);
+            session.applyCustomizationFile(customizationFile);
+
+            if (session.hasConflicts(conflictCheck)) {
+                fail("Session [" + session.getName() + "] has conflicts");
+            } else {
+                status = Status.PREPARED;
+            }
+        } catch (MojoExecutionException ex) {
+            fail(ex.getMessage());
+        } finally {
+            duration += System.currentTimeMillis() - start;
+        }
+    }
+
+    /**
+     * Activate the prepared session.
+     */
+    public void activate() {
+        long start = System.currentTimeMillis();
+
+        try {
+            session.activate();
+            status = Status.ACTIVATED;
+        } catch (MojoExecutionException ex) {
+            fail(ex.getMessage());
+        } finally {
+            duration += System.currentTimeMillis() - start;
+        }
+    }
+
+    /**
+     * Discard the session, if it was created. If the deployment failed, the status remains {@link Status#FAILED}.
+     */
+    public void discard() {
+        if (!created) {
+            return;
+        }
+
+        try {
+            session.discard();
+
+            if (status != Status.FAILED) {
+                status = Status.DISCARDED;
+            }
+        } catch (MojoExecutionException ex) {
+            log.error("[" + targetName + "] " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Get the name of the target server.
+     *
+     * @return Target name.
+     */
+    public String getTargetName() {
+        return targetName;
+    }
+
+    /**
+     * Get the status of the deployment.
+     *
+     * @return {@link Status} of the deployment.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Get the failure message of the deployment.
+     *
+     * @return Failure message, null if the deployment did not fail.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Get the time spent on the deployment.
+     *
+     * @return Duration in milliseconds.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Mark the deployment as failed.
+     *
+     * @param message Failure message.
+     */
+    public void fail(String message) {
+        log.error("[" + targetName + "] " + message);
+        this.message = message;
+        this.status = Status.FAILED;
+    }
+}
@@ -0,0 +1,205 @@
+package com.oracle.osb.fileset;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Include and exclude patterns of a deploy file, used to package or deploy a subset of the resources of a project.
+ * Files with the <i>.xml</i> extension are read as XML (see <i>deploy-file.xml</i>):
+ * <pre>
+ * &lt;resources&gt;
+ *     &lt;includes&gt;
+ *         &lt;include&gt;SBProject/Resources/xsd/one.xsd&lt;/include&gt;
+ *     &lt;/includes&gt;
+ *     &lt;excludes&gt;
+ *         &lt;exclude&gt;SBProject/Resources/xsd/two.xsd&lt;/exclude&gt;
+ *     &lt;/excludes&gt;
+ * &lt;/resources&gt;
+ * </pre>
+ * Other files are read as plain text manifest, with one pattern per line. Lines starting with <i>!</i> are excludes,
+ * lines starting with <i>#</i> are comments and empty lines are ignored:
+ * <pre>
+ * # Schemas of release 2
+ * SBProject/Resources/xsd/**
+ * !SBProject/Resources/xsd/two.xsd
+ * </pre>
+ * Both formats are read in a single streaming pass. Use {@link DeployFileCache} to read a deploy file only once per
+ * Maven session.
+ */
+public final class DeployFile {
+
+    //Deploy file elements
+    private static final String ELEMENT_RESOURCES = "resources";
+    private static final String ELEMENT_INCLUDES = "includes";
+    private static final String ELEMENT_INCLUDE = "include";
+    private static final String ELEMENT_EXCLUDES = "excludes";
+    private static final String ELEMENT_EXCLUDE = "exclude";
+
+    //Manifest settings
+    private static final String MANIFEST_EXCLUDE_PREFIX = "!";
+    private static final String MANIFEST_COMMENT_PREFIX = "#";
+
+    //General settings
+    private static final String XML_EXTENSION = ".xml";
+    private static final String DEFAULT_ENCODING = "UTF-8";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String[] includes;
+    private final String[] excludes;
+
+    /**
+     * Constructor.
+     *
+     * @param includes Include patterns.
+     * @param excludes Exclude patterns.
+     */
+    private DeployFile(List<String> includes, List<String> excludes) {
+        this.includes = includes.toArray(new String[includes.size()]);
+        this.excludes = excludes.toArray(new String[excludes.size()]);
+    }
+
+    /**
+     * Read a deploy file. Files with the <i>.xml</i> extension are read as XML, other files as plain text manifest.
+     *
+     * @param file Deploy file.
+     * @return {@link DeployFile} instance.
+     * @throws IOException
+     * @throws XMLStreamException
+     */
+    public static DeployFile read(File file) throws IOException, XMLStreamException {
+        if (file.getName().toLowerCase(Locale.ENGLISH).endsWith(XML_EXTENSION)) {
+            return readXml(file);
+        }
+
+        return readManifest(file);
+    }
+
+    /**
+     * Get the include patterns.
+     *
+     * @return Include patterns.
+     */
+    public String[] getIncludes() {
+        return includes.clone();
+    }
+
+    /**
+     * Get the exclude patterns.
+     *
+     * @return Exclude patterns.
+     */
+    public String[] getExcludes() {
+        return excludes.clone();
+    }
+
+    /**
+     * Read an XML deploy file with a {@link XMLStreamReader}. Only the <i>include</i> and <i>exclude</i> elements at
+     * <i>/resources/includes/include</i> and <i>/resources/excludes/exclude</i> are read.
+     *
+     * @param file Deploy file.
+     * @return {@link DeployFile} instance.
+     * @throws IOException
+     * @throws XMLStreamException
+     */
+    private static DeployFile readXml(File file) throws IOException, XMLStreamException {
+        List<String> includes = new ArrayList<String>();
+        List<String> excludes = new ArrayList<String>();
+        InputStream inputStream = null;
+        XMLStreamReader reader = null;
+
+        try {
+            XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+            inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            inputStream = new FileInputStream(file);
+            reader = inputFactory.createXMLStreamReader(inputStream);
+
+            String[] path = new String[3];
+            int depth = 0;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (depth < path.length) {
+                        path[depth] = reader.getLocalName();
+                    }
+
+                    depth++;
+
+                    if (depth == 3 && ELEMENT_RESOURCES.equals(path[0])) {
+                        if (ELEMENT_INCLUDES.equals(path[1]) && ELEMENT_INCLUDE.equals(path[2])) {
+                            includes.add(reader.getElementText().trim());
+                            depth--;
+                        } else if (ELEMENT_EXCLUDES.equals(path[1]) && ELEMENT_EXCLUDE.equals(path[2])) {
+                            excludes.add(reader.getElementText().trim());
+                            depth--;
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+
+            IOUtils.closeQuietly(inputStream);
+        }
+
+        return new DeployFile(includes, excludes);
+    }
+
+    /**
+     * Read a plain text manifest, with one include or exclude pattern per line.
+     *
+     * @param file Manifest file.
+     * @return {@link DeployFile} instance.
+     * @throws IOException
+     */
+    @SuppressWarnings("oracle.jdeveloper.java.nested-assignment")
+    private static DeployFile readManifest(File file) throws IOException {
+        List<String> includes = new ArrayList<String>();
+        List<String> excludes = new ArrayList<String>();
+        BufferedReader reader = null;
+
+        try {
+            reader =
+                new BufferedReader(new InputStreamReader(new FileInputStream(file), DEFAULT_ENCODING), BUFFER_SIZE);
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+
+                if (line.isEmpty() || line.startsWith(MANIFEST_COMMENT_PREFIX)) {
+                    continue;
+                }
+
+                if (line.startsWith(MANIFEST_EXCLUDE_PREFIX)) {
+                    excludes.add(line.substring(MANIFEST_EXCLUDE_PREFIX.length()).trim());
+                } else {
+                    includes.add(line);
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+
+        return new DeployFile(includes, excludes);
+    }
+}
@@ -0,0 +1,97 @@
+package com.oracle.osb.fileset;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Cache of {@link DeployFile} instances that is shared by all modules of a Maven session. Generated deploy files can
+ * list tens of thousands of resources, so every file is read once per session instead of once per module. A file is
+ * read again when its modification time or size changed. Every Maven session has its own cache, which is released
+ * together with the session.
+ */
+public final class DeployFileCache {
+
+    //Caches by execution request of the Maven session
+    private static final Map<MavenExecutionRequest, DeployFileCache> INSTANCES =
+        new WeakHashMap<MavenExecutionRequest, DeployFileCache>();
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    /**
+     * Constructor.
+     */
+    private DeployFileCache() {
+    }
+
+    /**
+     * Get the cache of a Maven session. The cache is created on first use and is the same for all modules.
+     *
+     * @param session Maven session.
+     * @return {@link DeployFileCache} instance.
+     */
+    public static synchronized DeployFileCache getInstance(MavenSession session) {
+        DeployFileCache result = INSTANCES.get(session.getRequest());
+
+        if (result == null) {
+            result = new DeployFileCache();
+            INSTANCES.put(session.getRequest(), result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the content of a deploy file. The file is read on first use, or when it changed since it was read. Only
+     * requests for the same file wait for each other while the file is read.
+     *
+     * @param file Deploy file.
+     * @return {@link DeployFile} instance.
+     * @throws IOException
+     * @throws XMLStreamException
+     */
+    public DeployFile get(File file) throws IOException, XMLStreamException {
+        String key = file.getAbsolutePath();
+        Entry entry;
+
+        synchronized (this) {
+            entry = entries.get(key);
+
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(key, entry);
+            }
+        }
+
+        synchronized (entry) {
+            long lastModified = file.lastModified();
+            long length = file.length();
+
+            if (entry.deployFile == null || entry.lastModified != lastModified || entry.length != length) {
+                entry.deployFile = DeployFile.read(file);
+                entry.lastModified = lastModified;
+                entry.length = length;
+            }
+
+            return entry.deployFile;
+        }
+    }
+
+    /**
+     * Cache entry holding the content of one deploy file.
+     */
+    private static class Entry {
+
+        private DeployFile deployFile;
+        private long lastModified;
+        private long length;
+    }
+}
@@ -0,0 +1,145 @@
+package com.oracle.osb.fileset;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Cache of directory scans that is shared by all goals and modules of a Maven session. The files of every project
+ * directory are scanned once by {@link FilesetResolver#scan()}; other goals that resolve a fileset of the same
+ * directory, like the native export engine, filter the cached file list instead of walking the tree again. Different
+ * project directories are scanned concurrently. Use {@link #invalidate(File)} when the files of a project directory
+ * change during the session.
+ * <p>
+ * Every Maven session has its own cache, see {@link #getInstance(MavenSession)}, so a JVM that runs several builds
+ * (like a Maven daemon or an IDE) never reuses the scans of an earlier build. The cache of a session is released
+ * together with the session.
+ */
+public final class FilesetCache {
+
+    //Caches by execution request of the Maven session
+    private static final Map<MavenExecutionRequest, FilesetCache> INSTANCES =
+        new WeakHashMap<MavenExecutionRequest, FilesetCache>();
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Constructor, for a cache that is not bound to a Maven session.
+     */
+    public FilesetCache() {
+    }
+
+    /**
+     * Get the cache of a Maven session. The cache is created on first use and shared by the session clones that
+     * Maven passes to the modules, see {@link com.oracle.osb.build.BuildScheduler#getInstance(MavenSession, int, int)}.
+     *
+     * @param session Maven session.
+     * @return {@link FilesetCache} instance.
+     */
+    public static synchronized FilesetCache getInstance(MavenSession session) {
+        FilesetCache result = INSTANCES.get(session.getRequest());
+
+        if (result == null) {
+            result = new FilesetCache();
+            INSTANCES.put(session.getRequest(), result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the scanned files of the project directory of a resolver. The directory is scanned on first use. Only
+     * requests for the same directory and pruned directories wait for each other while the directory is scanned; if
+     * the scan fails, the next request tries again.
+     *
+     * @param resolver {@link FilesetResolver} of the project directory.
+     * @return Sorted list of paths, relative to the project directory and separated by slashes.
+     * @throws IOException
+     */
+    public List<String> getFiles(FilesetResolver resolver) throws IOException {
+        String key = resolver.getScanKey();
+        Entry entry;
+
+        synchronized (this) {
+            entry = entries.get(key);
+
+            if (entry == null) {
+                missCount++;
+                entry = new Entry(resolver.getProjectDir());
+                entries.put(key, entry);
+            } else {
+                hitCount++;
+            }
+        }
+
+        synchronized (entry) {
+            if (entry.files == null) {
+                entry.files = resolver.scan();
+            }
+
+            return entry.files;
+        }
+    }
+
+    /**
+     * Remove all scans of a project directory from the cache, so the directory is scanned again on next use.
+     *
+     * @param projectDir Project directory.
+     */
+    public synchronized void invalidate(File projectDir) {
+        File dir = projectDir.getAbsoluteFile();
+        Iterator<Entry> iterator = entries.values().iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next().projectDir.equals(dir)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Get the number of requests that were served by an existing scan.
+     *
+     * @return Number of cache hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the number of requests that scanned a directory.
+     *
+     * @return Number of cache misses.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Cache entry holding the scanned files of one project directory.
+     */
+    private static class Entry {
+
+        private final File projectDir;
+        private List<String> files;
+
+        /**
+         * Constructor.
+         *
+         * @param projectDir Project directory.
+         */
+        Entry(File projectDir) {
+            this.projectDir = projectDir.getAbsoluteFile();
+        }
+    }
+}
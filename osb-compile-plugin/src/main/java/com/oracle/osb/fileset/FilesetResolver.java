@@ -0,0 +1,353 @@
+package com.oracle.osb.fileset;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang.StringUtils;
+
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * Class to resolve the files of an OSB project that match the include and exclude patterns of the Configjar fileset.
+ * Patterns starting with a slash are relative to the project directory (example: <i>/pom.xml</i>). Other patterns
+ * start with the project name (example: <i>SBProject/Resources/xsd/one.xsd</i> or <i>*&#47;.data/**</i>). If no
+ * include patterns are provided, all files are included.
+ * <p>
+ * The project directory is walked with {@link Files#walkFileTree}, every top level directory on its own thread.
+ * Directories that are excluded as a whole by a pattern ending with <i>/**</i>, like <i>*&#47;.data/**</i>, are not
+ * entered. If a {@link FilesetCache} is provided, usually the cache of the Maven session, {@link #resolve()} only walks
+ * the tree the first time a project directory is resolved. Patterns without wildcards, like the paths of a generated
+ * deploy file, are matched with a hash lookup, so the number of patterns does not slow down the resolution.
+ */
+public class FilesetResolver {
+
+    //General settings
+    private static final String SEPARATOR = "/";
+    private static final String DIRECTORY_PATTERN_SUFFIX = "/**";
+    private static final String KEY_SEPARATOR = "|";
+    private static final String WILDCARD_CHARACTERS = "*?";
+    private static final String SELECTOR_PREFIX = "%";
+
+    private final File projectDir;
+    private final String[] includes;
+    private final String[] excludes;
+    private final FilesetCache cache;
+    private final Set<String> includePaths = new HashSet<String>();
+    private final Set<String> excludePaths = new HashSet<String>();
+    private final List<String> includePatterns = new ArrayList<String>();
+    private final List<String> excludePatterns = new ArrayList<String>();
+
+    /**
+     * Constructor.
+     *
+     * @param projectDir OSB project directory.
+     * @param includes Include patterns, can be null.
+     * @param excludes Exclude patterns, can be null.
+     */
+    public FilesetResolver(File projectDir, String[] includes, String[] excludes) {
+        this(projectDir, includes, excludes, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param projectDir OSB project directory.
+     * @param includes Include patterns, can be null.
+     * @param excludes Exclude patterns, can be null.
+     * @param cache {@link FilesetCache} that holds the scan of the project directory, null to scan the project
+     * directory on every {@link #resolve()}.
+     */
+    public FilesetResolver(File projectDir, String[] includes, String[] excludes, FilesetCache cache) {
+        this.projectDir = projectDir;
+        this.includes = includes != null ? includes : new String[0];
+        this.excludes = excludes != null ? excludes : new String[0];
+        this.cache = cache;
+        splitPatterns(this.includes, includePaths, includePatterns);
+        splitPatterns(this.excludes, excludePaths, excludePatterns);
+    }
+
+    /**
+     * Get the project directory.
+     *
+     * @return OSB project directory.
+     */
+    public File getProjectDir() {
+        return projectDir;
+    }
+
+    /**
+     * Resolve all files in the project directory that are included by the fileset. The files of the project directory
+     * are taken from the {@link FilesetCache}, if any.
+     *
+     * @return Sorted list of paths, relative to the project directory and separated by slashes.
+     * @throws IOException
+     */
+    public List<String> resolve() throws IOException {
+        List<String> result = new ArrayList<String>();
+
+        for (String file : cache != null ? cache.getFiles(this) : scan()) {
+            if (isIncluded(file)) {
+                result.add(file);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Scan the project directory, without using the {@link FilesetCache}. The top level directories are walked
+     * concurrently. Directories excluded as a whole by the exclude patterns are skipped, other files are returned
+     * whether they are included or not.
+     *
+     * @return Sorted list of paths, relative to the project directory and separated by slashes.
+     * @throws IOException
+     */
+    public List<String> scan() throws IOException {
+        List<String> result = new ArrayList<String>();
+        List<File> dirs = new ArrayList<File>();
+        File[] files = projectDir.listFiles();
+
+        if (files != null) {
+            for (File file : files) {
+                if (!file.isDirectory()) {
+                    result.add(file.getName());
+                } else if (!isExcludedDirectory(file.getName())) {
+                    dirs.add(file);
+                }
+            }
+        }
+
+        if (dirs.size() > 1) {
+            walkParallel(dirs, result);
+        } else {
+            for (File dir : dirs) {
+                result.addAll(walk(dir));
+            }
+        }
+
+        Collections.sort(result);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Get the key of the scan of this resolver in the {@link FilesetCache}. Resolvers of the same project directory
+     * with the same directory excludes share their scan.
+     *
+     * @return Cache key.
+     */
+    String getScanKey() {
+        StringBuilder key = new StringBuilder(projectDir.getAbsolutePath());
+
+        for (String exclude : excludes) {
+            if (exclude.endsWith(DIRECTORY_PATTERN_SUFFIX)) {
+                key.append(KEY_SEPARATOR).append(exclude);
+            }
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * Check if a path is included by the fileset.
+     *
+     * @param relativePath Path relative to the project directory, separated by slashes.
+     * @return TRUE if the path matches one of the include patterns and none of the exclude patterns, FALSE otherwise.
+     */
+    public boolean isIncluded(String relativePath) {
+        return (includes.length == 0 || matchesAny(includePaths, includePatterns, relativePath)) &&
+               !matchesAny(excludePaths, excludePatterns, relativePath);
+    }
+
+    /**
+     * Check if a directory is excluded as a whole, because it matches the base of an exclude pattern ending with
+     * <i>/**</i>. All files in such a directory are excluded, so the directory does not need to be scanned.
+     *
+     * @param relativeDir Path of the directory relative to the project directory, separated by slashes.
+     * @return TRUE if all files in the directory are excluded, FALSE otherwise.
+     */
+    public boolean isExcludedDirectory(String relativeDir) {
+        String projectPath = projectDir.getName() + SEPARATOR + relativeDir;
+
+        for (String exclude : excludes) {
+            if (!exclude.endsWith(DIRECTORY_PATTERN_SUFFIX)) {
+                continue;
+            }
+
+            String pattern = exclude.substring(0, exclude.length() - DIRECTORY_PATTERN_SUFFIX.length());
+            boolean match;
+
+            if (pattern.startsWith(SEPARATOR)) {
+                match = SelectorUtils.matchPath(pattern.substring(1), relativeDir, SEPARATOR, true);
+            } else {
+                match = SelectorUtils.matchPath(pattern, projectPath, SEPARATOR, true);
+            }
+
+            if (match) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Walk the top level directories of the project directory concurrently, every directory on its own thread.
+     *
+     * @param dirs Top level directories.
+     * @param result List to add the files to.
+     * @throws IOException
+     */
+    private void walkParallel(List<File> dirs, List<String> result) throws IOException {
+        ExecutorService executor =
+            Executors.newFixedThreadPool(Math.min(dirs.size(), Runtime.getRuntime().availableProcessors()));
+        List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+
+        try {
+            for (final File dir : dirs) {
+                futures.add(executor.submit(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() throws IOException {
+                        return walk(dir);
+                    }
+                }));
+            }
+
+            for (Future<List<String>> future : futures) {
+                result.addAll(future.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning directory [" + projectDir.getAbsolutePath() + "]", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+
+            throw new IOException("Exception occurred while scanning directory [" + projectDir.getAbsolutePath() +
+                                  "]", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Walk a top level directory of the project directory. Symbolic links are followed and directories that cannot
+     * be read are skipped.
+     *
+     * @param dir Top level directory.
+     * @return Paths of the files in the directory, relative to the project directory and separated by slashes.
+     * @throws IOException
+     */
+    private List<String> walk(File dir) throws IOException {
+        final List<String> result = new ArrayList<String>();
+        final Path root = projectDir.toPath();
+
+        Files.walkFileTree(dir.toPath(), EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                           new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attributes) {
+                return isExcludedDirectory(getRelativePath(root, path)) ? FileVisitResult.SKIP_SUBTREE :
+                       FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                if (!attributes.isDirectory()) {
+                    result.add(getRelativePath(root, path));
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException ex) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Get the path of a file relative to the project directory, separated by slashes.
+     *
+     * @param root Project directory.
+     * @param path File in the project directory.
+     * @return Relative path.
+     */
+    private static String getRelativePath(Path root, Path path) {
+        return root.relativize(path).toString().replace(File.separator, SEPARATOR);
+    }
+
+    /**
+     * Split patterns into the paths of the patterns without wildcards, as path starting with the project name, and the
+     * patterns with wildcards.
+     *
+     * @param patterns Fileset patterns.
+     * @param paths Set to add the paths of the patterns without wildcards to.
+     * @param wildcardPatterns List to add the patterns with wildcards to.
+     */
+    private void splitPatterns(String[] patterns, Set<String> paths, List<String> wildcardPatterns) {
+        for (String pattern : patterns) {
+            if (StringUtils.containsAny(pattern, WILDCARD_CHARACTERS) || pattern.startsWith(SELECTOR_PREFIX) ||
+                pattern.endsWith(SEPARATOR)) {
+                wildcardPatterns.add(pattern);
+            } else if (pattern.startsWith(SEPARATOR)) {
+                paths.add(projectDir.getName() + pattern);
+            } else {
+                paths.add(pattern);
+            }
+        }
+    }
+
+    /**
+     * Check if a path matches any of the provided patterns.
+     *
+     * @param paths Paths of the patterns without wildcards, starting with the project name.
+     * @param patterns Fileset patterns with wildcards.
+     * @param relativePath Path relative to the project directory, separated by slashes.
+     * @return TRUE if the path matches one of the patterns, FALSE otherwise.
+     */
+    private boolean matchesAny(Set<String> paths, List<String> patterns, String relativePath) {
+        String projectPath = projectDir.getName() + SEPARATOR + relativePath;
+
+        if (paths.contains(projectPath)) {
+            return true;
+        }
+
+        for (String pattern : patterns) {
+            boolean match;
+
+            if (pattern.startsWith(SEPARATOR)) {
+                match = SelectorUtils.matchPath(pattern.substring(1), relativePath, SEPARATOR, true);
+            } else {
+                match = SelectorUtils.matchPath(pattern, projectPath, SEPARATOR, true);
+            }
+
+            if (match) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,216 @@
+package com.oracle.osb.fileset;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watcher of the files of an OSB project directory, based on the {@link WatchService} of the file system. All
+ * directories of the project are registered, except the directories that are excluded as a whole, like the build
+ * directory <i>.data/maven</i>, so writing the archive does not trigger a new change. Directories created while
+ * watching are registered when they appear.
+ * <p>
+ * Editors and version control tools change several files at once, or write a single file in several steps, so
+ * {@link #take(long, long)} returns the changes in batches: a batch is completed when no file changed for the quiet
+ * period, or when the maximum delay since the first change of the batch has passed.
+ */
+public class ProjectWatcher implements Closeable {
+
+    //General settings
+    private static final String SEPARATOR = "/";
+
+    private final Path root;
+    private final FilesetResolver resolver;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<WatchKey, Path>();
+    private boolean overflow;
+
+    /**
+     * Constructor. Registers all directories of the project that are not excluded.
+     *
+     * @param projectDir OSB project directory.
+     * @param excludes Exclude patterns of the project, can be null.
+     * @throws IOException
+     */
+    public ProjectWatcher(File projectDir, String[] excludes) throws IOException {
+        this.root = projectDir.getAbsoluteFile().toPath();
+        this.resolver = new FilesetResolver(projectDir.getAbsoluteFile(), null, excludes);
+        this.watchService = FileSystems.getDefault().newWatchService();
+        register(root, null);
+    }
+
+    /**
+     * Wait for the next batch of changes. Blocks until a file changes, and collects all following changes until no
+     * file changed for the quiet period, or the maximum delay has passed since the first change.
+     *
+     * @param quietPeriod Time without changes that completes a batch, in milliseconds.
+     * @param maxDelay Maximum time between the first change and the end of the batch, in milliseconds.
+     * @return Sorted set of the changed, created and deleted paths, relative to the project directory and separated by
+     * slashes. The set is empty if the events of the batch were lost, see {@link #isOverflow()}.
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    public Set<String> take(long quietPeriod, long maxDelay) throws InterruptedException, IOException {
+        Set<String> result = new TreeSet<String>();
+        long deadline = 0L;
+        overflow = false;
+
+        while (true) {
+            WatchKey key;
+
+            if (deadline == 0L) {
+                key = watchService.take();
+            } else {
+                long wait = Math.min(quietPeriod, deadline - System.currentTimeMillis());
+
+                if (wait <= 0L) {
+                    return result;
+                }
+
+                key = watchService.poll(wait, TimeUnit.MILLISECONDS);
+
+                if (key == null) {
+                    return result;
+                }
+            }
+
+            processEvents(key, result);
+
+            if (deadline == 0L && (overflow || !result.isEmpty())) {
+                deadline = System.currentTimeMillis() + maxDelay;
+            }
+        }
+    }
+
+    /**
+     * Check if events of the last batch were lost, because the file system reported more changes than it could queue.
+     * The caller should check all files of the project in this case.
+     *
+     * @return TRUE if events of the last batch were lost, FALSE otherwise.
+     */
+    public boolean isOverflow() {
+        return overflow;
+    }
+
+    /**
+     * Get the number of watched directories.
+     *
+     * @return Number of watched directories.
+     */
+    public int getDirectoryCount() {
+        return directories.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * Add the paths of the events of a watch key to the batch. Directories that are created are registered, and their
+     * files are added to the batch, because they may have been created before the directory was registered.
+     *
+     * @param key Signalled watch key.
+     * @param result Paths of the batch.
+     * @throws IOException
+     */
+    private void processEvents(WatchKey key, Set<String> result) throws IOException {
+        Path dir = directories.get(key);
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+
+            if (dir == null) {
+                continue;
+            }
+
+            Path path = dir.resolve((Path) event.context());
+            String relativePath = getRelativePath(path);
+
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE &&
+                Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                if (!resolver.isExcludedDirectory(relativePath)) {
+                    register(path, result);
+                }
+            } else if (resolver.isIncluded(relativePath)) {
+                result.add(relativePath);
+            }
+        }
+
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    /**
+     * Register a directory and all its subdirectories that are not excluded.
+     *
+     * @param start Directory to register.
+     * @param result Paths of the batch to add the files of the directories to, null to not add the files.
+     * @throws IOException
+     */
+    private void register(Path start, final Set<String> result) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attributes) throws IOException {
+                if (!path.equals(root) && resolver.isExcludedDirectory(getRelativePath(path))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
+                WatchKey key =
+                    path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                  StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                directories.put(key, path);
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                String relativePath = getRelativePath(path);
+
+                if (result != null && resolver.isIncluded(relativePath)) {
+                    result.add(relativePath);
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException ex) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Get the path of a file relative to the project directory, separated by slashes.
+     *
+     * @param path File in the project directory.
+     * @return Relative path.
+     */
+    private String getRelativePath(Path path) {
+        return root.relativize(path).toString().replace(File.separator, SEPARATOR);
+    }
+}
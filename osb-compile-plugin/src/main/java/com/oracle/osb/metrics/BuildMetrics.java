@@ -0,0 +1,275 @@
+package com.oracle.osb.metrics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Metrics of a single execution of a goal: the duration of every phase and counters like the number of resources and
+ * the bytes written or uploaded. The metrics are written to the build directory as a JSON report and as a Prometheus
+ * text file (for the textfile collector of the node exporter), both named after the goal, so the performance of builds
+ * and deployments can be charted over time. The files are replaced atomically, so a collector never reads a partial
+ * report.
+ * <p>
+ * All methods are synchronized, so phases and counters can be recorded from several threads.
+ */
+public class BuildMetrics {
+
+    //Report file settings
+    private static final String FILENAME_PREFIX = "osb-metrics-";
+    private static final String JSON_EXTENSION = ".json";
+    private static final String PROMETHEUS_EXTENSION = ".prom";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final String ENCODING = "UTF-8";
+
+    //Prometheus metric names
+    private static final String METRIC_PREFIX = "osb_";
+    private static final String METRIC_PHASE_DURATION = "osb_phase_duration_seconds";
+    private static final String METRIC_SUCCESS = "osb_last_run_success";
+    private static final String METRIC_TIMESTAMP = "osb_last_run_timestamp_seconds";
+
+    private final String goal;
+    private final String project;
+    private final long timestamp = System.currentTimeMillis();
+    private final Map<String, Long> durations = new LinkedHashMap<String, Long>();
+    private final Map<String, Long> counts = new LinkedHashMap<String, Long>();
+    private boolean success;
+
+    /**
+     * Constructor.
+     *
+     * @param goal Goal name (example: package).
+     * @param project Maven artifact id of the project.
+     */
+    public BuildMetrics(String goal, String project) {
+        this.goal = goal;
+        this.project = project;
+    }
+
+    /**
+     * Record the duration of a phase. If the phase is recorded more than once, the durations are added.
+     *
+     * @param phase Phase name.
+     * @param millis Duration in milliseconds.
+     */
+    public synchronized void addDuration(String phase, long millis) {
+        Long current = durations.get(phase);
+        durations.put(phase, current != null ? current + millis : millis);
+    }
+
+    /**
+     * Add a value to a counter.
+     *
+     * @param name Counter name in camel case (example: archiveBytes).
+     * @param value Value to add.
+     */
+    public synchronized void addCount(String name, long value) {
+        Long current = counts.get(name);
+        counts.put(name, current != null ? current + value : value);
+    }
+
+    /**
+     * Set the outcome of the execution.
+     *
+     * @param success True if the execution succeeded.
+     */
+    public synchronized void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    /**
+     * Write the JSON report and the Prometheus text file to the build directory.
+     *
+     * @param buildDir Build directory.
+     * @throws IOException
+     */
+    public synchronized void write(File buildDir) throws IOException {
+        buildDir.mkdirs();
+        writeAtomically(new File(buildDir, FILENAME_PREFIX + goal + JSON_EXTENSION), toJson());
+        writeAtomically(new File(buildDir, FILENAME_PREFIX + goal + PROMETHEUS_EXTENSION), toPrometheus());
+    }
+
+    /**
+     * Format the metrics as JSON object.
+     *
+     * @return JSON content.
+     */
+    private String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"goal\": ").append(quote(goal)).append(",\n");
+        json.append("  \"project\": ").append(quote(project)).append(",\n");
+        json.append("  \"timestamp\": ").append(timestamp).append(",\n");
+        json.append("  \"success\": ").append(success).append(",\n");
+        json.append("  \"durationsMillis\": ");
+        appendJsonObject(json, durations);
+        json.append(",\n");
+        json.append("  \"counts\": ");
+        appendJsonObject(json, counts);
+        json.append("\n}\n");
+
+        return json.toString();
+    }
+
+    /**
+     * Append a map of values to JSON content as JSON object.
+     *
+     * @param json JSON content.
+     * @param values Values by name.
+     */
+    private static void appendJsonObject(StringBuilder json, Map<String, Long> values) {
+        json.append('{');
+        String separator = "\n";
+
+        for (Map.Entry<String, Long> value : values.entrySet()) {
+            json.append(separator).append("    ").append(quote(value.getKey())).append(": ").append(value.getValue());
+            separator = ",\n";
+        }
+
+        json.append(values.isEmpty() ? "}" : "\n  }");
+    }
+
+    /**
+     * Format the metrics in the Prometheus text format. Every counter is a gauge named after the counter in snake
+     * case (example: archiveBytes becomes osb_archive_bytes), the durations are a single gauge with a phase label.
+     *
+     * @return Prometheus content.
+     */
+    private String toPrometheus() {
+        String labels = "goal=\"" + escapeLabel(goal) + "\",project=\"" + escapeLabel(project) + "\"";
+        StringBuilder prometheus = new StringBuilder();
+
+        appendGauge(prometheus, METRIC_TIMESTAMP, "Time of the last run.");
+        prometheus.append(METRIC_TIMESTAMP).append('{').append(labels).append("} ");
+        prometheus.append(timestamp / 1000).append('\n');
+        appendGauge(prometheus, METRIC_SUCCESS, "1 if the last run succeeded, 0 otherwise.");
+        prometheus.append(METRIC_SUCCESS).append('{').append(labels).append("} ");
+        prometheus.append(success ? 1 : 0).append('\n');
+
+        if (!durations.isEmpty()) {
+            appendGauge(prometheus, METRIC_PHASE_DURATION, "Duration of a phase of the last run.");
+
+            for (Map.Entry<String, Long> duration : durations.entrySet()) {
+                prometheus.append(METRIC_PHASE_DURATION).append('{').append(labels).append(",phase=\"");
+                prometheus.append(escapeLabel(duration.getKey())).append("\"} ");
+                prometheus.append(duration.getValue() / 1000.0).append('\n');
+            }
+        }
+
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            String metric = METRIC_PREFIX + toSnakeCase(count.getKey());
+            appendGauge(prometheus, metric, count.getKey() + " of the last run.");
+            prometheus.append(metric).append('{').append(labels).append("} ").append(count.getValue()).append('\n');
+        }
+
+        return prometheus.toString();
+    }
+
+    /**
+     * Append the help and type lines of a gauge to Prometheus content.
+     *
+     * @param prometheus Prometheus content.
+     * @param metric Metric name.
+     * @param help Help text.
+     */
+    private static void appendGauge(StringBuilder prometheus, String metric, String help) {
+        prometheus.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        prometheus.append("# TYPE ").append(metric).append(" gauge\n");
+    }
+
+    /**
+     * Convert a camel case name to snake case, replacing all characters that are not allowed in a metric name.
+     *
+     * @param name Camel case name.
+     * @return Snake case name.
+     */
+    private static String toSnakeCase(String name) {
+        StringBuilder result = new StringBuilder(name.length() + 8);
+
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+
+            if (Character.isUpperCase(c)) {
+                if (i > 0) {
+                    result.append('_');
+                }
+
+                result.append(Character.toLowerCase(c));
+            } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                result.append(c);
+            } else {
+                result.append('_');
+            }
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Quote a string as JSON string.
+     *
+     * @param value String value.
+     * @return Quoted value.
+     */
+    private static String quote(String value) {
+        StringBuilder result = new StringBuilder(value.length() + 2);
+        result.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                result.append('\\').append(c);
+            } else if (c < 0x20) {
+                result.append(String.format("\\u%04x", (int) c));
+            } else {
+                result.append(c);
+            }
+        }
+
+        return result.append('"').toString();
+    }
+
+    /**
+     * Escape a Prometheus label value.
+     *
+     * @param value Label value.
+     * @return Escaped value.
+     */
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Write content to a temporary file and move it to the target file.
+     *
+     * @param file Target file.
+     * @param content Content.
+     * @throws IOException
+     */
+    private static void writeAtomically(File file, String content) throws IOException {
+        File tempFile = new File(file.getParentFile(), file.getName() + TEMP_EXTENSION);
+        Writer writer = null;
+
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), ENCODING));
+            writer.write(content);
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,112 @@
+package com.oracle.osb.archiver;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the archives written by {@link SbarArchiver} with several threads.
+ */
+public class SbarArchiverTest {
+
+    //Project settings
+    private static final int RESOURCE_COUNT = 200;
+    private static final int MAX_RESOURCE_SIZE = 64 * 1024;
+    private static final long LAST_MODIFIED = 1500000000000L;
+    private static final String PROJECT = "Project";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Deflated archives written with one and with several threads are byte-identical.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void deflatedArchiveIsSameForEveryThreadCount() throws Exception {
+        File projectDir = writeProject();
+
+        assertArrayEquals(writeArchive(projectDir, Compression.DEFLATED, 1),
+                          writeArchive(projectDir, Compression.DEFLATED, 4));
+    }
+
+    /**
+     * Stored archives written with one and with several threads are byte-identical.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void storedArchiveIsSameForEveryThreadCount() throws Exception {
+        File projectDir = writeProject();
+
+        assertArrayEquals(writeArchive(projectDir, Compression.STORED, 1),
+                          writeArchive(projectDir, Compression.STORED, 4));
+    }
+
+    /**
+     * Write {@link #RESOURCE_COUNT} resources of random size, partly random and partly repeated content, so the
+     * resources deflate to different sizes.
+     *
+     * @return Project directory.
+     * @throws IOException
+     */
+    private File writeProject() throws IOException {
+        File projectDir = temporaryFolder.newFolder(PROJECT);
+        Random random = new Random(RESOURCE_COUNT);
+
+        for (int i = 0; i < RESOURCE_COUNT; i++) {
+            byte[] content = new byte[random.nextInt(MAX_RESOURCE_SIZE)];
+            random.nextBytes(content);
+
+            for (int j = content.length / 2; j < content.length; j++) {
+                content[j] = (byte) ('a' + j % 8);
+            }
+
+            File resource = new File(projectDir, "xsd/schema-" + i + ".xsd");
+            FileUtils.writeByteArrayToFile(resource, content);
+            resource.setLastModified(LAST_MODIFIED);
+        }
+
+        return projectDir;
+    }
+
+    /**
+     * Archive all resources of the project with the provided compression and number of threads.
+     *
+     * @param projectDir Project directory.
+     * @param compression {@link Compression} method.
+     * @param threads Number of threads.
+     * @return Content of the archive.
+     * @throws Exception
+     */
+    private byte[] writeArchive(File projectDir, Compression compression, int threads) throws Exception {
+        File archive = new File(temporaryFolder.getRoot(), compression + "-" + threads + ".sbar");
+        SbarArchiver archiver = new SbarArchiver();
+        archiver.enableLogging(new ConsoleLogger(Logger.LEVEL_WARN, SbarArchiver.class.getName()));
+        archiver.setCompression(compression);
+        archiver.setThreads(threads);
+        archiver.setDestFile(archive);
+
+        for (int i = 0; i < RESOURCE_COUNT; i++) {
+            String path = "xsd/schema-" + i + ".xsd";
+            archiver.addFile(new File(projectDir, path), PROJECT + "/" + path);
+        }
+
+        archiver.createArchive();
+        assertEquals(RESOURCE_COUNT, archiver.getEntryCount());
+        return FileUtils.readFileToByteArray(archive);
+    }
+}
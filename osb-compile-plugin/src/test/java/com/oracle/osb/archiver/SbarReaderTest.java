@@ -0,0 +1,422 @@
+package com.oracle.osb.archiver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of {@link SbarReader} with archives written by {@link ZipOutputStream}, some of which are modified afterwards
+ * to cover archive comments, Zip64 extra fields and corrupt archives.
+ */
+public class SbarReaderTest {
+
+    //Archive entries
+    private static final String ENTRY_DIRECTORY = "Project/";
+    private static final String ENTRY_STORED = "Project/stored.xsd";
+    private static final String ENTRY_DEFLATED = "Project/deflated.proxy";
+    private static final String ENTRY_UTF8 = "Project/résumé.wsdl";
+
+    //Zip64 settings
+    private static final int ZIP64_ENTRY_COUNT = 70000;
+
+    //Record settings
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_SIZE = 22;
+    private static final int END_ENTRY_COUNT = 10;
+    private static final int END_DIRECTORY_SIZE = 12;
+    private static final int END_DIRECTORY_OFFSET = 16;
+    private static final short ZIP64_EXTRA_ID = 0x0001;
+    private static final int ZIP64_EXTRA_SIZE = 28;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Stored, deflated and directory entries are listed in the order of the central directory and read back.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void readStoredAndDeflatedEntries() throws Exception {
+        File archive = writeArchive("entries.sbar", null);
+        SbarReader reader = new SbarReader(archive);
+
+        try {
+            List<SbarReader.Entry> entries = reader.getEntries();
+            assertEquals(4, entries.size());
+            assertEquals(ENTRY_DIRECTORY, entries.get(0).getName());
+            assertTrue(entries.get(0).isDirectory());
+            assertEquals(ENTRY_STORED, entries.get(1).getName());
+            assertEquals(ZipEntry.STORED, entries.get(1).getMethod());
+            assertEquals(ENTRY_DEFLATED, entries.get(2).getName());
+            assertEquals(ZipEntry.DEFLATED, entries.get(2).getMethod());
+            assertTrue(entries.get(2).getCompressedSize() < entries.get(2).getSize());
+            assertEquals(ENTRY_UTF8, entries.get(3).getName());
+
+            assertArrayEquals(content(ENTRY_STORED), reader.read(reader.getEntry(ENTRY_STORED)));
+            assertArrayEquals(content(ENTRY_DEFLATED), reader.read(reader.getEntry(ENTRY_DEFLATED)));
+            assertArrayEquals(content(ENTRY_UTF8), reader.read(reader.getEntry(ENTRY_UTF8)));
+            assertEquals(checksum(content(ENTRY_DEFLATED)), reader.getEntry(ENTRY_DEFLATED).getCrc());
+            assertNull(reader.getEntry("Project/missing.xsd"));
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * The end of central directory record is found before an archive comment, also when the comment contains the
+     * signature of the record.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void readArchiveWithComment() throws Exception {
+        char[] padding = new char[4000];
+        Arrays.fill(padding, 'c');
+        File archive = writeArchive("comment.sbar", "PK\u0005\u0006" + new String(padding));
+        SbarReader reader = new SbarReader(archive);
+
+        try {
+            assertEquals(4, reader.getEntries().size());
+            assertArrayEquals(content(ENTRY_DEFLATED), reader.read(reader.getEntry(ENTRY_DEFLATED)));
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * An archive of more than 65535 entries has a Zip64 end of central directory record.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void readZip64EntryCount() throws Exception {
+        File archive = temporaryFolder.newFile("zip64-count.sbar");
+        ZipOutputStream output = new ZipOutputStream(new FileOutputStream(archive));
+
+        try {
+            output.setLevel(0);
+
+            for (int i = 0; i < ZIP64_ENTRY_COUNT; i++) {
+                output.putNextEntry(new ZipEntry("Project/resource" + i + ".xsd"));
+                output.write(("resource" + i).getBytes(UTF8));
+                output.closeEntry();
+            }
+        } finally {
+            IOUtils.closeQuietly(output);
+        }
+
+        SbarReader reader = new SbarReader(archive);
+
+        try {
+            assertEquals(ZIP64_ENTRY_COUNT, reader.getEntries().size());
+            SbarReader.Entry last = reader.getEntry("Project/resource" + (ZIP64_ENTRY_COUNT - 1) + ".xsd");
+            assertArrayEquals(("resource" + (ZIP64_ENTRY_COUNT - 1)).getBytes(UTF8), reader.read(last));
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Sizes and local header offsets are read from the Zip64 extra field of the central directory, when the central
+     * directory header only contains the Zip64 placeholder values.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void readZip64ExtraFields() throws Exception {
+        File archive = writeArchive("zip64-extra.sbar", null);
+        writeZip64Extra(archive);
+        ZipFile zipFile = new ZipFile(archive);
+
+        try {
+            assertArrayEquals(content(ENTRY_DEFLATED),
+                              IOUtils.toByteArray(zipFile.getInputStream(zipFile.getEntry(ENTRY_DEFLATED))));
+        } finally {
+            zipFile.close();
+        }
+
+        SbarReader reader = new SbarReader(archive);
+
+        try {
+            assertEquals(4, reader.getEntries().size());
+            assertEquals(content(ENTRY_DEFLATED).length, reader.getEntry(ENTRY_DEFLATED).getSize());
+            assertArrayEquals(content(ENTRY_STORED), reader.read(reader.getEntry(ENTRY_STORED)));
+            assertArrayEquals(content(ENTRY_DEFLATED), reader.read(reader.getEntry(ENTRY_DEFLATED)));
+            assertArrayEquals(content(ENTRY_UTF8), reader.read(reader.getEntry(ENTRY_UTF8)));
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * An archive with a corrupt central directory header is rejected when it is opened.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void rejectCorruptCentralDirectory() throws Exception {
+        File archive = writeArchive("corrupt-directory.sbar", null);
+        RandomAccessFile file = new RandomAccessFile(archive, "rw");
+
+        try {
+            file.seek(file.length() - END_SIZE + END_DIRECTORY_OFFSET);
+            long directoryOffset = Integer.reverseBytes(file.readInt()) & 0xFFFFFFFFL;
+            file.seek(directoryOffset);
+            file.writeInt(0);
+        } finally {
+            file.close();
+        }
+
+        assertInvalid(archive);
+    }
+
+    /**
+     * An archive with a central directory outside of the archive is rejected when it is opened.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void rejectCentralDirectoryOutsideOfArchive() throws Exception {
+        File archive = writeArchive("outside-directory.sbar", null);
+        RandomAccessFile file = new RandomAccessFile(archive, "rw");
+
+        try {
+            file.seek(file.length() - END_SIZE + END_DIRECTORY_OFFSET);
+            file.writeInt(Integer.reverseBytes(Integer.MAX_VALUE));
+        } finally {
+            file.close();
+        }
+
+        assertInvalid(archive);
+    }
+
+    /**
+     * A file without an end of central directory record is rejected when it is opened.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void rejectTruncatedArchive() throws Exception {
+        File archive = writeArchive("truncated.sbar", null);
+        RandomAccessFile file = new RandomAccessFile(archive, "rw");
+
+        try {
+            file.setLength(file.length() - END_SIZE);
+        } finally {
+            file.close();
+        }
+
+        assertInvalid(archive);
+    }
+
+    /**
+     * Content that does not match the CRC of the central directory is rejected when the entry is read.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void rejectWrongCrc() throws Exception {
+        File archive = writeArchive("wrong-crc.sbar", null);
+        long dataOffset = indexOf(archive, content(ENTRY_STORED));
+        RandomAccessFile file = new RandomAccessFile(archive, "rw");
+
+        try {
+            file.seek(dataOffset);
+            file.write('X');
+        } finally {
+            file.close();
+        }
+
+        SbarReader reader = new SbarReader(archive);
+
+        try {
+            reader.read(reader.getEntry(ENTRY_STORED));
+            fail("Entry with a wrong CRC should not be read");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage().contains("CRC"));
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Write an archive with a directory, a stored, a deflated and a UTF-8 named entry.
+     *
+     * @param name Archive file name.
+     * @param comment Archive comment, null for no comment.
+     * @return Archive file.
+     * @throws IOException
+     */
+    private File writeArchive(String name, String comment) throws IOException {
+        File archive = temporaryFolder.newFile(name);
+        ZipOutputStream output = new ZipOutputStream(new FileOutputStream(archive));
+
+        try {
+            output.putNextEntry(new ZipEntry(ENTRY_DIRECTORY));
+            output.closeEntry();
+
+            byte[] stored = content(ENTRY_STORED);
+            ZipEntry storedEntry = new ZipEntry(ENTRY_STORED);
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(stored.length);
+            storedEntry.setCrc(checksum(stored));
+            output.putNextEntry(storedEntry);
+            output.write(stored);
+            output.closeEntry();
+
+            for (String entryName : Arrays.asList(ENTRY_DEFLATED, ENTRY_UTF8)) {
+                output.putNextEntry(new ZipEntry(entryName));
+                output.write(content(entryName));
+                output.closeEntry();
+            }
+
+            if (comment != null) {
+                output.setComment(comment);
+            }
+        } finally {
+            IOUtils.closeQuietly(output);
+        }
+
+        return archive;
+    }
+
+    /**
+     * Rewrite the central directory of an archive, so every header contains the Zip64 placeholder values for the
+     * sizes and local header offset, and the actual values in a Zip64 extra field.
+     *
+     * @param archive Archive file without archive comment.
+     * @throws IOException
+     */
+    private static void writeZip64Extra(File archive) throws IOException {
+        byte[] bytes = FileUtils.readFileToByteArray(archive);
+        ByteBuffer input = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int endOffset = bytes.length - END_SIZE;
+        int entryCount = input.getShort(endOffset + END_ENTRY_COUNT) & 0xFFFF;
+        int directoryOffset = input.getInt(endOffset + END_DIRECTORY_OFFSET);
+        ByteArrayOutputStream directory = new ByteArrayOutputStream();
+        int position = directoryOffset;
+
+        for (int i = 0; i < entryCount; i++) {
+            int nameLength = input.getShort(position + 28) & 0xFFFF;
+            int extraLength = input.getShort(position + 30) & 0xFFFF;
+            int commentLength = input.getShort(position + 32) & 0xFFFF;
+            ByteBuffer header =
+                ByteBuffer.allocate(CENTRAL_HEADER_SIZE + nameLength + ZIP64_EXTRA_SIZE + extraLength +
+                                    commentLength).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(bytes, position, CENTRAL_HEADER_SIZE + nameLength);
+            header.putShort(ZIP64_EXTRA_ID).putShort((short) (ZIP64_EXTRA_SIZE - 4));
+            header.putLong(input.getInt(position + 24) & 0xFFFFFFFFL);
+            header.putLong(input.getInt(position + 20) & 0xFFFFFFFFL);
+            header.putLong(input.getInt(position + 42) & 0xFFFFFFFFL);
+            header.put(bytes, position + CENTRAL_HEADER_SIZE + nameLength, extraLength + commentLength);
+            header.putInt(20, -1).putInt(24, -1).putInt(42, -1);
+            header.putShort(30, (short) (ZIP64_EXTRA_SIZE + extraLength));
+            directory.write(header.array());
+            position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+
+        ByteBuffer end = ByteBuffer.allocate(END_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        end.put(bytes, endOffset, END_SIZE);
+        end.putInt(END_DIRECTORY_SIZE, directory.size());
+        OutputStream output = new FileOutputStream(archive);
+
+        try {
+            output.write(bytes, 0, directoryOffset);
+            directory.writeTo(output);
+            output.write(end.array());
+        } finally {
+            IOUtils.closeQuietly(output);
+        }
+    }
+
+    /**
+     * Check that an archive is rejected with an {@link IOException} when it is opened.
+     *
+     * @param archive Archive file.
+     */
+    private static void assertInvalid(File archive) {
+        try {
+            new SbarReader(archive).close();
+            fail("Archive [" + archive.getName() + "] should be rejected");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage().contains(archive.getAbsolutePath()));
+        }
+    }
+
+    /**
+     * Get the content of a test entry, a repeated text that is well compressible.
+     *
+     * @param name Entry name.
+     * @return Content of the entry.
+     */
+    private static byte[] content(String name) {
+        StringBuilder result = new StringBuilder();
+
+        for (int i = 0; i < 200; i++) {
+            result.append("<element name=\"").append(name).append("\" index=\"").append(i).append("\"/>\n");
+        }
+
+        return result.toString().getBytes(UTF8);
+    }
+
+    /**
+     * Get the CRC-32 checksum of the provided content.
+     *
+     * @param content Content.
+     * @return CRC-32 checksum.
+     */
+    private static long checksum(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    /**
+     * Find the offset of the first occurrence of the provided content in a file.
+     *
+     * @param file File.
+     * @param content Content to search for.
+     * @return Offset of the content.
+     * @throws IOException If the file cannot be read or does not contain the content.
+     */
+    private static long indexOf(File file, byte[] content) throws IOException {
+        byte[] bytes = FileUtils.readFileToByteArray(file);
+
+        for (int offset = 0; offset + content.length <= bytes.length; offset++) {
+            if (Arrays.equals(Arrays.copyOfRange(bytes, offset, offset + content.length), content)) {
+                return offset;
+            }
+        }
+
+        throw new IOException("Content not found in [" + file.getAbsolutePath() + "]");
+    }
+}
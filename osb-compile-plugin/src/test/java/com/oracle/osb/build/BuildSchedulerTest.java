@@ -0,0 +1,135 @@
+package com.oracle.osb.build;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * Tests of the {@link BuildScheduler} limits in a parallel build. Maven builds every module with its own clone of the
+ * session, so every module gets the scheduler from its own clone, like the package goal does.
+ */
+public class BuildSchedulerTest {
+
+    //Build settings
+    private static final int MODULE_COUNT = 2;
+    private static final int JOBS_PER_MODULE = 8;
+    private static final long JOB_DURATION = 20;
+
+    /**
+     * The modules of a build get one scheduler, configured by the first module.
+     */
+    @Test
+    public void modulesShareScheduler() {
+        MavenSession session = createSession();
+        BuildScheduler first = BuildScheduler.getInstance(session.clone(), 2, 0);
+        BuildScheduler second = BuildScheduler.getInstance(session.clone(), 8, 0);
+
+        assertSame(first, second);
+        assertEquals(2, second.getMaxJobs());
+    }
+
+    /**
+     * The maximum number of concurrent jobs holds for the jobs of all modules together.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void maxJobsLimitsAllModules() throws Exception {
+        assertEquals(2, runModules(2, 0, 0));
+    }
+
+    /**
+     * The memory budget holds for the jobs of all modules together.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void memoryBudgetLimitsAllModules() throws Exception {
+        assertEquals(1, runModules(4, 1024, 600));
+    }
+
+    /**
+     * Run the jobs of {@link #MODULE_COUNT} modules of one build concurrently, every module with its own session
+     * clone and thread pool, like a parallel Maven build.
+     *
+     * @param maxJobs Maximum number of concurrent jobs.
+     * @param memoryBudget Memory budget in megabytes.
+     * @param jobMemory Memory of every job in megabytes.
+     * @return Highest number of jobs that ran concurrently.
+     * @throws Exception
+     */
+    private static int runModules(int maxJobs, int memoryBudget, final int jobMemory) throws Exception {
+        MavenSession session = createSession();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<ExecutorService> executors = new ArrayList<ExecutorService>();
+        List<Future<Void>> results = new ArrayList<Future<Void>>();
+
+        for (int module = 0; module < MODULE_COUNT; module++) {
+            final BuildScheduler scheduler = BuildScheduler.getInstance(session.clone(), maxJobs, memoryBudget);
+            ExecutorService executor = Executors.newFixedThreadPool(JOBS_PER_MODULE);
+            executors.add(executor);
+
+            for (int job = 0; job < JOBS_PER_MODULE; job++) {
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        return scheduler.run(jobMemory, new Callable<Void>() {
+                            @Override
+                            public Void call() throws Exception {
+                                int current = running.incrementAndGet();
+
+                                synchronized (maxRunning) {
+                                    maxRunning.set(Math.max(maxRunning.get(), current));
+                                }
+
+                                Thread.sleep(JOB_DURATION);
+                                running.decrementAndGet();
+                                return null;
+                            }
+                        });
+                    }
+                }));
+            }
+        }
+
+        start.countDown();
+
+        for (Future<Void> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+
+        return maxRunning.get();
+    }
+
+    /**
+     * Create the session of a new build.
+     *
+     * @return {@link MavenSession} instance.
+     */
+    @SuppressWarnings("deprecation")
+    private static MavenSession createSession() {
+        List<MavenProject> projects = new ArrayList<MavenProject>();
+        return new MavenSession(null, new DefaultMavenExecutionRequest(), null, projects);
+    }
+}
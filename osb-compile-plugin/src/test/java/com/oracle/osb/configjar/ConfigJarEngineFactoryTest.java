@@ -0,0 +1,138 @@
+package com.oracle.osb.configjar;
+
+import com.oracle.osb.archiver.ExportInfoReader;
+import com.oracle.osb.archiver.SbarReader;
+import com.oracle.osb.fileset.FilesetCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the {@link ConfigJarEngineFactory} and of concurrent exports with the {@link StubConfigJarEngine}, which
+ * needs no Oracle home.
+ */
+public class ConfigJarEngineFactoryTest {
+
+    //Export settings
+    private static final int THREAD_COUNT = 8;
+    private static final int EXPORT_COUNT = 64;
+    private static final String FILENAME_EXPORT_INFO = "ExportInfo";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Engines are created by name.
+     */
+    @Test
+    public void createEngines() {
+        FilesetCache filesetCache = new FilesetCache();
+        Log log = new SystemStreamLog();
+
+        assertTrue(ConfigJarEngineFactory.create(ConfigJarExecEngine.NAME, filesetCache,
+                                                 log) instanceof ConfigJarExecEngine);
+        assertTrue(ConfigJarEngineFactory.create(NativeConfigJarEngine.NAME, filesetCache,
+                                                 log) instanceof NativeConfigJarEngine);
+        assertTrue(ConfigJarEngineFactory.create(StubConfigJarEngine.NAME, filesetCache,
+                                                 log) instanceof StubConfigJarEngine);
+    }
+
+    /**
+     * An unknown engine name is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectUnknownEngine() {
+        ConfigJarEngineFactory.create("unknown", new FilesetCache(), new SystemStreamLog());
+    }
+
+    /**
+     * A stub engine that is used by several threads at the same time writes a valid archive for every export.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void exportConcurrently() throws Exception {
+        final StubConfigJarEngine engine =
+            (StubConfigJarEngine) ConfigJarEngineFactory.create(StubConfigJarEngine.NAME, new FilesetCache(),
+                                                                new SystemStreamLog());
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        List<Future<File>> results = new ArrayList<Future<File>>();
+
+        try {
+            for (int i = 0; i < EXPORT_COUNT; i++) {
+                final File outputDir = temporaryFolder.newFolder("module" + i);
+                final File settingsFile = new File(outputDir, "settings.xml");
+                settingsFile.createNewFile();
+
+                results.add(executor.submit(new Callable<File>() {
+                    @Override
+                    public File call() throws Exception {
+                        File sbarFile = new File(outputDir, "sbconfig.sbar");
+                        assertTrue(engine.export(new ExportRequest(null, outputDir, settingsFile, sbarFile)));
+                        return sbarFile;
+                    }
+                }));
+            }
+
+            for (Future<File> result : results) {
+                assertArchive(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(EXPORT_COUNT, engine.getExportCount());
+    }
+
+    /**
+     * The stub engine does not export without a Configjar settings file.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void skipMissingSettingsFile() throws Exception {
+        File outputDir = temporaryFolder.newFolder("missing");
+        File sbarFile = new File(outputDir, "sbconfig.sbar");
+        StubConfigJarEngine engine = new StubConfigJarEngine();
+
+        assertFalse(engine.export(new ExportRequest(null, outputDir, new File(outputDir, "settings.xml"), sbarFile)));
+        assertFalse(sbarFile.exists());
+        assertEquals(0, engine.getExportCount());
+    }
+
+    /**
+     * Check that an archive of the stub engine contains a resource level <i>ExportInfo</i> file.
+     *
+     * @param sbarFile <i>sbar</i> archive.
+     * @throws Exception
+     */
+    private static void assertArchive(File sbarFile) throws Exception {
+        SbarReader reader = new SbarReader(sbarFile);
+
+        try {
+            byte[] exportInfo = reader.read(reader.getEntry(FILENAME_EXPORT_INFO));
+            assertEquals("false", new ExportInfoReader().readProperties(new ByteArrayInputStream(exportInfo))
+                                                        .get("projectLevelExport"));
+        } finally {
+            reader.close();
+        }
+    }
+}
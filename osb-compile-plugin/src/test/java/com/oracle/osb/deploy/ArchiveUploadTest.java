@@ -0,0 +1,154 @@
+package com.oracle.osb.deploy;
+
+import com.bea.wli.sb.management.configuration.ALSBConfigurationMBean;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.IOUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of {@link ArchiveUpload} with a large synthetic archive, uploaded to a local stand-in of the
+ * {@link ALSBConfigurationMBean}.
+ */
+public class ArchiveUploadTest {
+
+    //Synthetic archive settings
+    private static final int ARCHIVE_SIZE = 128 * 1024 * 1024;
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int ALLOCATION_MARGIN = 16 * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The stand-in receives the exact content of a large archive, and the upload allocates a single copy of the
+     * archive.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void uploadLargeArchive() throws Exception {
+        File archive = temporaryFolder.newFile("large.sbar");
+        long checksum = writeArchive(archive);
+        ConfigMBeanStandIn standIn = new ConfigMBeanStandIn();
+
+        ArchiveUpload upload = new ArchiveUpload(archive);
+        upload.upload(standIn.getProxy());
+
+        assertEquals(1, standIn.uploadCount);
+        assertEquals(ARCHIVE_SIZE, standIn.uploadedSize);
+        assertEquals(checksum, standIn.uploadedChecksum);
+        assertEquals(ARCHIVE_SIZE, upload.getSize());
+        assumeTrue("JVM does not measure thread allocations", upload.getAllocatedHeap() >= 0);
+        assertTrue("Upload should allocate the archive array", upload.getAllocatedHeap() >= ARCHIVE_SIZE);
+        assertTrue("Upload should allocate a single copy of the archive, allocated [" + upload.getAllocatedHeap() +
+                   "] bytes", upload.getAllocatedHeap() < ARCHIVE_SIZE + ALLOCATION_MARGIN);
+    }
+
+    /**
+     * The archive is closed after the upload, so it can be rewritten and deleted, like the watch goal does.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void archiveIsReleasedAfterUpload() throws Exception {
+        File archive = temporaryFolder.newFile("released.sbar");
+        writeArchive(archive);
+
+        new ArchiveUpload(archive).upload(new ConfigMBeanStandIn().getProxy());
+
+        long checksum = writeArchive(archive);
+        assertEquals(checksum, checksum(new ArchiveUpload(archive).read()));
+        assertTrue("Archive should be deleted after the upload", archive.delete());
+    }
+
+    /**
+     * Write a synthetic archive of {@link #ARCHIVE_SIZE} bytes of pseudo random content.
+     *
+     * @param archive Archive file.
+     * @return CRC-32 checksum of the content.
+     * @throws IOException
+     */
+    private long writeArchive(File archive) throws IOException {
+        Random random = new Random(archive.getName().hashCode());
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[CHUNK_SIZE];
+        OutputStream output = new FileOutputStream(archive);
+
+        try {
+            for (int written = 0; written < ARCHIVE_SIZE; written += CHUNK_SIZE) {
+                random.nextBytes(chunk);
+                crc.update(chunk);
+                output.write(chunk);
+            }
+        } finally {
+            IOUtils.closeQuietly(output);
+        }
+
+        return crc.getValue();
+    }
+
+    /**
+     * Get the CRC-32 checksum of the provided content.
+     *
+     * @param content Content.
+     * @return CRC-32 checksum.
+     */
+    private static long checksum(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    /**
+     * Stand-in of the {@link ALSBConfigurationMBean} of a session, that only accepts uploads. The uploaded content is
+     * not kept, only its size and checksum are recorded.
+     */
+    private static class ConfigMBeanStandIn implements InvocationHandler {
+
+        private int uploadCount;
+        private long uploadedSize;
+        private long uploadedChecksum;
+
+        /**
+         * Get a proxy of the {@link ALSBConfigurationMBean} that is handled by this stand-in.
+         *
+         * @return {@link ALSBConfigurationMBean} proxy.
+         */
+        ALSBConfigurationMBean getProxy() {
+            return (ALSBConfigurationMBean) Proxy.newProxyInstance(ALSBConfigurationMBean.class.getClassLoader(),
+                                                                   new Class<?>[] { ALSBConfigurationMBean.class },
+                                                                   this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!"uploadJarFile".equals(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+
+            byte[] content = (byte[]) args[0];
+            uploadCount++;
+            uploadedSize = content.length;
+            uploadedChecksum = checksum(content);
+            return null;
+        }
+    }
+}
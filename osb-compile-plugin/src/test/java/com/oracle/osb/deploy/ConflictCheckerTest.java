@@ -0,0 +1,140 @@
+package com.oracle.osb.deploy;
+
+import com.bea.wli.config.Ref;
+import com.bea.wli.config.resource.Diagnostics;
+import com.bea.wli.sb.management.configuration.ALSBConfigurationMBean;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+
+/**
+ * Tests of the diagnostics the {@link ConflictChecker} asks for, against a local stand-in of the
+ * {@link ALSBConfigurationMBean} of a domain without conflicts.
+ */
+public class ConflictCheckerTest {
+
+    //Domain settings
+    private static final int DOMAIN_RESOURCES = 50;
+    private static final int IMPORTED_RESOURCES = 1200;
+
+    /**
+     * The full check asks for the diagnostics of all resources at once.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void fullCheckAsksForAllResources() throws Exception {
+        ConfigMBeanStandIn standIn = new ConfigMBeanStandIn();
+
+        assertFalse(createChecker(standIn).hasConflicts(ConflictCheck.FULL, createRefs(IMPORTED_RESOURCES)));
+        assertEquals(Collections.singletonList(DOMAIN_RESOURCES), standIn.requestedSizes);
+    }
+
+    /**
+     * The scoped check asks for the diagnostics of the imported resources in batches.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void scopedCheckAsksForImportedResources() throws Exception {
+        ConfigMBeanStandIn standIn = new ConfigMBeanStandIn();
+
+        assertFalse(createChecker(standIn).hasConflicts(ConflictCheck.SCOPED, createRefs(IMPORTED_RESOURCES)));
+        assertEquals(Arrays.asList(500, 500, 200), standIn.requestedSizes);
+    }
+
+    /**
+     * The scoped check without imported resources asks for the diagnostics of all resources, instead of reporting no
+     * conflicts without asking.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void scopedCheckWithoutImportedResourcesAsksForAllResources() throws Exception {
+        ConfigMBeanStandIn standIn = new ConfigMBeanStandIn();
+
+        assertFalse(createChecker(standIn).hasConflicts(ConflictCheck.SCOPED, Collections.<Ref>emptyList()));
+        assertFalse(createChecker(standIn).hasConflicts(ConflictCheck.SCOPED, null));
+        assertEquals(Arrays.asList(DOMAIN_RESOURCES, DOMAIN_RESOURCES), standIn.requestedSizes);
+    }
+
+    /**
+     * Create a checker of the session of the provided stand-in.
+     *
+     * @param standIn Stand-in of the {@link ALSBConfigurationMBean}.
+     * @return {@link ConflictChecker} instance.
+     */
+    private static ConflictChecker createChecker(ConfigMBeanStandIn standIn) {
+        return new ConflictChecker(standIn.getProxy(), new SystemStreamLog());
+    }
+
+    /**
+     * Create the refs of the provided number of resources.
+     *
+     * @param count Number of resources.
+     * @return List of {@link Ref} instances.
+     */
+    private static List<Ref> createRefs(int count) {
+        List<Ref> result = new ArrayList<Ref>(count);
+
+        for (int i = 0; i < count; i++) {
+            result.add(new Ref("ProxyService", "Project", "proxy", "service-" + i));
+        }
+
+        return result;
+    }
+
+    /**
+     * Stand-in of the {@link ALSBConfigurationMBean} of a session, that only returns diagnostics. All resources are
+     * returned without diagnostics, which the {@link ConflictChecker} treats as valid. The number of resources of
+     * every request is recorded, a request for all resources as {@link #DOMAIN_RESOURCES}.
+     */
+    private static class ConfigMBeanStandIn implements InvocationHandler {
+
+        private final List<Integer> requestedSizes = new ArrayList<Integer>();
+
+        /**
+         * Get a proxy of the {@link ALSBConfigurationMBean} that is handled by this stand-in.
+         *
+         * @return {@link ALSBConfigurationMBean} proxy.
+         */
+        ALSBConfigurationMBean getProxy() {
+            return (ALSBConfigurationMBean) Proxy.newProxyInstance(ALSBConfigurationMBean.class.getClassLoader(),
+                                                                   new Class<?>[] { ALSBConfigurationMBean.class },
+                                                                   this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (!"getDiagnostics".equals(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+
+            @SuppressWarnings("unchecked")
+            Collection<Ref> refs = (Collection<Ref>) args[0];
+            Map<Ref, Diagnostics> result = new HashMap<Ref, Diagnostics>();
+
+            for (Ref ref : refs != null ? refs : createRefs(DOMAIN_RESOURCES)) {
+                result.put(ref, null);
+            }
+
+            requestedSizes.add(refs != null ? refs.size() : DOMAIN_RESOURCES);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.oracle.osb.fileset;
+
+import java.io.File;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the session scope of {@link FilesetCache} and {@link DeployFileCache}. Maven builds every module with its
+ * own clone of the session, so the tests use a clone per module.
+ */
+public class FilesetCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * All modules of a build get the same caches.
+     */
+    @Test
+    public void modulesShareCaches() {
+        MavenSession session = createSession();
+        MavenSession firstModule = session.clone();
+        MavenSession secondModule = session.clone();
+
+        assertSame(FilesetCache.getInstance(firstModule), FilesetCache.getInstance(secondModule));
+        assertSame(DeployFileCache.getInstance(firstModule), DeployFileCache.getInstance(secondModule));
+    }
+
+    /**
+     * Another build gets new caches.
+     */
+    @Test
+    public void buildsDoNotShareCaches() {
+        MavenSession firstBuild = createSession();
+        MavenSession secondBuild = createSession();
+
+        assertNotSame(FilesetCache.getInstance(firstBuild), FilesetCache.getInstance(secondBuild));
+        assertNotSame(DeployFileCache.getInstance(firstBuild), DeployFileCache.getInstance(secondBuild));
+    }
+
+    /**
+     * A project directory is scanned once for all modules of a build.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void modulesShareScans() throws Exception {
+        File projectDir = temporaryFolder.newFolder("Project");
+        new File(projectDir, "schema.xsd").createNewFile();
+        MavenSession session = createSession();
+
+        new FilesetResolver(projectDir, null, null, FilesetCache.getInstance(session.clone())).resolve();
+        new FilesetResolver(projectDir, null, null, FilesetCache.getInstance(session.clone())).resolve();
+
+        assertEquals(1, FilesetCache.getInstance(session).getMissCount());
+        assertEquals(1, FilesetCache.getInstance(session).getHitCount());
+    }
+
+    /**
+     * Create the session of a new build.
+     *
+     * @return {@link MavenSession} instance.
+     */
+    @SuppressWarnings("deprecation")
+    private static MavenSession createSession() {
+        List<MavenProject> projects = new ArrayList<MavenProject>();
+        return new MavenSession(null, new DefaultMavenExecutionRequest(), null, projects);
+    }
+}